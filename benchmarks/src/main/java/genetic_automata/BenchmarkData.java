@@ -0,0 +1,46 @@
+package genetic_automata;
+
+import java.util.Random;
+
+// Deterministic training data shared by the benchmarks.
+public class BenchmarkData {
+	// Inputs are binary numbers below this bound.
+	private static final int MAX_NUMBER = 1 << 20;
+
+	private String[] inputs;
+	private boolean[] expected;
+
+	/*
+	 * Create examples for the language of binary numbers that are a multiple of 5,
+	 * half of which should be accepted, in the same way as Main.createTrainingExamples().
+	 */
+	public BenchmarkData(int size, long seed) {
+		inputs = new String[size];
+		expected = new boolean[size];
+
+		Random rand = new Random(seed);
+
+		for (int i = 0; i < size; i++) {
+			boolean accept = i < size / 2;
+			int num = rand.nextInt(MAX_NUMBER);
+
+			// Move the number onto or off a multiple of 5 as required.
+			if (accept) {
+				num -= num % 5;
+			} else if (num % 5 == 0) {
+				num++;
+			}
+
+			inputs[i] = Integer.toBinaryString(num);
+			expected[i] = accept;
+		}
+	}
+
+	public String[] getInputs() {
+		return inputs;
+	}
+
+	public boolean[] getExpected() {
+		return expected;
+	}
+}
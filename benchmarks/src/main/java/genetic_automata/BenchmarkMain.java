@@ -0,0 +1,33 @@
+package genetic_automata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Entry point of benchmarks.jar. Runs JMH with the given arguments and, unless
+ * told otherwise, writes the results as JSON to jmh-result.json so they can
+ * be compared across commits.
+ */
+public class BenchmarkMain {
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		List<String> jmhArgs = new ArrayList<>();
+		List<String> given = Arrays.asList(args);
+
+		if (!given.contains("-rf")) {
+			jmhArgs.add("-rf");
+			jmhArgs.add("json");
+		}
+
+		if (!given.contains("-rff")) {
+			jmhArgs.add("-rff");
+			jmhArgs.add(DEFAULT_RESULT_FILE);
+		}
+
+		jmhArgs.addAll(given);
+
+		org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+	}
+}
@@ -0,0 +1,120 @@
+package genetic_automata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks of the operations on a single DFA.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DFABenchmark {
+	@Param({ "100", "10000" })
+	public int trainingSize;
+
+	// Number of states of the DFA, which decides whether its transitions are stored as bytes or shorts.
+	@Param({ "5", "256", "1024" })
+	public int stateCount;
+
+	private DFA dfa;
+	private DFA mutatedDFA;
+	private DFA tracedDFA;
+	private CompiledDFA compiledDFA;
+	private String[] inputs;
+	private boolean[] expected;
+	private TrainingSet examples;
+	private TrainingSet trieExamples;
+
+	@Setup
+	public void setUp() {
+		BenchmarkData data = new BenchmarkData(trainingSize, 42);
+		inputs = data.getInputs();
+		expected = data.getExpected();
+		examples = TrainingSet.encode(inputs, expected, 2);
+		trieExamples = examples.withTrie();
+
+		dfa = new DFA(stateCount, 2);
+		compiledDFA = DFACompiler.compileUncached(dfa);
+
+		mutatedDFA = new DFA(dfa);
+		tracedDFA = new DFA(dfa);
+		tracedDFA.keepTrace(true);
+		tracedDFA.calculateFitness(examples);
+	}
+
+	@Benchmark
+	public boolean runString() {
+		return dfa.run(inputs[inputs.length - 1]);
+	}
+
+	@Benchmark
+	public boolean runEncoded() {
+		int last = examples.size() - 1;
+		return dfa.run(examples.getSymbols(), examples.getOffsets()[last], examples.getOffsets()[last + 1]);
+	}
+
+	@Benchmark
+	public double calculateFitnessStrings() {
+		return dfa.calculateFitness(inputs, expected);
+	}
+
+	@Benchmark
+	public double calculateFitnessEncoded() {
+		return dfa.calculateFitness(examples);
+	}
+
+	@Benchmark
+	public double calculateFitnessTrie() {
+		return dfa.calculateFitness(trieExamples);
+	}
+
+	// Compiling pays off once the time saved over calculateFitnessEncoded exceeds that of compile().
+	@Benchmark
+	public int calculateFitnessCompiled() {
+		return compiledDFA.countCorrect(examples);
+	}
+
+	@Benchmark
+	public CompiledDFA compile() {
+		return DFACompiler.compileUncached(dfa);
+	}
+
+	@Benchmark
+	public double recordTrace() {
+		dfa.keepTrace(false);
+		dfa.keepTrace(true);
+		return dfa.calculateFitness(examples);
+	}
+
+	@Benchmark
+	public double mutateAndRescore() {
+		mutatedDFA.mutate();
+		return mutatedDFA.calculateFitness(examples);
+	}
+
+	// Tracing pays off once the time saved over mutateAndRescore exceeds the extra time of recordTrace.
+	@Benchmark
+	public double mutateAndRescoreTraced() {
+		tracedDFA.mutate();
+		return tracedDFA.calculateFitness(examples);
+	}
+
+	@Benchmark
+	public DFA mutate() {
+		dfa.mutate();
+		return dfa;
+	}
+}
@@ -0,0 +1,99 @@
+package genetic_automata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks of the population-level operations of the genetic algorithm.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneticAlgorithmBenchmark {
+	@Param({ "200", "5000" })
+	public int populationSize;
+
+	@Param({ "100", "10000" })
+	public int trainingSize;
+
+	@Param({ "SEQUENTIAL", "FORK_JOIN", "BATCH" })
+	public EvaluationMode evaluationMode;
+
+	@Param({ "ROULETTE", "TOURNAMENT", "RANK" })
+	public SelectionMode selectionMode;
+
+	private GeneticAlgorithm algorithm;
+	private DFA first;
+	private DFA second;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		BenchmarkData data = new BenchmarkData(trainingSize, 42);
+
+		algorithm = new GeneticAlgorithm(data.getInputs(), data.getExpected());
+		algorithm.setSettings(populationSize, populationSize / 10, 0.2, Integer.MAX_VALUE, evaluationMode);
+
+		algorithm.setSelectionMode(selectionMode);
+
+		// Selection needs the fitness of the population.
+		algorithm.calculatePopulationFitness();
+		algorithm.prepareSelection();
+
+		first = algorithm.getPopulation().get(0);
+		second = algorithm.getPopulation().get(1);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		algorithm.shutdown();
+	}
+
+	@Benchmark
+	public void evaluatePopulation() {
+		// Unchanged DFAs are not scored again, so mark them all changed; this costs next to nothing in comparison.
+		for (DFA dfa : algorithm.getPopulation()) {
+			dfa.markDirty();
+		}
+
+		algorithm.calculatePopulationFitness();
+	}
+
+	@Benchmark
+	public void rankPopulation() {
+		algorithm.rankPopulation();
+	}
+
+	@Benchmark
+	public void prepareSelection() {
+		algorithm.prepareSelection();
+	}
+
+	@Benchmark
+	public DFA select() {
+		return algorithm.select();
+	}
+
+	@Benchmark
+	public DFA crossover() {
+		return algorithm.crossover(first, second);
+	}
+
+	@Benchmark
+	public boolean epoch() {
+		return algorithm.runEpoch();
+	}
+}
@@ -0,0 +1,138 @@
+package genetic_automata;
+
+import java.util.List;
+
+/*
+ * Calculates the fitness of the population by stepping a batch of DFAs
+ * through each input together. Every DFA of the batch occupies one lane of
+ * the primitive state vector, so each symbol of the training set is read
+ * once per batch rather than once per DFA, and the lane loop has no
+ * dependencies between iterations.
+ *
+ * Training sets indexed by a prefix trie are already evaluated with fewer
+ * transitions than a batch can save, so they are scored one DFA at a time.
+ * Batches always run every input, so the fitness is always exact.
+ *
+ * The batch buffers are kept between calls and only grow when larger DFAs
+ * are evaluated, so an evaluator must not be shared between threads.
+ */
+public class BatchEvaluator implements FitnessEvaluator {
+	// Default number of DFAs stepped through each input together.
+	public static final int DEFAULT_LANES = 64;
+
+	private int lanes;
+
+	/*
+	 * Delta functions of the batch, interleaved so that the entries of all
+	 * lanes for one state and symbol are adjacent:
+	 * (state * alphabet size + symbol) * lanes + lane.
+	 */
+	private int[] batchDelta = new int[0];
+
+	// Accept states of the batch, one run of words per lane.
+	private long[] batchAcceptMask = new long[0];
+
+	// Current state, start state and number of correct outputs of each lane.
+	private int[] states;
+	private int[] startStates;
+	private int[] correct;
+
+	public BatchEvaluator() {
+		this(DEFAULT_LANES);
+	}
+
+	public BatchEvaluator(int lanes) {
+		this.lanes = lanes;
+		states = new int[lanes];
+		startStates = new int[lanes];
+		correct = new int[lanes];
+	}
+
+	@Override
+	public void evaluate(List<DFA> population, TrainingSet examples, double cutoff) {
+		if (examples.getTrie() != null) {
+			for (DFA dfa : population) {
+				dfa.calculateFitness(examples);
+			}
+			return;
+		}
+
+		if (population.isEmpty()) {
+			return;
+		}
+
+		// Every DFA of a population has the same dimensions, so the first one sizes the buffers.
+		int alphabetSize = population.get(0).getAlphabetSize();
+		int deltaLength = population.get(0).getDelta().length();
+		int acceptWords = population.get(0).getAcceptMask().length;
+
+		if (batchDelta.length < deltaLength * lanes) {
+			batchDelta = new int[deltaLength * lanes];
+		}
+
+		if (batchAcceptMask.length < acceptWords * lanes) {
+			batchAcceptMask = new long[acceptWords * lanes];
+		}
+
+		for (int start = 0; start < population.size(); start += lanes) {
+			int batchSize = Math.min(lanes, population.size() - start);
+
+			for (int lane = 0; lane < batchSize; lane++) {
+				DFA dfa = population.get(start + lane);
+				TransitionTable delta = dfa.getDelta();
+
+				if (delta.length() != deltaLength || dfa.getAlphabetSize() != alphabetSize) {
+					throw new IllegalArgumentException("Every DFA of a batch must have the same number of states and symbols.");
+				}
+
+				for (int j = 0; j < delta.length(); j++) {
+					batchDelta[j * lanes + lane] = delta.get(j);
+				}
+
+				System.arraycopy(dfa.getAcceptMask(), 0, batchAcceptMask, lane * acceptWords, acceptWords);
+				startStates[lane] = dfa.getStartState();
+				correct[lane] = 0;
+			}
+
+			evaluateBatch(batchSize, examples, alphabetSize, acceptWords);
+
+			for (int lane = 0; lane < batchSize; lane++) {
+				population.get(start + lane).setFitness((correct[lane] * 1.0) / examples.size());
+			}
+		}
+	}
+
+	// Run every input of the training set through the DFAs of one batch, counting correct outputs per lane.
+	private void evaluateBatch(int batchSize, TrainingSet examples, int alphabetSize, int acceptWords) {
+		// Read the buffers into locals so that the lane loops do not reload the fields.
+		int[] batchDelta = this.batchDelta;
+		long[] batchAcceptMask = this.batchAcceptMask;
+		int[] states = this.states;
+		int[] correct = this.correct;
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+
+		for (int i = 0; i < expected.length; i++) {
+			System.arraycopy(startStates, 0, states, 0, batchSize);
+
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				// Decode the symbol once for the whole batch.
+				int symbol = symbols[j] & 0xff;
+
+				for (int lane = 0; lane < batchSize; lane++) {
+					states[lane] = batchDelta[(states[lane] * alphabetSize + symbol) * lanes + lane];
+				}
+			}
+
+			for (int lane = 0; lane < batchSize; lane++) {
+				int state = states[lane];
+				boolean accepted = (batchAcceptMask[lane * acceptWords + (state >>> 6)] & (1L << state)) != 0;
+
+				if (accepted == expected[i]) {
+					correct[lane]++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,577 @@
+package genetic_automata;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.management.JMException;
+
+/*
+ * Headless command line entry point that runs the genetic algorithm once and
+ * writes the best DFA and the per-epoch fitness statistics as JSON or CSV.
+ * It only depends on the algorithm classes, so it runs without a display and
+ * without the charting and graph libraries on the classpath:
+ *
+ *   java -cp genetic-automata.jar genetic_automata.BatchRunner --training examples.txt --seed 7
+ */
+public class BatchRunner {
+	// Size of the training set generated when no training file is given, as in Main.
+	public static final int DEFAULT_TRAINING_SIZE = 100;
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java genetic_automata.BatchRunner [options]",
+			"  --population <n>    population size (default 200)",
+			"  --elitism <n>       DFAs kept unchanged across epochs (default 30)",
+			"  --mutation <rate>   probability of mutating a DFA (default 0.2)",
+			"  --epochs <n>        maximum number of epochs (default 1000)",
+			"  --seed <n>          seed for all random choices (default: random)",
+			"  --states <n>        number of states of each DFA (default 5)",
+			"  --alphabet <n>      number of input symbols, at most 256 (default 2); up to 36 symbols are",
+			"                      written 0-9 then a-z, larger alphabets as Latin-1 characters",
+			"  --training <file>   training examples, one '<input> <0|1>' per line",
+			"                      (default: binary multiples of 5)",
+			"  --mapped <file>     training examples streamed from a file written by MappedTrainingSet;",
+			"                      excludes the options that need the examples in memory",
+			"  --evaluation <mode> SEQUENTIAL, FORK_JOIN, THREAD_POOL or BATCH (default SEQUENTIAL)",
+			"  --selection <mode>  ROULETTE, TOURNAMENT or RANK (default ROULETTE)",
+			"  --packed            evolve the population in a PackedPopulation",
+			"  --trie              evaluate DFAs over a prefix trie of the inputs",
+			"  --islands <n>       evolve n islands in parallel with migration (default 1)",
+			"  --migration-interval <n>  epochs between migrations (default 10)",
+			"  --migrants <n>      elite DFAs sent per migration (default 5)",
+			"  --bounded           stop evaluating DFAs that cannot reach the elite cut-off",
+			"  --trace-budget <n>  total bytes of the elites' traces for re-scoring (default 0, disabled)",
+			"  --cache <n>         cache up to n fitness values by canonical DFA (default 0, disabled)",
+			"  --compile <n>       run elite DFAs compiled into stride tables, keeping up to n compiled DFAs",
+			"                      (default 0, disabled); pays off on large training sets",
+			"  --mini-batch <n>    score each epoch on n sampled training examples (default 0, all examples)",
+			"  --resample-interval <n>   epochs between drawing new mini-batches (default 1)",
+			"  --validation-interval <n> epochs between scoring the elites on all examples (default 10)",
+			"  --checkpoint <file> write a checkpoint of the run to the file every checkpoint interval",
+			"  --checkpoint-interval <n> epochs between checkpoints (default 100)",
+			"  --resume <file>     continue the run in a checkpoint on the same training examples; its",
+			"                      seed, settings, states, selection, bounded and mini-batch options are restored",
+			"                      (--alphabet must match)",
+			"  --metrics           measure where epoch time goes, publish it over JMX while running and",
+			"                      include it in the JSON output",
+			"  --store <dir>       add the run to the run store in the directory (see RunStore)",
+			"  --language <name>   language the run is stored under (default: the training file name,",
+			"                      or '" + RunStore.DEFAULT_LANGUAGE + "')",
+			"  --format <format>   json or csv (default json)",
+			"  --output <file>     where to write the results (default: standard output)");
+
+	private int populationSize = GeneticAlgorithm.DEFAULT_POPULATION_SIZE;
+	private int elitismOffset = GeneticAlgorithm.DEFAULT_ELITISM_OFFSET;
+	private double mutationRate = GeneticAlgorithm.DEFAULT_MUTATION_RATE;
+	private int epochs = GeneticAlgorithm.DEFAULT_MAX_EPOCHS;
+	// Seed of the run, or null if a resumed run was not started from a seed.
+	private Long seed = new Random().nextLong();
+	private int stateCount = DFA.DEFAULT_STATE_COUNT;
+	private int alphabetSize = DFA.DEFAULT_ALPHABET_SIZE;
+	private String trainingFile;
+	private String mappedFile;
+	private EvaluationMode evaluationMode = EvaluationMode.SEQUENTIAL;
+	private SelectionMode selectionMode = SelectionMode.ROULETTE;
+	private boolean packed;
+	private boolean trie;
+	private int islandCount = 1;
+	private int migrationInterval = 10;
+	private int migrantCount = 5;
+	private boolean bounded;
+	private long traceBudget;
+	private int cacheCapacity;
+	private String storeDirectory;
+	private String language;
+	private int compiledCapacity;
+	private int miniBatchSize;
+	private int resampleInterval = 1;
+	private int validationInterval = 10;
+	private String checkpointFile;
+	private int checkpointInterval = 100;
+	private String resumeFile;
+	private boolean metrics;
+	private String format = "json";
+	private String outputFile;
+
+	public static void main(String[] args) {
+		BatchRunner runner = new BatchRunner();
+
+		try {
+			runner.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			runner.run();
+		} catch (IOException e) {
+			System.err.println("Failed to run: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	// Read the settings from the command line arguments.
+	private void parseArguments(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+
+			// Flags without a value.
+			if (option.equals("--packed")) {
+				packed = true;
+				continue;
+			} else if (option.equals("--trie")) {
+				trie = true;
+				continue;
+			} else if (option.equals("--bounded")) {
+				bounded = true;
+				continue;
+			} else if (option.equals("--metrics")) {
+				metrics = true;
+				continue;
+			} else if (option.equals("--help")) {
+				System.out.println(USAGE);
+				System.exit(0);
+			}
+
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+
+			String value = args[++i];
+
+			try {
+				switch (option) {
+				case "--population":
+					populationSize = Integer.parseInt(value);
+					break;
+				case "--elitism":
+					elitismOffset = Integer.parseInt(value);
+					break;
+				case "--mutation":
+					mutationRate = Double.parseDouble(value);
+					break;
+				case "--epochs":
+					epochs = Integer.parseInt(value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--states":
+					stateCount = Integer.parseInt(value);
+					break;
+				case "--alphabet":
+					alphabetSize = Integer.parseInt(value);
+					break;
+				case "--training":
+					trainingFile = value;
+					break;
+				case "--mapped":
+					mappedFile = value;
+					break;
+				case "--evaluation":
+					evaluationMode = EvaluationMode.valueOf(value.toUpperCase(Locale.ROOT));
+					break;
+				case "--selection":
+					selectionMode = SelectionMode.valueOf(value.toUpperCase(Locale.ROOT));
+					break;
+				case "--islands":
+					islandCount = Integer.parseInt(value);
+					break;
+				case "--migration-interval":
+					migrationInterval = Integer.parseInt(value);
+					break;
+				case "--migrants":
+					migrantCount = Integer.parseInt(value);
+					break;
+				case "--trace-budget":
+					traceBudget = Long.parseLong(value);
+					break;
+				case "--cache":
+					cacheCapacity = Integer.parseInt(value);
+					break;
+				case "--store":
+					storeDirectory = value;
+					break;
+				case "--language":
+					language = value;
+					break;
+				case "--compile":
+					compiledCapacity = Integer.parseInt(value);
+					break;
+				case "--mini-batch":
+					miniBatchSize = Integer.parseInt(value);
+					break;
+				case "--resample-interval":
+					resampleInterval = Integer.parseInt(value);
+					break;
+				case "--validation-interval":
+					validationInterval = Integer.parseInt(value);
+					break;
+				case "--checkpoint":
+					checkpointFile = value;
+					break;
+				case "--checkpoint-interval":
+					checkpointInterval = Integer.parseInt(value);
+					break;
+				case "--resume":
+					resumeFile = value;
+					break;
+				case "--format":
+					format = value.toLowerCase(Locale.ROOT);
+					break;
+				case "--output":
+					outputFile = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + option);
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid value '" + value + "' for " + option);
+			}
+		}
+
+		if (islandCount > 1 && packed) {
+			throw new IllegalArgumentException("Islands always evolve a list of DFAs, so --packed cannot be used with --islands.");
+		}
+
+		if (islandCount > 1 && migrantCount > elitismOffset) {
+			throw new IllegalArgumentException("At most as many migrants as the elitism offset can be sent.");
+		}
+
+		if (mappedFile != null && (trainingFile != null || islandCount > 1 || packed || trie || bounded
+				|| traceBudget > 0 || cacheCapacity > 0 || compiledCapacity > 0 || miniBatchSize > 0
+				|| evaluationMode != EvaluationMode.SEQUENTIAL)) {
+			throw new IllegalArgumentException("--mapped cannot be used with --training, --islands, --packed, --trie, "
+					+ "--bounded, --trace-budget, --cache, --compile, --mini-batch or --evaluation.");
+		}
+
+		if (miniBatchSize > 0 && packed) {
+			throw new IllegalArgumentException("--mini-batch cannot be used with --packed.");
+		}
+
+		if (miniBatchSize < 0 || resampleInterval < 1 || validationInterval < 1) {
+			throw new IllegalArgumentException("The mini-batch size must not be negative and its intervals must be at least 1.");
+		}
+
+		if ((checkpointFile != null || resumeFile != null) && (islandCount > 1 || packed || mappedFile != null)) {
+			throw new IllegalArgumentException("--checkpoint and --resume cannot be used with --islands, --packed or --mapped.");
+		}
+
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be at least 1.");
+		}
+
+		DFA.checkDimensions(stateCount, alphabetSize);
+
+		if (!format.equals("json") && !format.equals("csv")) {
+			throw new IllegalArgumentException("Unknown format " + format);
+		}
+
+		if (populationSize < 1) {
+			throw new IllegalArgumentException("The population size must be at least 1.");
+		}
+
+		if (elitismOffset < 0 || elitismOffset > populationSize) {
+			throw new IllegalArgumentException("The elitism offset must be between 0 and the population size.");
+		}
+
+		if (!(mutationRate >= 0 && mutationRate <= 1)) {
+			throw new IllegalArgumentException("The mutation rate must be between 0 and 1.");
+		}
+	}
+
+	// Run the genetic algorithm and write its results.
+	private void run() throws IOException {
+		GeneticAlgorithm algorithm;
+		DFA best;
+
+		if (mappedFile != null) {
+			try (MappedTrainingSet examples = new MappedTrainingSet(Paths.get(mappedFile))) {
+				if (examples.getAlphabetSize() != alphabetSize) {
+					throw new IOException(mappedFile + " was written for an alphabet of " + examples.getAlphabetSize()
+							+ " symbols.");
+				}
+
+				algorithm = new GeneticAlgorithm(examples, stateCount, seed);
+				configure(algorithm);
+				enableMetrics(algorithm, "seed " + seed);
+
+				try {
+					best = algorithm.runEpochs();
+				} finally {
+					algorithm.shutdown();
+				}
+			}
+		} else if (islandCount > 1) {
+			TrainingSet examples = readTrainingExamples();
+
+			IslandModel model = new IslandModel(examples, stateCount, islandCount, migrationInterval, migrantCount,
+					seed);
+
+			for (int i = 0; i < islandCount; i++) {
+				configure(model.getIslands().get(i));
+				enableMetrics(model.getIslands().get(i), "seed " + seed + " island " + i);
+			}
+
+			try {
+				best = model.run();
+			} finally {
+				model.shutdown();
+			}
+
+			// Report the statistics of the island that produced the best DFA.
+			algorithm = model.getIslands().get(0);
+
+			for (GeneticAlgorithm island : model.getIslands()) {
+				if (island.getBest() == best) {
+					algorithm = island;
+				}
+			}
+		} else {
+			if (resumeFile != null) {
+				// Continue with the seed of the run, which also generates its default training examples.
+				seed = GeneticAlgorithm.readSeed(Paths.get(resumeFile));
+
+				if (seed == null && trainingFile == null) {
+					throw new IOException(resumeFile + " does not record the seed of its training examples; "
+							+ "give them with --training.");
+				}
+
+				algorithm = GeneticAlgorithm.resume(Paths.get(resumeFile), readTrainingExamples());
+				configureResumed(algorithm);
+			} else {
+				algorithm = new GeneticAlgorithm(readTrainingExamples(), stateCount, seed);
+				configure(algorithm);
+			}
+
+			enableMetrics(algorithm, "seed " + seed);
+
+			if (checkpointFile != null) {
+				algorithm.setCheckpointing(Paths.get(checkpointFile), checkpointInterval);
+			}
+
+			try {
+				best = algorithm.runEpochs();
+			} finally {
+				algorithm.shutdown();
+			}
+		}
+
+		if (storeDirectory != null) {
+			storeRun(algorithm, best);
+		}
+
+		Writer writer = (outputFile != null) ? Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)
+				: new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+
+		try (PrintWriter out = new PrintWriter(writer)) {
+			if (format.equals("json")) {
+				writeJson(out, algorithm, best);
+			} else {
+				writeCsv(out, algorithm, best);
+			}
+		}
+	}
+
+	// Read the training file, or generate the default training examples if none was given.
+	private TrainingSet readTrainingExamples() throws IOException {
+		return (trainingFile != null) ? TrainingSet.read(Paths.get(trainingFile), alphabetSize)
+				: createTrainingExamples(new Random(seed), alphabetSize);
+	}
+
+	// Add the finished run to the run store.
+	private void storeRun(GeneticAlgorithm algorithm, DFA best) throws IOException {
+		String storedLanguage = language;
+
+		if (storedLanguage == null) {
+			String file = (trainingFile != null) ? trainingFile : mappedFile;
+			storedLanguage = (file != null) ? Paths.get(file).getFileName().toString() : RunStore.DEFAULT_LANGUAGE;
+		}
+
+		try (RunStore store = RunStore.open(Paths.get(storeDirectory))) {
+			store.append(RunRecord.of(storedLanguage, algorithm, best, seed, islandCount, migrationInterval,
+					migrantCount));
+		}
+	}
+
+	// Measure the epochs of the algorithm and publish the measurements over JMX, if requested.
+	private void enableMetrics(GeneticAlgorithm algorithm, String name) {
+		if (metrics) {
+			try {
+				algorithm.enableMetrics().register(name);
+			} catch (JMException e) {
+				System.err.println("Failed to publish the metrics over JMX: " + e.getMessage());
+			}
+		}
+	}
+
+	// Apply the settings from the command line to a genetic algorithm.
+	private void configure(GeneticAlgorithm algorithm) {
+		algorithm.setSettings(populationSize, elitismOffset, mutationRate, epochs, evaluationMode);
+		algorithm.setSelectionMode(selectionMode);
+		algorithm.setMiniBatch(miniBatchSize, resampleInterval, validationInterval);
+		algorithm.setPackedPopulation(packed);
+		algorithm.setTrieEvaluation(trie);
+		algorithm.setBoundedEvaluation(bounded);
+		algorithm.setIncrementalEvaluation(traceBudget);
+		algorithm.setFitnessCache(cacheCapacity);
+		algorithm.setCompiledEvaluation(compiledCapacity);
+	}
+
+	/*
+	 * Apply the options from the command line that only affect speed to a
+	 * resumed genetic algorithm, and report the settings it was restored with.
+	 */
+	private void configureResumed(GeneticAlgorithm algorithm) {
+		algorithm.setEvaluationMode(evaluationMode);
+		algorithm.setTrieEvaluation(trie);
+		algorithm.setIncrementalEvaluation(traceBudget);
+		algorithm.setFitnessCache(cacheCapacity);
+		algorithm.setCompiledEvaluation(compiledCapacity);
+
+		populationSize = algorithm.getPopulationSize();
+		elitismOffset = algorithm.getElitismOffset();
+		mutationRate = algorithm.getMutationRate();
+		epochs = algorithm.getMaxEpochs();
+		stateCount = algorithm.getStateCount();
+		selectionMode = algorithm.getSelectionMode();
+	}
+
+	/*
+	 * Create training examples for the language: binary numbers that are a
+	 * multiple of 5, encoded in an alphabet of the given size.
+	 */
+	static TrainingSet createTrainingExamples(Random rand, int alphabetSize) {
+		List<String> inputs = new ArrayList<>();
+		boolean[] expected = new boolean[DEFAULT_TRAINING_SIZE];
+
+		// Generate examples that should be accepted (multiple of 5).
+		for (int i = 0; i < DEFAULT_TRAINING_SIZE / 2; i++) {
+			inputs.add(Integer.toBinaryString(i * 5));
+			expected[i] = true;
+		}
+
+		// Generate examples that should be rejected (not multiple of 5).
+		while (inputs.size() < DEFAULT_TRAINING_SIZE) {
+			int num = rand.nextInt(1000);
+
+			if (num % 5 != 0) {
+				inputs.add(Integer.toBinaryString(num));
+			}
+		}
+
+		return TrainingSet.encode(inputs.toArray(new String[0]), expected, alphabetSize);
+	}
+
+	// Write the settings, outcome, best DFA and per-epoch statistics as a JSON document.
+	private void writeJson(PrintWriter out, GeneticAlgorithm algorithm, DFA best) {
+		List<Double> avgFitness = algorithm.getAvgFitnessOverEpochs();
+		List<Double> bestFitness = algorithm.getBestFitnessOverEpochs();
+
+		out.println("{");
+		out.printf(Locale.ROOT, "  \"settings\": {\"population\": %d, \"elitism\": %d, \"mutation\": %s, \"epochs\": %d, "
+				+ "\"seed\": %d, \"evaluation\": \"%s\", \"selection\": \"%s\", \"packed\": %b, \"trie\": %b, "
+				+ "\"states\": %d, \"alphabet\": %d, \"islands\": %d, \"migrationInterval\": %d, \"migrants\": %d},%n",
+				populationSize, elitismOffset, mutationRate, epochs, seed, evaluationMode, selectionMode, packed, trie,
+				stateCount, alphabetSize, islandCount, migrationInterval, migrantCount);
+		out.printf(Locale.ROOT, "  \"epochsRun\": %d,%n", algorithm.getCurrentEpoch());
+		out.printf(Locale.ROOT, "  \"bestFitness\": %s,%n", best.getFitness());
+
+		if (algorithm.getFitnessCache() != null) {
+			out.printf(Locale.ROOT, "  \"cacheHitRate\": %s,%n", algorithm.getFitnessCache().getHitRate());
+		}
+
+		if (algorithm.getMetrics() != null) {
+			EvolutionMetrics measured = algorithm.getMetrics();
+
+			out.printf(Locale.ROOT, "  \"metrics\": {\"meanEpochMillis\": %s, \"medianEpochMillis\": %s, "
+					+ "\"evaluateMillis\": %s, \"sortMillis\": %s, \"selectMillis\": %s, \"crossoverMillis\": %s, "
+					+ "\"mutateMillis\": %s, \"transitionsPerSecond\": %s, \"allocatedBytesPerSecond\": %s, "
+					+ "\"cacheHitRate\": %s, \"skippedEvaluationRate\": %s},%n",
+					measured.getMeanEpochMillis(), measured.getEpochMillisPercentile(0.5),
+					measured.getMeanEvaluateMillis(), measured.getMeanSortMillis(), measured.getMeanSelectMillis(),
+					measured.getMeanCrossoverMillis(), measured.getMeanMutateMillis(),
+					measured.getTransitionsPerSecond(), measured.getAllocatedBytesPerSecond(),
+					measured.getCacheHitRate(), measured.getSkippedEvaluationRate());
+		}
+
+		out.printf(Locale.ROOT, "  \"bestDFA\": {\"states\": %d, \"alphabet\": %d, \"startState\": %d, \"acceptStates\": [",
+				best.getStateCount(), best.getAlphabetSize(), best.getStartState());
+
+		String separator = "";
+
+		for (int state = 0; state < best.getStateCount(); state++) {
+			if (best.isAcceptState(state)) {
+				out.print(separator + state);
+				separator = ", ";
+			}
+		}
+
+		out.print("], \"delta\": [");
+
+		for (int state = 0; state < best.getStateCount(); state++) {
+			out.print((state > 0 ? ", " : "") + "[");
+
+			for (int symbol = 0; symbol < best.getAlphabetSize(); symbol++) {
+				out.print((symbol > 0 ? ", " : "") + best.getTransition(state, symbol));
+			}
+
+			out.print("]");
+		}
+
+		out.println("]},");
+		out.println("  \"stats\": [");
+
+		for (int i = 0; i < bestFitness.size(); i++) {
+			out.printf(Locale.ROOT, "    {\"epoch\": %d, \"bestFitness\": %s, \"avgFitness\": %s}%s%n", i + 1,
+					bestFitness.get(i), avgFitness.get(i), (i + 1 < bestFitness.size()) ? "," : "");
+		}
+
+		out.println("  ]");
+		out.println("}");
+	}
+
+	/*
+	 * Write the per-epoch statistics as a CSV table followed, after a blank
+	 * line, by the best DFA as a table with one row per state.
+	 */
+	private void writeCsv(PrintWriter out, GeneticAlgorithm algorithm, DFA best) {
+		List<Double> avgFitness = algorithm.getAvgFitnessOverEpochs();
+		List<Double> bestFitness = algorithm.getBestFitnessOverEpochs();
+
+		out.println("epoch,best_fitness,avg_fitness");
+
+		for (int i = 0; i < bestFitness.size(); i++) {
+			out.printf(Locale.ROOT, "%d,%s,%s%n", i + 1, bestFitness.get(i), avgFitness.get(i));
+		}
+
+		out.println();
+		out.print("state,start,accept");
+
+		for (int symbol = 0; symbol < best.getAlphabetSize(); symbol++) {
+			out.print(",next_" + symbol);
+		}
+
+		out.println();
+
+		for (int state = 0; state < best.getStateCount(); state++) {
+			out.print(state + "," + (best.getStartState() == state) + "," + best.isAcceptState(state));
+
+			for (int symbol = 0; symbol < best.getAlphabetSize(); symbol++) {
+				out.print("," + best.getTransition(state, symbol));
+			}
+
+			out.println();
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package genetic_automata;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Writes checkpoints of a genetic algorithm (see GeneticAlgorithm.setCheckpointing
+ * and GeneticAlgorithm.resume) on a background thread, so the evolution
+ * thread only pays for encoding the snapshot into memory. Each checkpoint is
+ * written to a temporary file, forced to disk, and renamed over the previous
+ * one, so the file always holds a complete checkpoint even if the process dies
+ * while writing. If checkpoints are produced faster than they can be written,
+ * only the latest one waiting is written.
+ *
+ * The static methods encode the parts of a checkpoint. Transitions take 1, 2
+ * or 4 bytes each depending on the number of states, as in TransitionTable.
+ */
+public class Checkpointer {
+	public static final int MAGIC = 0x4741434b;
+	public static final int VERSION = 3;
+
+	private Path file;
+
+	// Single daemon thread writing the checkpoints in order.
+	private ExecutorService writer;
+
+	// Latest checkpoint not yet picked up by the writer thread, or null.
+	private AtomicReference<byte[]> pending = new AtomicReference<>();
+
+	public Checkpointer(Path file) {
+		this.file = file;
+		writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Queue a checkpoint to be written, replacing any checkpoint still waiting to be written.
+	public void submit(byte[] checkpoint) {
+		if (pending.getAndSet(checkpoint) == null) {
+			writer.execute(this::writePending);
+		}
+	}
+
+	private void writePending() {
+		byte[] checkpoint = pending.getAndSet(null);
+
+		if (checkpoint != null) {
+			try {
+				write(file, checkpoint);
+			} catch (IOException e) {
+				System.err.println("Failed to write checkpoint " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// Wait for the queued checkpoints to be written and stop the writer thread.
+	public void close() {
+		writer.shutdown();
+
+		try {
+			writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Write a checkpoint to the file by renaming a fully written temporary file over it.
+	public static void write(Path file, byte[] checkpoint) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(checkpoint);
+
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+
+			channel.force(true);
+		}
+
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public static byte[] read(Path file) throws IOException {
+		return Files.readAllBytes(file);
+	}
+
+	public static void writeDFA(DataOutputStream out, DFA dfa) throws IOException {
+		TransitionTable delta = dfa.getDelta();
+
+		out.writeInt(dfa.getStateCount());
+		out.writeInt(dfa.getAlphabetSize());
+		out.writeInt(dfa.getStartState());
+
+		for (int i = 0; i < delta.length(); i++) {
+			writeState(out, delta.get(i), dfa.getStateCount());
+		}
+
+		for (long word : dfa.getAcceptMask()) {
+			out.writeLong(word);
+		}
+
+		out.writeDouble(dfa.getFitness());
+		out.writeBoolean(dfa.isDirty());
+		out.writeBoolean(dfa.isFitnessExact());
+	}
+
+	public static DFA readDFA(DataInputStream in) throws IOException {
+		int stateCount = in.readInt();
+		int alphabetSize = in.readInt();
+		int startState = in.readInt();
+
+		if (stateCount < 1 || alphabetSize < 1 || alphabetSize > DFA.MAX_ALPHABET_SIZE
+				|| startState < 0 || startState >= stateCount) {
+			throw new IOException("Checkpoint holds an invalid DFA.");
+		}
+
+		TransitionTable delta = TransitionTable.create(stateCount, alphabetSize);
+
+		for (int i = 0; i < delta.length(); i++) {
+			int state = readState(in, stateCount);
+
+			if (state >= stateCount) {
+				throw new IOException("Checkpoint holds an invalid transition to state " + state + ".");
+			}
+
+			delta.set(i, state);
+		}
+
+		long[] acceptMask = new long[(stateCount + 63) >>> 6];
+
+		for (int i = 0; i < acceptMask.length; i++) {
+			acceptMask[i] = in.readLong();
+		}
+
+		DFA dfa = new DFA(delta, acceptMask, startState);
+		dfa.restoreFitness(in.readDouble(), in.readBoolean(), in.readBoolean());
+		return dfa;
+	}
+
+	// Write a state in as few bytes as a DFA with the given number of states needs.
+	private static void writeState(DataOutputStream out, int state, int stateCount) throws IOException {
+		if (stateCount <= 1 << 8) {
+			out.writeByte(state);
+		} else if (stateCount <= 1 << 16) {
+			out.writeShort(state);
+		} else {
+			out.writeInt(state);
+		}
+	}
+
+	private static int readState(DataInputStream in, int stateCount) throws IOException {
+		if (stateCount <= 1 << 8) {
+			return in.readUnsignedByte();
+		} else if (stateCount <= 1 << 16) {
+			return in.readUnsignedShort();
+		} else {
+			return in.readInt();
+		}
+	}
+
+	// Write an array that may be null.
+	public static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt((values != null) ? values.length : -1);
+
+		if (values != null) {
+			for (int value : values) {
+				out.writeInt(value);
+			}
+		}
+	}
+
+	public static int[] readInts(DataInputStream in) throws IOException {
+		int length = in.readInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		int[] values = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readInt();
+		}
+
+		return values;
+	}
+
+	/*
+	 * Write the complete state of the random number generator, so that it
+	 * continues the same sequence. Only a SplitMixRandom can be written, as
+	 * the state of other generators is not accessible.
+	 */
+	public static void writeRandom(DataOutputStream out, Random rand) throws IOException {
+		if (!(rand instanceof SplitMixRandom splitMix)) {
+			throw new IOException("Cannot checkpoint a " + rand.getClass().getName() + ".");
+		}
+
+		out.writeLong(splitMix.getState());
+		out.writeLong(splitMix.getGamma());
+	}
+
+	public static Random readRandom(DataInputStream in) throws IOException {
+		long state = in.readLong();
+		long gamma = in.readLong();
+
+		// Every gamma a SplitMixRandom uses is odd.
+		if ((gamma & 1) == 0) {
+			throw new IOException("Checkpoint holds an invalid random number generator.");
+		}
+
+		return SplitMixRandom.restore(state, gamma);
+	}
+}
@@ -0,0 +1,81 @@
+package genetic_automata;
+
+/*
+ * A DFA compiled by DFACompiler for fast evaluation on long inputs. Besides
+ * its transition table, it keeps a stride table giving the state reached
+ * after a whole stride of symbols, such as 8 symbols of a binary alphabet,
+ * so most of an input takes one table lookup per stride rather than one per
+ * symbol. The loop is a Kernel generated for the alphabet size and stride,
+ * in which both are constants, so the JIT unrolls the reading of a stride.
+ *
+ * A compiled DFA is a snapshot: later mutations of the DFA it was compiled
+ * from do not change it. Symbols must be in the alphabet of the DFA, as they
+ * are in a TrainingSet.
+ */
+public final class CompiledDFA {
+	/*
+	 * Runs a DFA on symbols a stride at a time. DFACompiler generates a
+	 * subclass for each alphabet size and stride.
+	 */
+	abstract static class Kernel {
+		/*
+		 * Return the state reached from the state after reading the symbols in
+		 * the range [from, to), looking up whole strides in strideTable and the
+		 * remaining symbols in table.
+		 */
+		abstract int run(byte[] symbols, int from, int to, int state, int[] strideTable, int[] table);
+	}
+
+	private final Kernel kernel;
+
+	// Number of symbols looked up at once in the stride table.
+	private final int stride;
+
+	// Next state for state and stride index at state * alphabetSize^stride + index.
+	private final int[] strideTable;
+
+	// Next state for state and symbol at state * alphabetSize + symbol.
+	private final int[] table;
+
+	private final long[] acceptMask;
+	private final int startState;
+
+	CompiledDFA(Kernel kernel, int stride, int[] strideTable, int[] table, long[] acceptMask, int startState) {
+		this.kernel = kernel;
+		this.stride = stride;
+		this.strideTable = strideTable;
+		this.table = table;
+		this.acceptMask = acceptMask;
+		this.startState = startState;
+	}
+
+	/*
+	 * Run the DFA on the encoded symbols in the range [from, to). Return true
+	 * if the DFA accepts, false otherwise.
+	 */
+	public boolean run(byte[] symbols, int from, int to) {
+		int state = kernel.run(symbols, from, to, startState, strideTable, table);
+		return (acceptMask[state >>> 6] & (1L << state)) != 0;
+	}
+
+	// Count the examples the DFA classifies correctly.
+	public int countCorrect(TrainingSet examples) {
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+		int correct = 0;
+
+		for (int i = 0; i < expected.length; i++) {
+			if (run(symbols, offsets[i], offsets[i + 1]) == expected[i]) {
+				correct++;
+			}
+		}
+
+		return correct;
+	}
+
+	// Number of symbols looked up at once, or 1 if the DFA is too large for a stride table.
+	public int getStride() {
+		return stride;
+	}
+}
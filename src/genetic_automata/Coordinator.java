@@ -0,0 +1,350 @@
+package genetic_automata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Coordinates distributed evolution across Worker processes. Each worker
+ * evolves its own island and periodically sends its elite DFAs here, receiving
+ * in exchange migrants recently sent by other workers. The coordinator keeps
+ * the best DFA seen so far and tells every worker to stop once a worker finds
+ * an optimal DFA or the time limit passes. Workers may join or leave at any
+ * time; a worker that disconnects simply stops contributing migrants.
+ *
+ *   java genetic_automata.Coordinator --port 7355 --training examples.txt --duration 60
+ */
+public class Coordinator {
+	// Maximum number of migrants kept for exchange; the oldest are dropped first.
+	public static final int MIGRANT_POOL_SIZE = 256;
+
+	// Interval between throughput reports, in milliseconds.
+	public static final long REPORT_INTERVAL = 5000;
+
+	// Time given to connected workers to report their final results after the run stops, in milliseconds.
+	public static final long SHUTDOWN_GRACE = 10000;
+
+	private TrainingSet examples;
+	private int stateCount;
+	private int populationSize;
+	private int elitismOffset;
+	private double mutationRate;
+	private int epochs;
+	private int migrationInterval;
+	private int migrantCount;
+	private SplitMixRandom seeds;
+
+	// Recently received migrants along with the worker that sent each of them.
+	private Deque<DFA> migrantPool = new ArrayDeque<>();
+	private Deque<Integer> migrantSenders = new ArrayDeque<>();
+
+	private DFA best;
+	private volatile boolean stopped;
+
+	private ServerSocket serverSocket;
+	private AtomicInteger nextWorkerId = new AtomicInteger();
+	private ConcurrentHashMap<Integer, Socket> workers = new ConcurrentHashMap<>();
+
+	// Total number of epochs run by all workers, for reporting throughput.
+	private AtomicLong totalEpochs = new AtomicLong();
+
+	public Coordinator(TrainingSet examples, int stateCount, int populationSize, int elitismOffset,
+			double mutationRate, int epochs, int migrationInterval, int migrantCount, long seed) {
+		DFA.checkDimensions(stateCount, examples.getAlphabetSize());
+
+		this.examples = examples;
+		this.stateCount = stateCount;
+		this.populationSize = populationSize;
+		this.elitismOffset = elitismOffset;
+		this.mutationRate = mutationRate;
+		this.epochs = epochs;
+		this.migrationInterval = migrationInterval;
+		this.migrantCount = migrantCount;
+		this.seeds = new SplitMixRandom(seed);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = EvolutionProtocol.DEFAULT_PORT;
+		long durationSeconds = 60;
+		int populationSize = 200;
+		int elitismOffset = 30;
+		double mutationRate = 0.2;
+		int epochs = 1000;
+		int migrationInterval = 10;
+		int migrantCount = 5;
+		long seed = new Random().nextLong();
+		int stateCount = DFA.DEFAULT_STATE_COUNT;
+		int alphabetSize = DFA.DEFAULT_ALPHABET_SIZE;
+		String trainingFile = null;
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "--port":
+				port = Integer.parseInt(args[i + 1]);
+				break;
+			case "--duration":
+				durationSeconds = Long.parseLong(args[i + 1]);
+				break;
+			case "--population":
+				populationSize = Integer.parseInt(args[i + 1]);
+				break;
+			case "--elitism":
+				elitismOffset = Integer.parseInt(args[i + 1]);
+				break;
+			case "--mutation":
+				mutationRate = Double.parseDouble(args[i + 1]);
+				break;
+			case "--epochs":
+				epochs = Integer.parseInt(args[i + 1]);
+				break;
+			case "--migration-interval":
+				migrationInterval = Integer.parseInt(args[i + 1]);
+				break;
+			case "--migrants":
+				migrantCount = Integer.parseInt(args[i + 1]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[i + 1]);
+				break;
+			case "--states":
+				stateCount = Integer.parseInt(args[i + 1]);
+				break;
+			case "--alphabet":
+				alphabetSize = Integer.parseInt(args[i + 1]);
+				break;
+			case "--training":
+				trainingFile = args[i + 1];
+				break;
+			default:
+				System.err.println("Unknown option " + args[i]);
+				System.exit(2);
+			}
+		}
+
+		if (trainingFile == null) {
+			System.err.println("A training file must be given with --training.");
+			System.exit(2);
+		}
+
+		DFA.checkDimensions(stateCount, alphabetSize);
+
+		Coordinator coordinator = new Coordinator(TrainingSet.read(Paths.get(trainingFile), alphabetSize), stateCount,
+				populationSize, elitismOffset, mutationRate, epochs, migrationInterval, migrantCount, seed);
+		DFA best = coordinator.run(port, durationSeconds * 1000);
+
+		System.out.println("Best fitness: " + (best != null ? best.getFitness() : "none"));
+	}
+
+	/*
+	 * Accept workers on the given port until an optimal DFA is found or the
+	 * time limit passes, then return the best DFA received.
+	 */
+	public DFA run(int port, long durationMillis) throws IOException {
+		serverSocket = new ServerSocket(port);
+		long start = System.currentTimeMillis();
+
+		Thread acceptor = new Thread(this::acceptWorkers, "coordinator-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		try {
+			long lastEpochs = 0;
+			long lastReport = start;
+
+			while (!stopped && System.currentTimeMillis() - start < durationMillis) {
+				try {
+					Thread.sleep(Math.min(REPORT_INTERVAL, Math.max(1, durationMillis - (System.currentTimeMillis() - start))));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+
+				long epochsNow = totalEpochs.get();
+				long now = System.currentTimeMillis();
+
+				System.err.printf("%d workers, %.1f epochs/s, best fitness %s%n", workers.size(),
+						(epochsNow - lastEpochs) * 1000.0 / Math.max(1, now - lastReport),
+						(getBest() != null) ? getBest().getFitness() : "-");
+				lastEpochs = epochsNow;
+				lastReport = now;
+			}
+		} finally {
+			stop();
+		}
+
+		// Give connected workers the chance to receive STOP and report their final DFAs.
+		long deadline = System.currentTimeMillis() + SHUTDOWN_GRACE;
+
+		while (!workers.isEmpty() && System.currentTimeMillis() < deadline) {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		return getBest();
+	}
+
+	// Stop the run: workers are told to stop on their next exchange, and no new workers are accepted.
+	public void stop() {
+		stopped = true;
+
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// The socket is being discarded anyway.
+		}
+	}
+
+	private void acceptWorkers() {
+		while (!stopped) {
+			try {
+				Socket socket = serverSocket.accept();
+				int workerId = nextWorkerId.getAndIncrement();
+
+				Thread thread = new Thread(() -> serveWorker(workerId, socket), "coordinator-worker-" + workerId);
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				// The server socket was closed by stop().
+				return;
+			}
+		}
+	}
+
+	// Handle the messages of a single worker until it finishes or disconnects.
+	private void serveWorker(int workerId, Socket socket) {
+		workers.put(workerId, socket);
+
+		try (Socket connection = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+			if (in.readByte() != EvolutionProtocol.HELLO) {
+				throw new IOException("Worker " + workerId + " did not introduce itself.");
+			}
+
+			out.writeByte(EvolutionProtocol.SETTINGS);
+			out.writeInt(populationSize);
+			out.writeInt(elitismOffset);
+			out.writeDouble(mutationRate);
+			out.writeInt(epochs);
+			out.writeInt(migrationInterval);
+			out.writeInt(migrantCount);
+			out.writeLong(nextSeed());
+			out.writeInt(stateCount);
+			out.writeInt(examples.getAlphabetSize());
+			EvolutionProtocol.writeTrainingSet(out, examples);
+			out.flush();
+
+			while (true) {
+				byte type = in.readByte();
+				totalEpochs.addAndGet(in.readInt());
+
+				if (type == EvolutionProtocol.FINISHED) {
+					offerBest(EvolutionProtocol.readDFA(in, stateCount, examples.getAlphabetSize()));
+					return;
+				} else if (type != EvolutionProtocol.MIGRANTS) {
+					throw new IOException("Unexpected message " + type + " from worker " + workerId + ".");
+				}
+
+				List<DFA> emigrants = EvolutionProtocol.readDFAs(in, stateCount, examples.getAlphabetSize());
+
+				for (DFA emigrant : emigrants) {
+					offerBest(emigrant);
+				}
+
+				if (stopped) {
+					out.writeByte(EvolutionProtocol.STOP);
+				} else {
+					out.writeByte(EvolutionProtocol.MIGRANTS);
+					EvolutionProtocol.writeDFAs(out, exchangeMigrants(workerId, emigrants));
+				}
+
+				out.flush();
+			}
+		} catch (EOFException | SocketException e) {
+			// The worker left.
+		} catch (IOException e) {
+			System.err.println("Dropping worker " + workerId + ": " + e.getMessage());
+		} finally {
+			workers.remove(workerId);
+		}
+	}
+
+	private synchronized long nextSeed() {
+		return seeds.nextLong();
+	}
+
+	// Add a worker's emigrants to the pool and take as many migrants from other workers in return.
+	private synchronized List<DFA> exchangeMigrants(int workerId, List<DFA> emigrants) {
+		List<DFA> immigrants = new ArrayList<>();
+		int checked = migrantPool.size();
+
+		// Rotate through the pool once, handing out migrants from other workers.
+		for (int i = 0; i < checked && immigrants.size() < emigrants.size(); i++) {
+			DFA migrant = migrantPool.pollFirst();
+			int sender = migrantSenders.pollFirst();
+
+			if (sender != workerId) {
+				immigrants.add(migrant);
+			} else {
+				migrantPool.addLast(migrant);
+				migrantSenders.addLast(sender);
+			}
+		}
+
+		for (DFA emigrant : emigrants) {
+			migrantPool.addLast(emigrant);
+			migrantSenders.addLast(workerId);
+		}
+
+		while (migrantPool.size() > MIGRANT_POOL_SIZE) {
+			migrantPool.pollFirst();
+			migrantSenders.pollFirst();
+		}
+
+		return immigrants;
+	}
+
+	/*
+	 * Keep the DFA if it is the best seen so far, stopping the run once it is
+	 * optimal. The fitness a worker reports is only a claim, so a DFA that
+	 * claims to beat the best is scored here before it is kept.
+	 */
+	private synchronized void offerBest(DFA dfa) {
+		if (!dfa.isDirty() && best != null && dfa.getFitness() <= best.getFitness()) {
+			return;
+		}
+
+		dfa.calculateFitness(examples);
+
+		if (best == null || dfa.getFitness() > best.getFitness()) {
+			best = dfa;
+		}
+
+		if (dfa.getFitness() == 1.0) {
+			stopped = true;
+		}
+	}
+
+	public synchronized DFA getBest() {
+		return best;
+	}
+}
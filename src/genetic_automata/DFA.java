@@ -1,13 +1,16 @@
 package genetic_automata;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class DFA {
-	// Number of states in the DFA.
-	public static final int STATE_COUNT = 5;
+	// Largest alphabet supported, since encoded symbols are stored in bytes.
+	public static final int MAX_ALPHABET_SIZE = 256;
 
-	// Size of the alphabet recognized by the DFA.
-	public static final int ALPHABET_SIZE = 2;
+	// Number of states and size of the alphabet of a run that does not choose its own.
+	public static final int DEFAULT_STATE_COUNT = 5;
+	public static final int DEFAULT_ALPHABET_SIZE = 2;
 
 	// Probability of a state being an accept state in the initial random DFA.
 	public static final double ACCEPT_RATE = 0.20;
@@ -18,50 +21,122 @@ public class DFA {
 	 */
 	public static final double MUTATION_RATE = 0.10;
 
-	// Transition (delta) function of the DFA.
-	private int[][] delta;
+	/*
+	 * Transition (delta) function of the DFA, flattened into a single table.
+	 * The next state for a state and symbol is stored at index
+	 * state * alphabet size + symbol.
+	 */
+	private TransitionTable delta;
 
 	// Start state of the DFA.
 	private int startState;
 
-	// Accept states of the DFA.
-	boolean[] acceptStates;
+	// Accept states of the DFA, packed as one bit per state.
+	private long[] acceptMask;
 	
 	// Fitness of the DFA.
 	private double fitness;
 
-	// Create a random DFA.
-	public DFA() {
-		delta = new int[STATE_COUNT][ALPHABET_SIZE];
+	// Whether the genes changed since the fitness was last calculated.
+	private boolean dirty = true;
+
+	// Whether the fitness is exact rather than a lower bound from an evaluation that stopped early.
+	private boolean exact = true;
+
+	// How the DFA last ran on each training example, or null if no trace is kept.
+	private EvaluationTrace trace;
+
+	// Whether the DFA should record a trace the next time it is scored.
+	private boolean traceWanted;
 
-		Random rand = new Random();
+	// Whether an update of the trace reached most examples, so that the DFA keeps no trace again.
+	private boolean traceUnprofitable;
+
+	// Transitions changed and accept bits flipped since the trace was recorded, one bit each.
+	private long[] changedTransitions;
+	private long[] flippedAccepts;
+
+	// Whether the DFA is scored through its compiled form when the training set has a compiler.
+	private boolean compileWanted;
+
+	// Fail unless a DFA can have the given number of states and alphabet size.
+	public static void checkDimensions(int stateCount, int alphabetSize) {
+		if (stateCount < 1 || alphabetSize < 1 || alphabetSize > MAX_ALPHABET_SIZE
+				|| (long) stateCount * alphabetSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A DFA needs at least 1 state and between 1 and " + MAX_ALPHABET_SIZE
+					+ " symbols, not " + stateCount + " states and " + alphabetSize + " symbols.");
+		}
+	}
+
+	// Number of 64-bit words needed to hold one accept bit per state.
+	public static int acceptWords(int stateCount) {
+		return (stateCount + 63) >>> 6;
+	}
+
+	// Create a random DFA with the given number of states over the given alphabet size.
+	public DFA(int stateCount, int alphabetSize) {
+		this(stateCount, alphabetSize, ThreadLocalRandom.current());
+	}
+
+	// Create a random DFA using the given random number generator.
+	public DFA(int stateCount, int alphabetSize, Random rand) {
+		checkDimensions(stateCount, alphabetSize);
+		delta = TransitionTable.create(stateCount, alphabetSize);
 
 		// Randomize the delta function.
-		for (int y = 0; y < STATE_COUNT; y++) {
-			for (int x = 0; x < ALPHABET_SIZE; x++) {
-				delta[y][x] = rand.nextInt(STATE_COUNT);
-			}
+		for (int i = 0; i < delta.length(); i++) {
+			delta.set(i, rand.nextInt(stateCount));
 		}
 
 		// Randomize the accept states.
-		acceptStates = new boolean[STATE_COUNT];
+		acceptMask = new long[acceptWords(stateCount)];
 
-		for (int i = 0; i < STATE_COUNT; i++) {
+		for (int i = 0; i < stateCount; i++) {
 			if (rand.nextDouble() <= ACCEPT_RATE) {
-				acceptStates[i] = true;
+				setAcceptState(i, true);
 			}
 		}
 
 		// Randomize the start state.
-		startState = rand.nextInt(STATE_COUNT);
+		startState = rand.nextInt(stateCount);
 		
 		fitness = 0;
 	}
 
 	// Create a DFA with the specified delta function, accept states, and start state.
 	public DFA(int[][] delta, boolean[] acceptStates, int startState) {
+		int alphabetSize = delta[0].length;
+
+		this.delta = TransitionTable.create(delta.length, alphabetSize);
+		this.acceptMask = new long[(delta.length + 63) >>> 6];
+		this.startState = startState;
+
+		for (int y = 0; y < delta.length; y++) {
+			for (int x = 0; x < alphabetSize; x++) {
+				this.delta.set(y * alphabetSize + x, delta[y][x]);
+			}
+
+			setAcceptState(y, acceptStates[y]);
+		}
+
+		fitness = 0;
+	}
+
+	// Create an independent copy of another DFA, including its fitness.
+	public DFA(DFA other) {
+		this(other.delta.copy(), other.acceptMask.clone(), other.startState);
+		fitness = other.fitness;
+		dirty = other.dirty;
+		exact = other.exact;
+	}
+
+	/*
+	 * Create a DFA directly from its delta function and packed accept states.
+	 * Neither is copied.
+	 */
+	public DFA(TransitionTable delta, long[] acceptMask, int startState) {
 		this.delta = delta;
-		this.acceptStates = acceptStates;
+		this.acceptMask = acceptMask;
 		this.startState = startState;
 		fitness = 0;
 	}
@@ -74,14 +149,42 @@ public class DFA {
 		// Start from the start state.
 		int state = startState;
 
-		for (char c : input.toCharArray()) {
-			int symbol = Character.getNumericValue(c);
+		for (int i = 0; i < input.length(); i++) {
+			int symbol = TrainingSet.encodeSymbol(input.charAt(i), delta.getAlphabetSize());
 
 			// Move to the next state according to the delta function.
-			state = delta[state][symbol];
+			state = delta.get(state * delta.getAlphabetSize() + symbol);
 		}
 
-		return acceptStates[state];
+		return isAcceptState(state);
+	}
+
+	// Run the DFA on an input that has already been encoded into symbols.
+	public boolean run(byte[] symbols) {
+		return run(symbols, 0, symbols.length);
+	}
+
+	/*
+	 * Run the DFA on the encoded symbols in the range [from, to). This is the
+	 * innermost loop of the genetic algorithm, so it must not allocate.
+	 */
+	public boolean run(byte[] symbols, int from, int to) {
+		return isAcceptState(delta.run(startState, symbols, from, to));
+	}
+
+	/*
+	 * Run a DFA whose delta function and accept states are stored at the given
+	 * offsets of larger tables, such as those of a PackedPopulation.
+	 */
+	static boolean run(int[] delta, int deltaOffset, int alphabetSize, long[] acceptMask, int acceptOffset,
+			int startState, byte[] symbols, int from, int to) {
+		int state = startState;
+
+		for (int i = from; i < to; i++) {
+			state = delta[deltaOffset + state * alphabetSize + (symbols[i] & 0xff)];
+		}
+
+		return (acceptMask[acceptOffset + (state >>> 6)] & (1L << state)) != 0;
 	}
 
 	// Calculate the fitness of the DFA on the provided examples.
@@ -95,36 +198,226 @@ public class DFA {
 			}
 		}
 		
-		fitness = (correct * 1.0) / inputs.length;
+		setFitness((correct * 1.0) / inputs.length);
+		return fitness;
+	}
+
+	// Calculate the fitness of the DFA on the provided encoded examples without allocating.
+	public double calculateFitness(TrainingSet examples) {
+		// Walk the prefix trie if the training set has one.
+		if (examples.getTrie() != null) {
+			setFitness((examples.getTrie().countCorrect(delta, acceptMask, startState) * 1.0) / examples.size());
+			return fitness;
+		}
+
+		// Re-score incrementally if the DFA keeps a trace of how it ran on these examples.
+		if (hasTraceFor(examples)) {
+			int correct = trace.update(delta, acceptMask, startState, changedTransitions, flippedAccepts);
+
+			if (correct >= 0) {
+				setFitness((correct * 1.0) / examples.size());
+				Arrays.fill(changedTransitions, 0);
+				Arrays.fill(flippedAccepts, 0);
+				return fitness;
+			}
+
+			// The mutations reach most examples, so the trace costs more than it saves on this DFA.
+			keepTrace(false);
+			traceUnprofitable = true;
+		} else if (traceWanted) {
+			// Record the trace while scoring, so that it costs no separate evaluation.
+			trace = new EvaluationTrace(examples, delta, acceptMask, startState);
+			changedTransitions = new long[(delta.length() + 63) >>> 6];
+			flippedAccepts = new long[acceptMask.length];
+			setFitness((trace.getCorrect() * 1.0) / examples.size());
+			return fitness;
+		}
+
+		trace = null;
+
+		// Run the compiled form of the DFA if it should be compiled and the training set has a compiler.
+		if (compileWanted && examples.getCompiler() != null) {
+			setFitness((examples.getCompiler().compile(this).countCorrect(examples) * 1.0) / examples.size());
+			return fitness;
+		}
+
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+		int correct = 0;
+
+		for (int i = 0; i < expected.length; i++) {
+			// Check if the output of the DFA matches the expected output.
+			if (run(symbols, offsets[i], offsets[i + 1]) == expected[i]) {
+				correct++;
+			}
+		}
+
+		setFitness((correct * 1.0) / expected.length);
 		return fitness;
 	}
 	
+	/*
+	 * Calculate the fitness of the DFA, giving up as soon as it can no longer
+	 * reach the cutoff. Examples are run in the training set's order, so that
+	 * the most discriminating examples can be run first. If the evaluation
+	 * stops early, the fitness is only a lower bound: the examples run so far
+	 * that were classified correctly, as a fraction of all examples. It is
+	 * below the cutoff, isFitnessExact() returns false, and the DFA stays
+	 * dirty. Prefix tries and evaluation traces always produce an exact fitness.
+	 */
+	public double calculateFitness(TrainingSet examples, double cutoff) {
+		if (cutoff <= 0 || examples.getTrie() != null || traceWanted) {
+			return calculateFitness(examples);
+		}
+
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+		int[] order = examples.getOrder();
+		CompiledDFA compiled = (compileWanted && examples.getCompiler() != null) ? examples.getCompiler().compile(this)
+				: null;
+		int wrong = 0;
+
+		for (int k = 0; k < expected.length; k++) {
+			int i = (order != null) ? order[k] : k;
+			boolean accepted = (compiled != null) ? compiled.run(symbols, offsets[i], offsets[i + 1])
+					: run(symbols, offsets[i], offsets[i + 1]);
+
+			if (accepted != expected[i]) {
+				wrong++;
+
+				// Even if every remaining example is correct, the cutoff can no longer be reached.
+				if (((expected.length - wrong) * 1.0) / expected.length < cutoff) {
+					fitness = ((k + 1 - wrong) * 1.0) / expected.length;
+					exact = false;
+					return fitness;
+				}
+			}
+		}
+
+		setFitness(((expected.length - wrong) * 1.0) / expected.length);
+		return fitness;
+	}
+	
+	/*
+	 * Choose whether the DFA keeps an EvaluationTrace of how it ran, so that
+	 * calculateFitness(TrainingSet) re-scores it incrementally after later
+	 * mutations. The trace is recorded the next time the DFA is scored, and
+	 * released as soon as the DFA should no longer keep one. A DFA whose
+	 * mutations once reached most examples never records a trace again.
+	 */
+	void keepTrace(boolean keep) {
+		traceWanted = keep && !traceUnprofitable;
+
+		if (!keep) {
+			trace = null;
+			changedTransitions = null;
+			flippedAccepts = null;
+		}
+	}
+
+	/*
+	 * Choose whether the DFA is scored through its compiled form when the
+	 * training set has a compiler (see DFACompiler). Compiling costs as much as
+	 * running the DFA over thousands of symbols, so it is only worth it for
+	 * DFAs that are scored again and again, such as elites.
+	 */
+	void keepCompiled(boolean keep) {
+		compileWanted = keep;
+	}
+
+	// Returns true if the DFA keeps a trace of how it ran on the examples.
+	boolean hasTraceFor(TrainingSet examples) {
+		return trace != null && trace.isFor(examples);
+	}
+
 	// Mutates the DFA according to the specified mutation rate.
 	public void mutate() {
-		Random rand = new Random();
-		
+		mutate(ThreadLocalRandom.current());
+	}
+
+	/*
+	 * Mutates the DFA according to the specified mutation rate using the given
+	 * random number generator. The DFA is only marked dirty if a gene actually
+	 * changed, since a transition may be redrawn to the state it already had.
+	 */
+	public void mutate(Random rand) {
 		// Mutate the DFA's delta function.
-		for (int y = 0; y < STATE_COUNT; y++) {
-			for (int x = 0; x < ALPHABET_SIZE; x++) {
-				if (rand.nextDouble() <= MUTATION_RATE) {
-					delta[y][x] = rand.nextInt(STATE_COUNT);
+		int stateCount = delta.getStateCount();
+
+		for (int i = 0; i < delta.length(); i++) {
+			if (rand.nextDouble() <= MUTATION_RATE) {
+				int next = rand.nextInt(stateCount);
+
+				if (delta.get(i) != next) {
+					delta.set(i, next);
+					dirty = true;
+
+					if (trace != null) {
+						changedTransitions[i >>> 6] |= 1L << i;
+					}
 				}
 			}
 		}
 		
 		// Mutate the DFA's accept states.
-		for (int i = 0; i < STATE_COUNT; i++) {
+		for (int i = 0; i < stateCount; i++) {
 			if (rand.nextDouble() <= MUTATION_RATE) {
-				acceptStates[i] = !acceptStates[i];
+				setAcceptState(i, !isAcceptState(i));
+				dirty = true;
+
+				// Flipping the same bit twice cancels out, so the flips are tracked with exclusive or.
+				if (trace != null) {
+					flippedAccepts[i >>> 6] ^= 1L << i;
+				}
 			}
 		}
 	}
-	
-	public int[][] getDelta() {
+
+	// Return the state the DFA moves to from the given state on the given symbol.
+	public int getTransition(int state, int symbol) {
+		return delta.get(state * delta.getAlphabetSize() + symbol);
+	}
+
+	public boolean isAcceptState(int state) {
+		return (acceptMask[state >>> 6] & (1L << state)) != 0;
+	}
+
+	private void setAcceptState(int state, boolean accept) {
+		if (accept) {
+			acceptMask[state >>> 6] |= 1L << state;
+		} else {
+			acceptMask[state >>> 6] &= ~(1L << state);
+		}
+	}
+
+	// Returns the flattened delta function itself, indexed by state * alphabet size + symbol.
+	public TransitionTable getDelta() {
 		return delta;
 	}
+
+	public int getStateCount() {
+		return delta.getStateCount();
+	}
+
+	public int getAlphabetSize() {
+		return delta.getAlphabetSize();
+	}
+
+	// Returns the packed accept states itself, holding one bit per state.
+	public long[] getAcceptMask() {
+		return acceptMask;
+	}
 	
+	// Returns a copy of the accept states with one entry per state.
 	public boolean[] getAcceptStates() {
+		boolean[] acceptStates = new boolean[getStateCount()];
+
+		for (int i = 0; i < acceptStates.length; i++) {
+			acceptStates[i] = isAcceptState(i);
+		}
+
 		return acceptStates;
 	}
 	
@@ -136,4 +429,33 @@ public class DFA {
 	public double getFitness() {
 		return fitness;
 	}
+
+	// Record a fitness that was calculated outside of the DFA, such as by a PackedPopulation.
+	void setFitness(double fitness) {
+		this.fitness = fitness;
+		dirty = false;
+		exact = true;
+	}
+
+	// Restore the fitness and its state from a checkpoint.
+	void restoreFitness(double fitness, boolean dirty, boolean exact) {
+		this.fitness = fitness;
+		this.dirty = dirty;
+		this.exact = exact;
+	}
+
+	// Returns false if the fitness is only a lower bound because its evaluation stopped early.
+	public boolean isFitnessExact() {
+		return exact;
+	}
+
+	// Returns true if the fitness must be calculated again because the genes changed since it was calculated.
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	// Force the fitness to be calculated again, for instance because the training examples changed.
+	public void markDirty() {
+		dirty = true;
+	}
 }
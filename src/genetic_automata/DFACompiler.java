@@ -0,0 +1,498 @@
+package genetic_automata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Compiles DFAs into CompiledDFAs and caches them by the canonical form of
+ * each DFA (see GenomeKey), evicting them in least-recently-used order. Like
+ * the FitnessCache, the cache is split into segments chosen by key hash, each
+ * guarded by its own lock, so parallel evaluators can share it.
+ *
+ * Compiling a DFA builds a stride table of states * alphabetSize^stride
+ * entries, which costs about as much as running the DFA over that many
+ * symbols. It pays off for DFAs that are run on many more symbols than that,
+ * such as elites scored on a large training set epoch after epoch.
+ *
+ * The loop that runs a compiled DFA is generated as bytecode once per
+ * alphabet size and stride and defined as a hidden class, so the JIT sees
+ * both as constants. The class file is written directly, since the JDK only
+ * gained a class-file API after the Java 17 this project targets.
+ */
+public class DFACompiler {
+	// Largest number of entries of a stride table, so that it stays in the CPU caches.
+	public static final int MAX_STRIDE_TABLE_SIZE = 1 << 16;
+
+	// Largest number of stride indices per state, so a stride is read into one int.
+	private static final int MAX_STRIDE_WIDTH = 256;
+
+	// Number of independently locked segments.
+	private static final int SEGMENTS = 16;
+
+	// Generated kernels by alphabetSize * (MAX_STRIDE_WIDTH + 1) + stride. There are only a few, so they are kept.
+	private static final Map<Integer, CompiledDFA.Kernel> KERNELS = new ConcurrentHashMap<>();
+
+	private List<Map<GenomeKey, CompiledDFA>> segments;
+
+	// Create a compiler caching at most capacity compiled DFAs.
+	public DFACompiler(int capacity) {
+		int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+		segments = new ArrayList<>();
+
+		for (int i = 0; i < SEGMENTS; i++) {
+			// An access-ordered map evicting its eldest entry when full is an LRU cache.
+			segments.add(new LinkedHashMap<GenomeKey, CompiledDFA>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<GenomeKey, CompiledDFA> eldest) {
+					return size() > segmentCapacity;
+				}
+			});
+		}
+	}
+
+	// Return the compiled form of the DFA, compiling it unless a DFA accepting the same language was compiled recently.
+	public CompiledDFA compile(DFA dfa) {
+		GenomeKey key = GenomeKey.of(dfa);
+		Map<GenomeKey, CompiledDFA> segment = segments.get(Math.floorMod(key.hashCode(), SEGMENTS));
+
+		synchronized (segment) {
+			CompiledDFA compiled = segment.get(key);
+
+			if (compiled != null) {
+				return compiled;
+			}
+		}
+
+		// Compile outside the lock; if another thread compiles the same language meanwhile, either result will do.
+		CompiledDFA compiled = compileUncached(dfa);
+
+		synchronized (segment) {
+			segment.put(key, compiled);
+		}
+
+		return compiled;
+	}
+
+	// Compile the DFA without looking in or adding to any cache.
+	public static CompiledDFA compileUncached(DFA dfa) {
+		TransitionTable delta = dfa.getDelta();
+		int stateCount = delta.getStateCount();
+		int alphabetSize = delta.getAlphabetSize();
+
+		int[] table = new int[delta.length()];
+
+		for (int i = 0; i < table.length; i++) {
+			table[i] = delta.get(i);
+		}
+
+		// Choose the longest stride whose table fits in the limits.
+		int stride = 1;
+		int width = alphabetSize;
+
+		while (alphabetSize > 1 && width * alphabetSize <= MAX_STRIDE_WIDTH
+				&& (long) stateCount * width * alphabetSize <= MAX_STRIDE_TABLE_SIZE) {
+			stride++;
+			width *= alphabetSize;
+		}
+
+		// Extend strides one symbol at a time: the index of a stride is that of its prefix * alphabetSize + its last symbol.
+		int[] strideTable = table;
+		int prefixWidth = alphabetSize;
+
+		for (int length = 2; length <= stride; length++) {
+			int[] longer = new int[stateCount * prefixWidth * alphabetSize];
+
+			for (int state = 0; state < stateCount; state++) {
+				for (int prefix = 0; prefix < prefixWidth; prefix++) {
+					int afterPrefix = strideTable[state * prefixWidth + prefix];
+
+					for (int symbol = 0; symbol < alphabetSize; symbol++) {
+						longer[(state * prefixWidth + prefix) * alphabetSize + symbol] =
+								table[afterPrefix * alphabetSize + symbol];
+					}
+				}
+			}
+
+			strideTable = longer;
+			prefixWidth *= alphabetSize;
+		}
+
+		long[] acceptMask = new long[(stateCount + 63) >>> 6];
+
+		for (int state = 0; state < stateCount; state++) {
+			if (dfa.isAcceptState(state)) {
+				acceptMask[state >>> 6] |= 1L << state;
+			}
+		}
+
+		CompiledDFA.Kernel kernel = KERNELS.computeIfAbsent(alphabetSize * (MAX_STRIDE_WIDTH + 1) + stride,
+				key -> defineKernel(alphabetSize, key % (MAX_STRIDE_WIDTH + 1)));
+
+		return new CompiledDFA(kernel, stride, strideTable, table, acceptMask, dfa.getStartState());
+	}
+
+	// Generate and define the kernel class for the alphabet size and stride.
+	private static CompiledDFA.Kernel defineKernel(int alphabetSize, int stride) {
+		try {
+			byte[] bytes = new KernelWriter(alphabetSize, stride).write();
+			Class<?> kernel = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+			return (CompiledDFA.Kernel) kernel.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("The kernel generated for " + alphabetSize + " symbols and a stride of "
+					+ stride + " could not be defined.", e);
+		} catch (IOException e) {
+			// Byte array streams do not fail.
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * Writes the class file of a kernel, whose run method is, with the alphabet
+	 * size A and the stride S as constants:
+	 *
+	 *     int run(byte[] symbols, int from, int to, int state, int[] strideTable, int[] table) {
+	 *         int end = to - S;
+	 *
+	 *         while (from <= end) {
+	 *             state = strideTable[state * A^S + ((symbols[from] * A + symbols[from + 1]) * A + ...)];
+	 *             from += S;
+	 *         }
+	 *
+	 *         while (from < to) {
+	 *             state = table[state * A + symbols[from]];
+	 *             from++;
+	 *         }
+	 *
+	 *         return state;
+	 *     }
+	 *
+	 * Multiplications by a power of two are written as shifts. With a stride
+	 * of 1 the first loop is left out.
+	 */
+	private static class KernelWriter {
+		private static final String CLASS_NAME = "genetic_automata/GeneratedKernel";
+		private static final String SUPER_NAME = "genetic_automata/CompiledDFA$Kernel";
+
+		// Constant pool indices, in the order writeConstantPool() writes the constants.
+		private static final int THIS_CLASS = 2;
+		private static final int SUPER_CLASS = 4;
+		private static final int INIT_NAME = 5;
+		private static final int VOID_DESCRIPTOR = 6;
+		private static final int SUPER_INIT = 8;
+		private static final int RUN_NAME = 9;
+		private static final int RUN_DESCRIPTOR = 10;
+		private static final int CODE = 11;
+		private static final int STACK_MAP_TABLE = 12;
+		private static final int CONSTANT_POOL_COUNT = 13;
+
+		// Local variables of the run method.
+		private static final int SYMBOLS = 1;
+		private static final int FROM = 2;
+		private static final int TO = 3;
+		private static final int STATE = 4;
+		private static final int STRIDE_TABLE = 5;
+		private static final int TABLE = 6;
+		private static final int END = 7;
+
+		private int alphabetSize;
+		private int stride;
+
+		// Base 2 logarithm of the alphabet size if it is a power of two, or -1 otherwise.
+		private int alphabetShift;
+
+		private ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+		private DataOutputStream code = new DataOutputStream(codeBytes);
+
+		private ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+		private DataOutputStream frames = new DataOutputStream(frameBytes);
+		private int frameCount;
+		private int lastFrame = -1;
+
+		KernelWriter(int alphabetSize, int stride) {
+			this.alphabetSize = alphabetSize;
+			this.stride = stride;
+			this.alphabetShift = (Integer.bitCount(alphabetSize) == 1) ? Integer.numberOfTrailingZeros(alphabetSize) : -1;
+		}
+
+		byte[] write() throws IOException {
+			int exitStrides = -1;
+
+			if (stride > 1) {
+				// int end = to - S;
+				load(TO);
+				pushInt(stride);
+				code.writeByte(0x64); // isub
+				code.writeByte(0x36); // istore
+				code.writeByte(END);
+
+				// while (from <= end)
+				int strideLoop = appendIntFrame();
+				load(FROM);
+				load(END);
+				exitStrides = codeBytes.size();
+				code.writeByte(0xa3); // if_icmpgt, patched below
+				code.writeShort(0);
+
+				// state = strideTable[state * A^S + index];
+				code.writeByte(0x19); // aload
+				code.writeByte(STRIDE_TABLE);
+				load(STATE);
+				multiply(stride);
+				readSymbol(0);
+
+				for (int i = 1; i < stride; i++) {
+					multiply(1);
+					readSymbol(i);
+					code.writeByte(0x60); // iadd
+				}
+
+				code.writeByte(0x60); // iadd
+				code.writeByte(0x2e); // iaload
+				code.writeByte(0x36); // istore
+				code.writeByte(STATE);
+
+				// from += S;
+				code.writeByte(0x84); // iinc
+				code.writeByte(FROM);
+				code.writeByte(stride);
+				jumpBack(strideLoop);
+			}
+
+			// while (from < to)
+			int symbolLoop = sameFrame();
+			load(FROM);
+			load(TO);
+			int exitSymbols = codeBytes.size();
+			code.writeByte(0xa2); // if_icmpge, patched below
+			code.writeShort(0);
+
+			// state = table[state * A + symbols[from]];
+			code.writeByte(0x19); // aload
+			code.writeByte(TABLE);
+			load(STATE);
+			multiply(1);
+			readSymbol(0);
+			code.writeByte(0x60); // iadd
+			code.writeByte(0x2e); // iaload
+			code.writeByte(0x36); // istore
+			code.writeByte(STATE);
+
+			// from++;
+			code.writeByte(0x84); // iinc
+			code.writeByte(FROM);
+			code.writeByte(1);
+			jumpBack(symbolLoop);
+
+			// return state;
+			int exit = sameFrame();
+			load(STATE);
+			code.writeByte(0xac); // ireturn
+
+			byte[] runCode = codeBytes.toByteArray();
+
+			if (exitStrides >= 0) {
+				patch(runCode, exitStrides, symbolLoop);
+			}
+
+			patch(runCode, exitSymbols, exit);
+			return writeClass(runCode);
+		}
+
+		// Push symbols[from + offset], masked to 0-255 if the alphabet has symbols above 127.
+		private void readSymbol(int offset) throws IOException {
+			code.writeByte(0x2a + SYMBOLS); // aload_<SYMBOLS>
+			load(FROM);
+
+			if (offset > 0) {
+				pushInt(offset);
+				code.writeByte(0x60); // iadd
+			}
+
+			code.writeByte(0x33); // baload
+
+			if (alphabetSize > 128) {
+				code.writeByte(0x11); // sipush
+				code.writeShort(0xff);
+				code.writeByte(0x7e); // iand
+			}
+		}
+
+		// Multiply the int on the stack by the alphabet size to the power.
+		private void multiply(int power) throws IOException {
+			if (alphabetShift >= 0) {
+				pushInt(alphabetShift * power);
+				code.writeByte(0x78); // ishl
+			} else {
+				int factor = 1;
+
+				for (int i = 0; i < power; i++) {
+					factor *= alphabetSize;
+				}
+
+				pushInt(factor);
+				code.writeByte(0x68); // imul
+			}
+		}
+
+		private void load(int local) throws IOException {
+			if (local <= 3) {
+				code.writeByte(0x1a + local); // iload_<local>
+			} else {
+				code.writeByte(0x15); // iload
+				code.writeByte(local);
+			}
+		}
+
+		private void pushInt(int value) throws IOException {
+			if (value <= 5) {
+				code.writeByte(0x03 + value); // iconst_<value>
+			} else if (value <= Byte.MAX_VALUE) {
+				code.writeByte(0x10); // bipush
+				code.writeByte(value);
+			} else {
+				code.writeByte(0x11); // sipush
+				code.writeShort(value);
+			}
+		}
+
+		private void jumpBack(int target) throws IOException {
+			int position = codeBytes.size();
+			code.writeByte(0xa7); // goto
+			code.writeShort(target - position);
+		}
+
+		// Point the branch at position to the target.
+		private static void patch(byte[] runCode, int position, int target) {
+			int offset = target - position;
+			runCode[position + 1] = (byte) (offset >> 8);
+			runCode[position + 2] = (byte) offset;
+		}
+
+		// Add a frame at the current position with the locals of the previous frame and an empty stack.
+		private int sameFrame() throws IOException {
+			int offset = codeBytes.size();
+			int offsetDelta = offset - lastFrame - 1;
+
+			if (offsetDelta < 64) {
+				frames.writeByte(offsetDelta); // same_frame
+			} else {
+				frames.writeByte(251); // same_frame_extended
+				frames.writeShort(offsetDelta);
+			}
+
+			frameCount++;
+			lastFrame = offset;
+			return offset;
+		}
+
+		// Add a frame at the current position that adds the int local END to the previous frame.
+		private int appendIntFrame() throws IOException {
+			int offset = codeBytes.size();
+			frames.writeByte(252); // append_frame with one local
+			frames.writeShort(offset - lastFrame - 1);
+			frames.writeByte(1); // Integer
+
+			frameCount++;
+			lastFrame = offset;
+			return offset;
+		}
+
+		private byte[] writeClass(byte[] runCode) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			byte[] stackMap = frameBytes.toByteArray();
+
+			out.writeInt(0xcafebabe);
+			out.writeShort(0);
+			out.writeShort(61); // Java 17
+			writeConstantPool(out);
+			out.writeShort(0x0010 | 0x0020); // final super
+			out.writeShort(THIS_CLASS);
+			out.writeShort(SUPER_CLASS);
+			out.writeShort(0); // interfaces
+			out.writeShort(0); // fields
+			out.writeShort(2); // methods
+
+			// GeneratedKernel() { super(); }
+			out.writeShort(0);
+			out.writeShort(INIT_NAME);
+			out.writeShort(VOID_DESCRIPTOR);
+			out.writeShort(1);
+			out.writeShort(CODE);
+			out.writeInt(12 + 5);
+			out.writeShort(1); // max_stack
+			out.writeShort(1); // max_locals
+			out.writeInt(5);
+			out.writeByte(0x2a); // aload_0
+			out.writeByte(0xb7); // invokespecial
+			out.writeShort(SUPER_INIT);
+			out.writeByte(0xb1); // return
+			out.writeShort(0); // exception table
+			out.writeShort(0); // attributes
+
+			// int run(byte[] symbols, int from, int to, int state, int[] strideTable, int[] table)
+			int stackMapLength = 2 + stackMap.length;
+
+			out.writeShort(0);
+			out.writeShort(RUN_NAME);
+			out.writeShort(RUN_DESCRIPTOR);
+			out.writeShort(1);
+			out.writeShort(CODE);
+			out.writeInt(12 + runCode.length + 6 + stackMapLength);
+			out.writeShort(6); // max_stack
+			out.writeShort(END + 1); // max_locals
+			out.writeInt(runCode.length);
+			out.write(runCode);
+			out.writeShort(0); // exception table
+			out.writeShort(1); // attributes
+			out.writeShort(STACK_MAP_TABLE);
+			out.writeInt(stackMapLength);
+			out.writeShort(frameCount);
+			out.write(stackMap);
+
+			out.writeShort(0); // class attributes
+			return bytes.toByteArray();
+		}
+
+		private static void writeConstantPool(DataOutputStream out) throws IOException {
+			out.writeShort(CONSTANT_POOL_COUNT);
+			writeUtf8(out, CLASS_NAME); // 1
+			writeClassConstant(out, 1); // 2
+			writeUtf8(out, SUPER_NAME); // 3
+			writeClassConstant(out, 3); // 4
+			writeUtf8(out, "<init>"); // 5
+			writeUtf8(out, "()V"); // 6
+
+			out.writeByte(12); // 7: NameAndType <init> ()V
+			out.writeShort(INIT_NAME);
+			out.writeShort(VOID_DESCRIPTOR);
+
+			out.writeByte(10); // 8: Methodref CompiledDFA$Kernel.<init> ()V
+			out.writeShort(SUPER_CLASS);
+			out.writeShort(7);
+
+			writeUtf8(out, "run"); // 9
+			writeUtf8(out, "([BIII[I[I)I"); // 10
+			writeUtf8(out, "Code"); // 11
+			writeUtf8(out, "StackMapTable"); // 12
+		}
+
+		private static void writeUtf8(DataOutputStream out, String value) throws IOException {
+			out.writeByte(1);
+			out.writeUTF(value);
+		}
+
+		private static void writeClassConstant(DataOutputStream out, int name) throws IOException {
+			out.writeByte(7);
+			out.writeShort(name);
+		}
+	}
+}
@@ -3,12 +3,11 @@ package genetic_automata;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import javax.swing.ImageIcon;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
 
 import org.jfree.chart.ChartFactory;
@@ -28,12 +27,16 @@ public class DisplayPanel extends JPanel {
 	// Size (in pixels) of states in the DFA that is displayed.
 	public static final int STATE_SIZE = 30;
 	
-	// Positions to draw states of the DFA.
+	// Positions to draw states of a 5-state DFA. Other DFAs are drawn with their states on a circle.
 	public static int[] X_POSITIONS = new int[] { 120, 20, 220, 40, 200 };
 	public static int[] Y_POSITIONS = new int[] { 20, 120, 120, 200, 200 }; 
 	
 	private JPanel dfaGraphPanel;
 	private JPanel fitnessChartPanel;
+
+	// Fitness over the epochs of the current run, which the chart redraws as they are added.
+	private XYSeries avgSeries;
+	private XYSeries bestSeries;
 	
 	public DisplayPanel() {
 		setPreferredSize(new Dimension(Main.WIDTH - LeftPanel.WIDTH, Main.HEIGHT));
@@ -51,16 +54,17 @@ public class DisplayPanel extends JPanel {
 	}
 	
 	// Show the DFA graph.
-	public void showDFAGraph() {
+	public void showDFAGraph(DFA bestDFA) {
 		// Delete the prior DFA graph.
 		dfaGraphPanel.removeAll();
-		dfaGraphPanel.revalidate();
 		
-		dfaGraphPanel.add(createDFAGraph(), BorderLayout.CENTER);
+		dfaGraphPanel.add(createDFAGraph(bestDFA), BorderLayout.CENTER);
+		dfaGraphPanel.revalidate();
+		dfaGraphPanel.repaint();
 	}
 	
 	// Create graph representing the best DFA produced by the genetic algorithm.
-	public mxGraphComponent createDFAGraph() {
+	public mxGraphComponent createDFAGraph(DFA bestDFA) {
 		mxGraph dfaGraph = new mxGraph();
 		Object parent = dfaGraph.getDefaultParent();
 		
@@ -79,14 +83,13 @@ public class DisplayPanel extends JPanel {
 		
 		dfaGraph.getModel().beginUpdate();
 		
-		// Retrieve the best DFA produced by the genetic algorithm.
-		DFA bestDFA = Main.algorithm.getPopulation().get(0);
-		
 		try {
 			List<Object> states = new ArrayList<>();
 			
-			for (int i = 0; i < DFA.STATE_COUNT; i++) {
-				String options = bestDFA.getAcceptStates()[i] ? "ACCEPT;" : "ROUNDED;";
+			int stateCount = bestDFA.getStateCount();
+
+			for (int i = 0; i < stateCount; i++) {
+				String options = bestDFA.isAcceptState(i) ? "ACCEPT;" : "ROUNDED;";
 				
 				String stateTitle = "Q" + i;
 				
@@ -97,16 +100,35 @@ public class DisplayPanel extends JPanel {
 				}
 				
 				// Create a new state and add it to the DFA graph.
-				Object state = dfaGraph.insertVertex(parent, null, stateTitle, X_POSITIONS[i], Y_POSITIONS[i], STATE_SIZE, STATE_SIZE, options);
+				int x;
+				int y;
+
+				if (stateCount == X_POSITIONS.length) {
+					x = X_POSITIONS[i];
+					y = Y_POSITIONS[i];
+				} else {
+					// Space the states evenly on a circle large enough that they do not overlap.
+					double radius = Math.max(100, stateCount * STATE_SIZE / Math.PI);
+					double angle = 2 * Math.PI * i / stateCount - Math.PI / 2;
+					x = (int) (radius + radius * Math.cos(angle)) + 20;
+					y = (int) (radius + radius * Math.sin(angle)) + 20;
+				}
+
+				Object state = dfaGraph.insertVertex(parent, null, stateTitle, x, y, STATE_SIZE, STATE_SIZE, options);
 				states.add(state);
 			}
 			
-			for (int y = 0; y < DFA.STATE_COUNT; y++) {
-				// Insert edge associated with the DFA seeing a '0'.
-				dfaGraph.insertEdge(parent, null, "0", states.get(y), states.get(bestDFA.getDelta()[y][0]));
-				
-				// Insert edge associated with the DFA seeing a '1'.
-				dfaGraph.insertEdge(parent, null, "1", states.get(y), states.get(bestDFA.getDelta()[y][1]));
+			for (int y = 0; y < stateCount; y++) {
+				// Draw one edge per target state, labelled with every symbol leading there.
+				Map<Integer, String> labels = new LinkedHashMap<>();
+
+				for (int symbol = 0; symbol < bestDFA.getAlphabetSize(); symbol++) {
+					labels.merge(bestDFA.getTransition(y, symbol), Integer.toString(symbol), (a, b) -> a + "," + b);
+				}
+
+				for (Map.Entry<Integer, String> label : labels.entrySet()) {
+					dfaGraph.insertEdge(parent, null, label.getValue(), states.get(y), states.get(label.getKey()));
+				}
 			}
 			
 			// Prevent overlapping of edges.
@@ -119,54 +141,42 @@ public class DisplayPanel extends JPanel {
 		return graphComponent;
 	}
 	
-	// Display the fitness over epochs chart.
+	// Replace the fitness chart with an empty one that shows the epochs of a new run as they are added.
 	public void showFitnessChart() {
-		ImageIcon chartImage = createFitnessChart();
-		
-		// Delete the prior fitness chart.
-		fitnessChartPanel.removeAll();
-		fitnessChartPanel.revalidate();
-		fitnessChartPanel.repaint();
-		
-		fitnessChartPanel.add(new JLabel(chartImage));
-		// Must validate for the chart to be displayed.
-		
-		fitnessChartPanel.validate();
-	}
-	
-	// Aggregate fitness scores over epochs to be displayed in the chart.
-	private XYSeriesCollection getFitnessData() {
 		XYSeriesCollection data = new XYSeriesCollection();
 		
 		// Display both the average fitness and best fitness of each epoch.
-		XYSeries avgSeries = new XYSeries("Avg Fitness");
-		XYSeries bestSeries = new XYSeries("Best Fitness");
-		
-		List<Double> avgOverEpochs = Main.algorithm.getAvgFitnessOverEpochs();
-		List<Double> bestOverEpochs = Main.algorithm.getBestFitnessOverEpochs();
-		
-		for (int i = 0; i < bestOverEpochs.size(); i++) {
-			avgSeries.add(i, avgOverEpochs.get(i));
-			bestSeries.add(i, bestOverEpochs.get(i));
-		}
+		avgSeries = new XYSeries("Avg Fitness");
+		bestSeries = new XYSeries("Best Fitness");
 		
 		data.addSeries(avgSeries);
 		data.addSeries(bestSeries);
 		
-		return data;
-	}
-	
-	// Create the fitness over epochs chart.
-	private ImageIcon createFitnessChart() {
-		String title = "DFA Fitness Over Epochs";
-		String xAxisLabel = "Epoch";
-		String yAxisLabel = "Fitness";
+		JFreeChart chart = ChartFactory.createXYLineChart("DFA Fitness Over Epochs", "Epoch", "Fitness", data);
 		
-		XYSeriesCollection chartData = getFitnessData();
+		ChartPanel chartPanel = new ChartPanel(chart);
+		chartPanel.setPreferredSize(new Dimension(Main.WIDTH - LeftPanel.WIDTH, Main.HEIGHT / 2));
 		
-		JFreeChart chart = ChartFactory.createXYLineChart(title, xAxisLabel, yAxisLabel, chartData);
+		// Delete the prior fitness chart.
+		fitnessChartPanel.removeAll();
+		fitnessChartPanel.add(chartPanel);
+		
+		// Must validate for the chart to be displayed.
+		fitnessChartPanel.revalidate();
+		fitnessChartPanel.repaint();
+	}
+	
+	/*
+	 * Add the fitness of consecutive epochs, starting at firstEpoch, to the
+	 * chart. The chart is redrawn once for all of them.
+	 */
+	public void addFitness(int firstEpoch, double[] bestFitness, double[] avgFitness) {
+		for (int i = 0; i < bestFitness.length; i++) {
+			avgSeries.add(firstEpoch + i, avgFitness[i], false);
+			bestSeries.add(firstEpoch + i, bestFitness[i], false);
+		}
 		
-		// Return an image of the chart.
-		return new ImageIcon(chart.createBufferedImage(Main.WIDTH - LeftPanel.WIDTH, Main.HEIGHT / 2));
+		avgSeries.fireSeriesChanged();
+		bestSeries.fireSeriesChanged();
 	}
 }
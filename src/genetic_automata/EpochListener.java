@@ -0,0 +1,15 @@
+package genetic_automata;
+
+/*
+ * Receives a callback from the genetic algorithm after every epoch, once the
+ * fitness statistics of the epoch have been logged. The callback runs on the
+ * thread evolving the population, between epochs, so it may read the
+ * algorithm's statistics and population but should return quickly and hand
+ * anything slow to another thread. The elites of the population, and at least
+ * its best DFA, come first in decreasing order of fitness at that point,
+ * except in a packed population, whose DFAs are only available once the run
+ * has ended.
+ */
+public interface EpochListener {
+	void epochCompleted(GeneticAlgorithm algorithm);
+}
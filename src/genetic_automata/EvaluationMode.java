@@ -0,0 +1,30 @@
+package genetic_automata;
+
+// The ways in which the genetic algorithm can calculate the fitness of its population.
+public enum EvaluationMode {
+	// Evaluate every DFA on the algorithm's thread.
+	SEQUENTIAL,
+
+	// Split the population across the common fork-join pool.
+	FORK_JOIN,
+
+	// Split the population across a fixed pool with one thread per processor.
+	THREAD_POOL,
+
+	// Step batches of DFAs through each input together on the algorithm's thread.
+	BATCH;
+
+	// Create a new evaluator implementing this mode.
+	public FitnessEvaluator createEvaluator() {
+		switch (this) {
+		case FORK_JOIN:
+			return new ForkJoinEvaluator();
+		case THREAD_POOL:
+			return new ThreadPoolEvaluator();
+		case BATCH:
+			return new BatchEvaluator();
+		default:
+			return new SequentialEvaluator();
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package genetic_automata;
+
+import java.util.Arrays;
+
+/*
+ * Record of how a DFA ran on each example of a training set: the state each
+ * example finished in, and for every transition the set of examples whose
+ * path used it. After a mutation, only the examples whose path used a changed
+ * transition need to be simulated again, and examples finishing in a state
+ * whose accept bit flipped only need their verdict inverted. Re-scoring then
+ * costs time proportional to the affected examples rather than the whole
+ * training set.
+ *
+ * A trace takes roughly 4 bytes per example plus one bit per example and
+ * transition; see bytesFor(...).
+ */
+public class EvaluationTrace {
+	// Scratch bitset of the examples being simulated again, one per evaluating thread.
+	private static final ThreadLocal<long[]> AFFECTED = ThreadLocal.withInitial(() -> new long[0]);
+
+	private TrainingSet examples;
+
+	// Number of 64-bit words in the bitset over the examples.
+	private int words;
+
+	// Number of transitions of the DFA.
+	private int transitions;
+
+	// State each example finished in.
+	private int[] finalStates;
+
+	// For transition t, bit e of words [t * words, (t + 1) * words) is set if example e used it.
+	private long[] usage;
+
+	// Number of examples classified correctly.
+	private int correct;
+
+	// Run the DFA on every example while recording the trace.
+	public EvaluationTrace(TrainingSet examples, TransitionTable delta, long[] acceptMask, int startState) {
+		this.examples = examples;
+
+		words = (examples.size() + 63) >>> 6;
+		transitions = delta.length();
+		finalStates = new int[examples.size()];
+		usage = new long[transitions * words];
+
+		boolean[] expected = examples.getExpected();
+
+		for (int e = 0; e < expected.length; e++) {
+			finalStates[e] = simulate(e, delta, startState);
+
+			if (isAccept(acceptMask, finalStates[e]) == expected[e]) {
+				correct++;
+			}
+		}
+	}
+
+	// Number of bytes a trace of a DFA with the given number of states over the training set takes.
+	public static long bytesFor(TrainingSet examples, int stateCount) {
+		long words = (examples.size() + 63) >>> 6;
+		return 4L * examples.size() + 8L * stateCount * examples.getAlphabetSize() * words;
+	}
+
+	// Returns true if the trace was recorded on the given training set.
+	public boolean isFor(TrainingSet examples) {
+		return this.examples.hasSameExamples(examples);
+	}
+
+	/*
+	 * Bring the trace up to date with the DFA after the given transitions were
+	 * changed and accept bits were flipped, and return the new number of
+	 * correctly classified examples. Returns -1 and leaves the trace as it was
+	 * if more than half of the examples would have to be simulated again,
+	 * since scoring the DFA from scratch is then cheaper.
+	 */
+	public int update(TransitionTable delta, long[] acceptMask, int startState, long[] changedTransitions, long[] flippedAccepts) {
+		boolean[] expected = examples.getExpected();
+		long[] affected = AFFECTED.get();
+
+		if (affected.length < words) {
+			affected = new long[words];
+			AFFECTED.set(affected);
+		}
+
+		// Gather the examples whose path used a changed transition.
+		Arrays.fill(affected, 0, words, 0);
+
+		for (int t = 0; t < transitions; t++) {
+			if ((changedTransitions[t >>> 6] & (1L << t)) != 0) {
+				for (int w = 0; w < words; w++) {
+					affected[w] |= usage[t * words + w];
+				}
+			}
+		}
+
+		int affectedCount = 0;
+
+		for (int w = 0; w < words; w++) {
+			affectedCount += Long.bitCount(affected[w]);
+		}
+
+		if (affectedCount > examples.size() / 2) {
+			return -1;
+		}
+
+		// Simulate the affected examples again.
+		for (int w = 0; w < words; w++) {
+			long bits = affected[w];
+
+			if (bits == 0) {
+				continue;
+			}
+
+			// Forget the old paths of the affected examples of this word before recording the new ones.
+			for (int t = 0; t < transitions; t++) {
+				usage[t * words + w] &= ~bits;
+			}
+
+			while (bits != 0) {
+				int e = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				int oldState = finalStates[e];
+				boolean wasAccepted = isAccept(acceptMask, oldState) ^ isAccept(flippedAccepts, oldState);
+
+				finalStates[e] = simulate(e, delta, startState);
+
+				correct += ((isAccept(acceptMask, finalStates[e]) == expected[e]) ? 1 : 0)
+						- ((wasAccepted == expected[e]) ? 1 : 0);
+			}
+		}
+
+		// Invert the verdict of the remaining examples that finish in a state whose accept bit flipped.
+		if (!isEmpty(flippedAccepts)) {
+			for (int e = 0; e < expected.length; e++) {
+				if ((affected[e >>> 6] & (1L << e)) == 0 && isAccept(flippedAccepts, finalStates[e])) {
+					correct += (isAccept(acceptMask, finalStates[e]) == expected[e]) ? 1 : -1;
+				}
+			}
+		}
+
+		return correct;
+	}
+
+	// Run example e from the start state, marking every transition it uses, and return its final state.
+	private int simulate(int e, TransitionTable delta, int startState) {
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		int alphabetSize = delta.getAlphabetSize();
+		int state = startState;
+		int word = e >>> 6;
+		long bit = 1L << e;
+
+		for (int i = offsets[e]; i < offsets[e + 1]; i++) {
+			int transition = state * alphabetSize + (symbols[i] & 0xff);
+			usage[transition * words + word] |= bit;
+			state = delta.get(transition);
+		}
+
+		return state;
+	}
+
+	private static boolean isAccept(long[] acceptMask, int state) {
+		return (acceptMask[state >>> 6] & (1L << state)) != 0;
+	}
+
+	private static boolean isEmpty(long[] bits) {
+		for (long word : bits) {
+			if (word != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public int getCorrect() {
+		return correct;
+	}
+}
@@ -0,0 +1,280 @@
+package genetic_automata;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * Measurements of where the epochs of a genetic algorithm spend their time,
+ * enabled with GeneticAlgorithm.enableMetrics(). The evolution thread records
+ * each epoch into a fixed ring of the last HISTORY_SIZE epochs and a histogram
+ * of epoch wall times, both held in atomic arrays, so any thread can read them
+ * without locking and memory use stays constant however long the run.
+ *
+ * The metrics can be read directly, through JMX once registered with
+ * register(...), or by a MetricsListener called after every epoch.
+ *
+ * Transitions are the symbols of the training examples times the number of
+ * DFAs the evaluator scored (excluding unchanged DFAs and cache hits): the
+ * work of a naive evaluation. Trie, incremental and bounded evaluation
+ * simulate fewer, so they show up as a higher rate. Allocated bytes are those
+ * of the evolution thread only, not of parallel evaluator threads.
+ */
+public class EvolutionMetrics implements EvolutionMetricsMBean {
+	// Number of recent epochs whose measurements are kept.
+	public static final int HISTORY_SIZE = 1024;
+
+	// What is measured every epoch. The first five are the phases of an epoch, in nanoseconds.
+	public enum Measure {
+		EVALUATE, SORT, SELECT, CROSSOVER, MUTATE,
+
+		// Wall time of the whole epoch, in nanoseconds.
+		EPOCH,
+
+		TRANSITIONS, ALLOCATED_BYTES, EVALUATIONS, SKIPPED_EVALUATIONS, CACHE_HITS, CACHE_LOOKUPS
+	}
+
+	private static final Measure[] MEASURES = Measure.values();
+
+	// Measurements of the last HISTORY_SIZE epochs; epoch e is in row e % HISTORY_SIZE.
+	private AtomicLongArray history = new AtomicLongArray(HISTORY_SIZE * MEASURES.length);
+
+	// Number of epochs with epoch wall time in [2^i, 2^(i + 1)) nanoseconds in bucket i.
+	private AtomicLongArray epochHistogram = new AtomicLongArray(64);
+
+	private AtomicLong epochs = new AtomicLong();
+
+	private List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+	// Measurements of the current epoch and when it started, only used by the evolution thread.
+	private long[] current = new long[MEASURES.length];
+	private long epochStart;
+	private long allocatedAtStart;
+
+	private ObjectName registeredName;
+
+	// Receives the metrics after every epoch, on the evolution thread.
+	public interface MetricsListener {
+		void epochMeasured(EvolutionMetrics metrics);
+	}
+
+	public void addListener(MetricsListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(MetricsListener listener) {
+		listeners.remove(listener);
+	}
+
+	void startEpoch() {
+		for (int i = 0; i < current.length; i++) {
+			current[i] = 0;
+		}
+
+		allocatedAtStart = allocatedBytes();
+		epochStart = System.nanoTime();
+	}
+
+	// Add the time since start to a phase of the current epoch and return the current time.
+	long record(Measure phase, long start) {
+		long now = System.nanoTime();
+		current[phase.ordinal()] += now - start;
+		return now;
+	}
+
+	void count(Measure measure, long amount) {
+		current[measure.ordinal()] += amount;
+	}
+
+	void endEpoch() {
+		long wall = System.nanoTime() - epochStart;
+		long allocated = allocatedBytes();
+
+		current[Measure.EPOCH.ordinal()] = wall;
+		current[Measure.ALLOCATED_BYTES.ordinal()] = (allocated >= 0) ? allocated - allocatedAtStart : 0;
+
+		long epoch = epochs.get();
+		int row = (int) (epoch % HISTORY_SIZE) * MEASURES.length;
+
+		for (int i = 0; i < current.length; i++) {
+			history.set(row + i, current[i]);
+		}
+
+		epochHistogram.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(1, wall)) - 1);
+
+		// Publish the row only once it is complete.
+		epochs.set(epoch + 1);
+
+		for (MetricsListener listener : listeners) {
+			listener.epochMeasured(this);
+		}
+	}
+
+	// Bytes allocated by the current thread so far, or -1 if the JVM cannot tell.
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+		}
+
+		return -1;
+	}
+
+	// Return the measurement of the last completed epoch, or 0 if there is none.
+	public long getLast(Measure measure) {
+		long epoch = epochs.get();
+		return (epoch == 0) ? 0 : history.get((int) ((epoch - 1) % HISTORY_SIZE) * MEASURES.length + measure.ordinal());
+	}
+
+	// Return the sum of a measurement over the recent epochs kept in the history.
+	public long getRecentSum(Measure measure) {
+		long epoch = epochs.get();
+		long sum = 0;
+
+		for (int i = 0; i < Math.min(epoch, HISTORY_SIZE); i++) {
+			sum += history.get(i * MEASURES.length + measure.ordinal());
+		}
+
+		return sum;
+	}
+
+	// Return the measurements of the recent epochs kept in the history, oldest first.
+	public long[] getRecent(Measure measure) {
+		long epoch = epochs.get();
+		long[] recent = new long[(int) Math.min(epoch, HISTORY_SIZE)];
+
+		for (int i = 0; i < recent.length; i++) {
+			long e = epoch - recent.length + i;
+			recent[i] = history.get((int) (e % HISTORY_SIZE) * MEASURES.length + measure.ordinal());
+		}
+
+		return recent;
+	}
+
+	// Return the mean of a measurement over the recent epochs, or 0 if there are none.
+	public double getRecentMean(Measure measure) {
+		long count = Math.min(epochs.get(), HISTORY_SIZE);
+		return (count == 0) ? 0 : (getRecentSum(measure) * 1.0) / count;
+	}
+
+	@Override
+	public long getEpochs() {
+		return epochs.get();
+	}
+
+	@Override
+	public double getLastEpochMillis() {
+		return getLast(Measure.EPOCH) / 1e6;
+	}
+
+	@Override
+	public double getMeanEpochMillis() {
+		return getRecentMean(Measure.EPOCH) / 1e6;
+	}
+
+	@Override
+	public double getEpochMillisPercentile(double fraction) {
+		long total = 0;
+
+		for (int i = 0; i < epochHistogram.length(); i++) {
+			total += epochHistogram.get(i);
+		}
+
+		long seen = 0;
+
+		for (int i = 0; i < epochHistogram.length(); i++) {
+			seen += epochHistogram.get(i);
+
+			if (seen > 0 && seen >= fraction * total) {
+				// Upper bound of the bucket.
+				return Math.scalb(1.0, i + 1) / 1e6;
+			}
+		}
+
+		return 0;
+	}
+
+	@Override
+	public double getMeanEvaluateMillis() {
+		return getRecentMean(Measure.EVALUATE) / 1e6;
+	}
+
+	@Override
+	public double getMeanSortMillis() {
+		return getRecentMean(Measure.SORT) / 1e6;
+	}
+
+	@Override
+	public double getMeanSelectMillis() {
+		return getRecentMean(Measure.SELECT) / 1e6;
+	}
+
+	@Override
+	public double getMeanCrossoverMillis() {
+		return getRecentMean(Measure.CROSSOVER) / 1e6;
+	}
+
+	@Override
+	public double getMeanMutateMillis() {
+		return getRecentMean(Measure.MUTATE) / 1e6;
+	}
+
+	// Transitions per second of evaluation time over the recent epochs.
+	@Override
+	public double getTransitionsPerSecond() {
+		long nanos = getRecentSum(Measure.EVALUATE);
+		return (nanos == 0) ? 0 : getRecentSum(Measure.TRANSITIONS) * 1e9 / nanos;
+	}
+
+	// Bytes allocated by the evolution thread per second of wall time over the recent epochs.
+	@Override
+	public double getAllocatedBytesPerSecond() {
+		long nanos = getRecentSum(Measure.EPOCH);
+		return (nanos == 0) ? 0 : getRecentSum(Measure.ALLOCATED_BYTES) * 1e9 / nanos;
+	}
+
+	// Fraction of fitness cache lookups answered from the cache over the recent epochs.
+	@Override
+	public double getCacheHitRate() {
+		long lookups = getRecentSum(Measure.CACHE_LOOKUPS);
+		return (lookups == 0) ? 0 : (getRecentSum(Measure.CACHE_HITS) * 1.0) / lookups;
+	}
+
+	// Fraction of the population not evaluated at all over the recent epochs, because it had not changed.
+	@Override
+	public double getSkippedEvaluationRate() {
+		long skipped = getRecentSum(Measure.SKIPPED_EVALUATIONS);
+		long total = skipped + getRecentSum(Measure.EVALUATIONS) + getRecentSum(Measure.CACHE_HITS);
+		return (total == 0) ? 0 : (skipped * 1.0) / total;
+	}
+
+	/*
+	 * Register the metrics with the platform MBean server under
+	 * genetic_automata:type=EvolutionMetrics,name=<name>.
+	 */
+	public void register(String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		registeredName = new ObjectName("genetic_automata:type=EvolutionMetrics,name=" + ObjectName.quote(name));
+		server.registerMBean(this, registeredName);
+	}
+
+	// Remove the metrics from the platform MBean server, if they were registered.
+	public void unregister() {
+		if (registeredName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+			} catch (JMException e) {
+				// Already unregistered.
+			}
+
+			registeredName = null;
+		}
+	}
+}
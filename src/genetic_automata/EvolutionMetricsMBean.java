@@ -0,0 +1,35 @@
+package genetic_automata;
+
+/*
+ * Management interface of EvolutionMetrics, so the metrics of a running
+ * genetic algorithm can be watched with any JMX client such as JConsole.
+ * Averages are taken over the most recent EvolutionMetrics.HISTORY_SIZE epochs.
+ */
+public interface EvolutionMetricsMBean {
+	long getEpochs();
+
+	double getLastEpochMillis();
+
+	double getMeanEpochMillis();
+
+	// Epoch wall time below which the given fraction of all epochs finished, within a factor of 2.
+	double getEpochMillisPercentile(double fraction);
+
+	double getMeanEvaluateMillis();
+
+	double getMeanSortMillis();
+
+	double getMeanSelectMillis();
+
+	double getMeanCrossoverMillis();
+
+	double getMeanMutateMillis();
+
+	double getTransitionsPerSecond();
+
+	double getAllocatedBytesPerSecond();
+
+	double getCacheHitRate();
+
+	double getSkippedEvaluationRate();
+}
@@ -0,0 +1,151 @@
+package genetic_automata;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Binary protocol spoken between a Coordinator and its Workers over TCP.
+ * Every message starts with one of the type bytes below.
+ *
+ *   Worker -> Coordinator
+ *     HELLO
+ *     MIGRANTS  epochs run since the last report, elite DFA list, best first
+ *     FINISHED  epochs run since the last report, best DFA
+ *
+ *   Coordinator -> Worker
+ *     SETTINGS  population, elitism, mutation rate, epochs, migration interval,
+ *               migrants per exchange, seed, number of states, alphabet size,
+ *               training set
+ *     MIGRANTS  DFA list from other workers, in reply to the worker's MIGRANTS
+ *     STOP      in reply to the worker's MIGRANTS once the run is over
+ *
+ * A DFA is sent with its fitness and whether that fitness is still current
+ * and exact, as in a checkpoint, so a DFA changed since it was scored is
+ * scored again by whoever receives it.
+ */
+public class EvolutionProtocol {
+	public static final int DEFAULT_PORT = 7355;
+
+	// Message types.
+	public static final byte HELLO = 1;
+	public static final byte SETTINGS = 2;
+	public static final byte MIGRANTS = 3;
+	public static final byte STOP = 4;
+	public static final byte FINISHED = 5;
+
+	private EvolutionProtocol() {
+	}
+
+	public static void writeDFA(DataOutputStream out, DFA dfa) throws IOException {
+		out.writeInt(dfa.getStartState());
+
+		for (int i = 0; i < dfa.getDelta().length(); i++) {
+			out.writeInt(dfa.getDelta().get(i));
+		}
+
+		for (long word : dfa.getAcceptMask()) {
+			out.writeLong(word);
+		}
+
+		out.writeDouble(dfa.getFitness());
+		out.writeBoolean(dfa.isDirty());
+		out.writeBoolean(dfa.isFitnessExact());
+	}
+
+	// Read a DFA with the number of states and alphabet size agreed on in the SETTINGS message.
+	public static DFA readDFA(DataInputStream in, int stateCount, int alphabetSize) throws IOException {
+		int startState = readState(in, stateCount);
+		TransitionTable delta = TransitionTable.create(stateCount, alphabetSize);
+		long[] acceptMask = new long[DFA.acceptWords(stateCount)];
+
+		for (int i = 0; i < delta.length(); i++) {
+			delta.set(i, readState(in, stateCount));
+		}
+
+		for (int i = 0; i < acceptMask.length; i++) {
+			acceptMask[i] = in.readLong();
+		}
+
+		DFA dfa = new DFA(delta, acceptMask, startState);
+		dfa.restoreFitness(in.readDouble(), in.readBoolean(), in.readBoolean());
+		return dfa;
+	}
+
+	// Read a state number, rejecting anything a DFA of this size cannot hold.
+	private static int readState(DataInputStream in, int stateCount) throws IOException {
+		int state = in.readInt();
+
+		if (state < 0 || state >= stateCount) {
+			throw new IOException("Received invalid state " + state + ".");
+		}
+
+		return state;
+	}
+
+	public static void writeDFAs(DataOutputStream out, List<DFA> dfas) throws IOException {
+		out.writeInt(dfas.size());
+
+		for (DFA dfa : dfas) {
+			writeDFA(out, dfa);
+		}
+	}
+
+	public static List<DFA> readDFAs(DataInputStream in, int stateCount, int alphabetSize) throws IOException {
+		int count = in.readInt();
+		List<DFA> dfas = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			dfas.add(readDFA(in, stateCount, alphabetSize));
+		}
+
+		return dfas;
+	}
+
+	public static void writeTrainingSet(DataOutputStream out, TrainingSet examples) throws IOException {
+		out.writeInt(examples.size());
+		out.writeInt(examples.getSymbols().length);
+		out.write(examples.getSymbols());
+
+		for (int i = 0; i < examples.size(); i++) {
+			out.writeInt(examples.getOffsets()[i + 1]);
+			out.writeBoolean(examples.getExpected()[i]);
+		}
+	}
+
+	// Read a training set whose inputs are encoded in an alphabet of the given size.
+	public static TrainingSet readTrainingSet(DataInputStream in, int alphabetSize) throws IOException {
+		int size = in.readInt();
+		int symbolCount = in.readInt();
+
+		if (size < 0 || symbolCount < 0) {
+			throw new IOException("Received invalid training set size.");
+		}
+
+		byte[] symbols = new byte[symbolCount];
+		int[] offsets = new int[size + 1];
+		boolean[] expected = new boolean[size];
+
+		in.readFully(symbols);
+
+		for (byte symbol : symbols) {
+			if ((symbol & 0xff) >= alphabetSize) {
+				throw new IOException("Received invalid symbol " + (symbol & 0xff) + ".");
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			offsets[i + 1] = in.readInt();
+			expected[i] = in.readBoolean();
+
+			// Each example must end at or after the previous one, and within the symbols.
+			if (offsets[i + 1] < offsets[i] || offsets[i + 1] > symbols.length) {
+				throw new IOException("Received invalid offset " + offsets[i + 1] + ".");
+			}
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
@@ -0,0 +1,160 @@
+package genetic_automata;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/*
+ * Runs the genetic algorithm on a background thread and streams its progress
+ * to the GUI while it runs, so the event thread is never blocked.
+ *
+ * The evolution thread only checks the clock after each epoch. At most every
+ * UPDATE_INTERVAL it copies the statistics of the epochs since its last
+ * update, and the best DFA, into an Update. At most one Update waits for the
+ * event thread at a time: if the GUI has not picked up the previous one yet,
+ * the new one is merged into it, so a slow GUI never holds up or queues work
+ * for the evolution thread.
+ */
+public class EvolutionWorker extends SwingWorker<DFA, Void> {
+	// Minimum time between updates of the GUI.
+	public static final long UPDATE_INTERVAL = 100_000_000L;
+
+	private GeneticAlgorithm algorithm;
+	private DisplayPanel displayPanel;
+	private LeftPanel controlsPanel;
+
+	// Update waiting to be shown by the event thread, or null.
+	private AtomicReference<Update> pending = new AtomicReference<>();
+
+	// Time of the last update, and the number of epochs it covered, on the evolution thread.
+	private long lastUpdate;
+	private int publishedEpochs;
+
+	// Fitness of the DFA shown in the graph, on the event thread.
+	private double shownFitness = -1;
+
+	// Statistics of consecutive epochs and the best DFA at the last of them.
+	private static class Update {
+		int firstEpoch;
+		double[] bestFitness;
+		double[] avgFitness;
+		DFA best;
+
+		// Combine this update with a later one.
+		Update mergeWith(Update later) {
+			Update merged = new Update();
+			merged.firstEpoch = firstEpoch;
+			merged.bestFitness = concat(bestFitness, later.bestFitness);
+			merged.avgFitness = concat(avgFitness, later.avgFitness);
+			merged.best = later.best;
+			return merged;
+		}
+
+		private static double[] concat(double[] first, double[] second) {
+			double[] both = Arrays.copyOf(first, first.length + second.length);
+			System.arraycopy(second, 0, both, first.length, second.length);
+			return both;
+		}
+	}
+
+	public EvolutionWorker(GeneticAlgorithm algorithm, DisplayPanel displayPanel, LeftPanel controlsPanel) {
+		this.algorithm = algorithm;
+		this.displayPanel = displayPanel;
+		this.controlsPanel = controlsPanel;
+	}
+
+	@Override
+	protected DFA doInBackground() {
+		lastUpdate = System.nanoTime();
+		algorithm.setEpochListener(this::epochCompleted);
+
+		try {
+			return algorithm.runEpochs();
+		} finally {
+			algorithm.setEpochListener(null);
+			sendUpdate(true);
+		}
+	}
+
+	// Called on the evolution thread after every epoch.
+	private void epochCompleted(GeneticAlgorithm algorithm) {
+		if (System.nanoTime() - lastUpdate >= UPDATE_INTERVAL) {
+			sendUpdate(false);
+			lastUpdate = System.nanoTime();
+		}
+	}
+
+	// Hand the statistics of the epochs not yet shown to the event thread.
+	private void sendUpdate(boolean finished) {
+		List<Double> bestOverEpochs = algorithm.getBestFitnessOverEpochs();
+		List<Double> avgOverEpochs = algorithm.getAvgFitnessOverEpochs();
+
+		Update update = new Update();
+		update.firstEpoch = publishedEpochs;
+		update.bestFitness = new double[bestOverEpochs.size() - publishedEpochs];
+		update.avgFitness = new double[update.bestFitness.length];
+
+		for (int i = 0; i < update.bestFitness.length; i++) {
+			update.bestFitness[i] = bestOverEpochs.get(publishedEpochs + i);
+			update.avgFitness[i] = avgOverEpochs.get(publishedEpochs + i);
+		}
+
+		publishedEpochs = bestOverEpochs.size();
+
+		// The final population is shown by done(), once the run has returned its best DFA.
+		if (!finished && !algorithm.getPopulation().isEmpty()) {
+			update.best = new DFA(algorithm.getPopulation().get(0));
+		}
+
+		if (pending.getAndAccumulate(update, (waiting, later) -> (waiting != null) ? waiting.mergeWith(later) : later) == null) {
+			SwingUtilities.invokeLater(this::showPending);
+		}
+	}
+
+	// Show the waiting update on the event thread.
+	private void showPending() {
+		Update update = pending.getAndSet(null);
+
+		if (update == null) {
+			return;
+		}
+
+		displayPanel.addFitness(update.firstEpoch, update.bestFitness, update.avgFitness);
+
+		if (update.bestFitness.length > 0) {
+			int last = update.bestFitness.length - 1;
+			controlsPanel.showProgress(update.firstEpoch + last + 1, update.bestFitness[last], update.avgFitness[last]);
+		}
+
+		// Only redraw the graph when a better DFA has been found.
+		if (update.best != null && update.best.getFitness() > shownFitness) {
+			displayPanel.showDFAGraph(update.best);
+			shownFitness = update.best.getFitness();
+		}
+	}
+
+	@Override
+	protected void done() {
+		// Show whatever is still waiting before the final outcome.
+		showPending();
+
+		try {
+			DFA best = get();
+			displayPanel.showDFAGraph(best);
+
+			if (!algorithm.isCancelled()) {
+				Main.recordRun(algorithm, best);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			System.out.println("The genetic algorithm failed: " + e.getCause());
+		}
+
+		controlsPanel.runFinished(algorithm);
+	}
+}
@@ -0,0 +1,139 @@
+package genetic_automata;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded cache of fitness values keyed by the canonical form of each DFA
+ * (see GenomeKey), so elites, repeated children, and DFAs that merely differ
+ * in unreachable or redundant states are only scored once. Entries are evicted
+ * in least-recently-used order.
+ *
+ * The cache is split into segments chosen by key hash, each guarded by its own
+ * lock, so it can be shared by concurrent evaluations with little contention.
+ * The cached values are only valid for one training set; switching to another
+ * training set clears the cache.
+ */
+public class FitnessCache {
+	// Number of independently locked segments.
+	private static final int SEGMENTS = 16;
+
+	private List<Map<GenomeKey, Double>> segments;
+
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+
+	// Training set the cached fitness values were calculated on.
+	private TrainingSet examples;
+
+	// Create a cache holding at most capacity fitness values.
+	public FitnessCache(int capacity) {
+		int segmentCapacity = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+		segments = new ArrayList<>();
+
+		for (int i = 0; i < SEGMENTS; i++) {
+			// An access-ordered map evicting its eldest entry when full is an LRU cache.
+			segments.add(new LinkedHashMap<GenomeKey, Double>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<GenomeKey, Double> eldest) {
+					return size() > segmentCapacity;
+				}
+			});
+		}
+	}
+
+	/*
+	 * Calculate the fitness of every DFA in the population, taking cached values
+	 * where possible and passing only the remaining DFAs on to the evaluator.
+	 * Evaluations that stopped early at the cutoff are not cached.
+	 */
+	public void evaluate(List<DFA> population, TrainingSet examples, FitnessEvaluator evaluator, double cutoff) {
+		if (!examples.hasSameExamples(this.examples)) {
+			clear();
+			this.examples = examples;
+		}
+
+		List<DFA> uncached = new ArrayList<>();
+		List<GenomeKey> uncachedKeys = new ArrayList<>();
+
+		for (DFA dfa : population) {
+			GenomeKey key = GenomeKey.of(dfa);
+			Double fitness = get(key);
+
+			if (fitness != null) {
+				dfa.setFitness(fitness);
+			} else {
+				uncached.add(dfa);
+				uncachedKeys.add(key);
+			}
+		}
+
+		evaluator.evaluate(uncached, examples, cutoff);
+
+		for (int i = 0; i < uncached.size(); i++) {
+			if (uncached.get(i).isFitnessExact()) {
+				put(uncachedKeys.get(i), uncached.get(i).getFitness());
+			}
+		}
+	}
+
+	// Return the cached fitness for the key, or null if there is none.
+	public Double get(GenomeKey key) {
+		Map<GenomeKey, Double> segment = segmentFor(key);
+		Double fitness;
+
+		synchronized (segment) {
+			fitness = segment.get(key);
+		}
+
+		if (fitness != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+
+		return fitness;
+	}
+
+	public void put(GenomeKey key, double fitness) {
+		Map<GenomeKey, Double> segment = segmentFor(key);
+
+		synchronized (segment) {
+			segment.put(key, fitness);
+		}
+	}
+
+	// Remove every cached value.
+	public void clear() {
+		for (Map<GenomeKey, Double> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Map<GenomeKey, Double> segmentFor(GenomeKey key) {
+		// Spread the hash so that segments do not depend on its low bits alone.
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+
+		return segments.get((hash & 0x7fffffff) % SEGMENTS);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	// Fraction of lookups answered from the cache, or 0 if there were none.
+	public double getHitRate() {
+		long lookups = getHits() + getMisses();
+		return (lookups == 0) ? 0 : (getHits() * 1.0) / lookups;
+	}
+}
@@ -0,0 +1,23 @@
+package genetic_automata;
+
+import java.util.List;
+
+// Strategy used by the genetic algorithm to calculate the fitness of a population of DFAs.
+public interface FitnessEvaluator {
+	// Calculate the fitness of every DFA in the population on the provided examples.
+	default void evaluate(List<DFA> population, TrainingSet examples) {
+		evaluate(population, examples, 0);
+	}
+
+	/*
+	 * Calculate the fitness of every DFA in the population, allowing the
+	 * evaluation of a DFA to stop early once its fitness cannot reach the
+	 * cutoff (see DFA.calculateFitness(TrainingSet, double)). Evaluators that
+	 * cannot stop early calculate the exact fitness of every DFA.
+	 */
+	void evaluate(List<DFA> population, TrainingSet examples, double cutoff);
+
+	// Release any threads held by the evaluator. The evaluator must not be used afterwards.
+	default void shutdown() {
+	}
+}
@@ -0,0 +1,90 @@
+package genetic_automata;
+
+/*
+ * Orders DFAs by decreasing fitness through an array of their indices, so
+ * only primitive doubles are compared and ints moved. Most generations only
+ * need their elites in order, which rankTop finds in O(n) by quickselect
+ * instead of sorting the whole population in O(n log n).
+ */
+public class FitnessRanking {
+	private FitnessRanking() {
+	}
+
+	/*
+	 * Rearrange order[0..size) so that its first count entries are the
+	 * indices of the count fittest DFAs in decreasing order of fitness; the
+	 * rest follow in no particular order.
+	 */
+	public static void rankTop(double[] fitness, int[] order, int size, int count) {
+		int low = 0;
+		int high = size - 1;
+
+		// Quickselect: narrow [low, high] down to the partition holding position count - 1.
+		while (low < high) {
+			double pivot = fitness[order[(low + high) >>> 1]];
+			int i = low;
+			int j = high;
+
+			while (i <= j) {
+				while (fitness[order[i]] > pivot) {
+					i++;
+				}
+				while (fitness[order[j]] < pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int temp = order[i];
+					order[i] = order[j];
+					order[j] = temp;
+					i++;
+					j--;
+				}
+			}
+
+			// Everything in (j, i) equals the pivot, so it is in place.
+			if (count - 1 <= j) {
+				high = j;
+			} else if (count - 1 >= i) {
+				low = i;
+			} else {
+				break;
+			}
+		}
+
+		sort(fitness, order, 0, Math.min(count, size) - 1);
+	}
+
+	// Quicksort order[low..high] by decreasing fitness of the indices.
+	public static void sort(double[] fitness, int[] order, int low, int high) {
+		while (low < high) {
+			double pivot = fitness[order[(low + high) >>> 1]];
+			int i = low;
+			int j = high;
+
+			while (i <= j) {
+				while (fitness[order[i]] > pivot) {
+					i++;
+				}
+				while (fitness[order[j]] < pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int temp = order[i];
+					order[i] = order[j];
+					order[j] = temp;
+					i++;
+					j--;
+				}
+			}
+
+			// Recurse into the smaller half to bound the stack depth.
+			if (j - low < high - i) {
+				sort(fitness, order, low, j);
+				low = i;
+			} else {
+				sort(fitness, order, i, high);
+				high = j;
+			}
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package genetic_automata;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Calculates the fitness of the population on a fork-join pool. The population
+ * is recursively split in half until each task holds only a small slice of it,
+ * so idle workers can steal the remaining slices.
+ */
+public class ForkJoinEvaluator implements FitnessEvaluator {
+	// Number of slices created per worker thread, allowing work stealing to balance the load.
+	private static final int SLICES_PER_THREAD = 4;
+
+	private ForkJoinPool pool;
+
+	// Evaluate on the common fork-join pool.
+	public ForkJoinEvaluator() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ForkJoinEvaluator(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public void evaluate(List<DFA> population, TrainingSet examples, double cutoff) {
+		int sliceSize = Math.max(1, population.size() / (pool.getParallelism() * SLICES_PER_THREAD));
+
+		pool.invoke(new EvaluateTask(population, examples, cutoff, 0, population.size(), sliceSize));
+	}
+
+	// Evaluates the DFAs in the range [from, to) of the population.
+	private static class EvaluateTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<DFA> population;
+		private final TrainingSet examples;
+		private final double cutoff;
+		private final int from;
+		private final int to;
+		private final int sliceSize;
+
+		EvaluateTask(List<DFA> population, TrainingSet examples, double cutoff, int from, int to, int sliceSize) {
+			this.population = population;
+			this.examples = examples;
+			this.cutoff = cutoff;
+			this.from = from;
+			this.to = to;
+			this.sliceSize = sliceSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= sliceSize) {
+				for (int i = from; i < to; i++) {
+					population.get(i).calculateFitness(examples, cutoff);
+				}
+				return;
+			}
+
+			// Split the range in half and evaluate both halves in parallel.
+			int mid = (from + to) >>> 1;
+			invokeAll(new EvaluateTask(population, examples, cutoff, from, mid, sliceSize),
+					new EvaluateTask(population, examples, cutoff, mid, to, sliceSize));
+		}
+	}
+}
@@ -1,22 +1,43 @@
 package genetic_automata;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 public class GeneticAlgorithm {
+	// Settings of a genetic algorithm until setSettings(...) is called.
+	public static final int DEFAULT_POPULATION_SIZE = 200;
+	public static final int DEFAULT_ELITISM_OFFSET = 30;
+	public static final double DEFAULT_MUTATION_RATE = 0.2;
+	public static final int DEFAULT_MAX_EPOCHS = 1000;
+
+	// Number of epochs between reordering the training examples for bounded evaluation.
+	public static final int REORDER_INTERVAL = 10;
+
 	// Size of the population of DFAs.
-	public static int POPULATION_SIZE = 200;
+	private int populationSize = DEFAULT_POPULATION_SIZE;
 
 	// Number of DFAs to keep (without changing at all) across epochs.
-	public static int ELITISM_OFFSET = 30;
+	private int elitismOffset = DEFAULT_ELITISM_OFFSET;
 
 	// Probability of a DFA being selected for mutation.
-	public static double MUTATION_RATE = 0.2;
+	private double mutationRate = DEFAULT_MUTATION_RATE;
 
 	// The maximum number of iterations to run the genetic algorithm.
-	public static int MAX_EPOCHS = 1000;
+	private int maxEpochs = DEFAULT_MAX_EPOCHS;
+
+	// Number of states of every DFA, and size of the alphabet of the training examples.
+	private int stateCount;
+	private int alphabetSize;
 
 	// Average fitness at each epoch.
 	private List<Double> avgFitnessOverEpochs;
@@ -29,104 +50,364 @@ public class GeneticAlgorithm {
 	// Tracks the current epoch in the algorithm.
 	private int currentEpoch = 0;
 
-	// Training examples for the genetic algorithm.
-	private String[] inputs;
-	private boolean[] expected;
+	// Training examples for the genetic algorithm, encoded once into DFA symbols.
+	private TrainingSet examples;
+
+	// Training examples streamed from a memory-mapped file instead, or null if they are in memory.
+	private MappedTrainingSet mappedExamples;
 
 	private Random rand;
 
+	// Seed all random choices are derived from, or null if the algorithm was given a generator.
+	private Long seed;
+
+	// Strategy used to calculate the fitness of the population.
+	private FitnessEvaluator evaluator;
+
+	// Cache of fitness values by canonical DFA, or null if every DFA is evaluated.
+	private FitnessCache fitnessCache;
+
+	// DFAs of the current population whose fitness must be calculated, reused every epoch.
+	private List<DFA> dirtyPopulation = new ArrayList<>();
+
+	// Number of fitness evaluations skipped because a DFA had not changed.
+	private long skippedEvaluations;
+
+	// Whether evaluations may stop early once a DFA cannot reach the elite cut-off.
+	private boolean boundedEvaluation;
+
+	// Fitness of the worst elite of the previous generation, below which evaluations may stop early.
+	private double cutoff;
+
+	// Strategy used to select parents for the next generation, and the mode it implements.
+	private SelectionStrategy selection;
+	private SelectionMode selectionMode = SelectionMode.ROULETTE;
+
+	// Fitness of the population in decreasing order, reused by the selection strategy every generation.
+	private double[] selectionFitness;
+
+	// Fitness of each DFA in its unranked position, the ranked order of the positions, and the DFAs being reordered.
+	private double[] rankFitness = new double[0];
+	private int[] rankOrder = new int[0];
+	private DFA[] unranked = new DFA[0];
+
+	// Average fitness of the population, calculated while ranking it.
+	private double avgFitness;
+
+	/*
+	 * Copies, taken just before mutation, of the elites of the last evaluated
+	 * generation that were mutated in place for the next one, by rank, or
+	 * null for elites that were not mutated.
+	 */
+	private DFA[] mutatedElites = new DFA[0];
+
+	// Whether to evolve the population in a PackedPopulation instead of a list of DFAs.
+	private boolean packed;
+
+	// Number of training examples each epoch is scored on, or 0 to score on all of them.
+	private int miniBatchSize;
+
+	// Number of epochs between drawing a new mini-batch.
+	private int resampleInterval = 1;
+
+	// Number of epochs between re-validating the elites on all training examples.
+	private int validationInterval = 10;
+
+	// Mini-batch the current population is scored on, or null if mini-batches are disabled.
+	private TrainingSet miniBatch;
+
+	// Shuffled indices of the training examples; mini-batches are consecutive windows of it.
+	private int[] sampleOrder;
+
+	// Position in sampleOrder of the next mini-batch.
+	private int sampleCursor;
+
+	// Best DFA so far by its fitness on all training examples, when scoring on mini-batches.
+	private DFA validatedBest;
+
+	// Writes checkpoints of the run in the background, or null if checkpointing is disabled.
+	private Checkpointer checkpointer;
+
+	// Number of epochs between checkpoints.
+	private int checkpointInterval;
+
+	// Notified after every epoch, or null.
+	private EpochListener epochListener;
+
+	// Set by another thread to stop the run after the current epoch.
+	private volatile boolean cancelled;
+
+	// Measurements of each epoch, or null if instrumentation is disabled.
+	private EvolutionMetrics metrics;
+
 	public GeneticAlgorithm(String[] inputs, boolean[] expected) {
+		this(TrainingSet.encode(inputs, expected, DFA.DEFAULT_ALPHABET_SIZE), DFA.DEFAULT_STATE_COUNT,
+				new SplitMixRandom());
+	}
+
+	// Create a genetic algorithm whose random choices are all derived from the given seed.
+	public GeneticAlgorithm(TrainingSet examples, long seed) {
+		this(examples, DFA.DEFAULT_STATE_COUNT, seed);
+	}
+
+	// Create a genetic algorithm evolving DFAs with the given number of states over the alphabet of the examples.
+	public GeneticAlgorithm(TrainingSet examples, int stateCount, long seed) {
+		this(examples, stateCount, new SplitMixRandom(seed));
+		this.seed = seed;
+	}
+
+	/*
+	 * Create a genetic algorithm whose training examples are streamed from a
+	 * memory-mapped file. Options that need the examples in memory (trie,
+	 * incremental, and bounded evaluation, the fitness cache, and the packed
+	 * population) are not available. The examples stay open until the caller
+	 * closes them.
+	 */
+	public GeneticAlgorithm(MappedTrainingSet examples, int stateCount, long seed) {
+		this(null, examples, stateCount, examples.getAlphabetSize(), new SplitMixRandom(seed));
+		this.seed = seed;
+	}
+
+	/*
+	 * Create a genetic algorithm that makes all its random choices with the
+	 * given generator, which only this algorithm's thread may use.
+	 */
+	GeneticAlgorithm(TrainingSet examples, int stateCount, Random rand) {
+		this(examples, null, stateCount, examples.getAlphabetSize(), rand);
+	}
+
+	private GeneticAlgorithm(TrainingSet examples, MappedTrainingSet mappedExamples, int stateCount,
+			int alphabetSize, Random rand) {
+		DFA.checkDimensions(stateCount, alphabetSize);
+
+		this.examples = examples;
+		this.mappedExamples = mappedExamples;
+		this.stateCount = stateCount;
+		this.alphabetSize = alphabetSize;
+		this.rand = rand;
 		initializePopulation();
-		rand = new Random();
+		evaluator = new SequentialEvaluator();
+		selection = new RouletteSelection();
 		
 		avgFitnessOverEpochs = new ArrayList<>();
 		bestFitnessOverEpochs = new ArrayList<>();
-		
-		this.inputs = inputs;
-		this.expected = expected;
 	}
 
 	// Create the initial population of random DFAs.
 	private void initializePopulation() {
 		population = new ArrayList<>();
 
-		for (int i = 0; i < POPULATION_SIZE; i++) {
-			population.add(new DFA());
+		for (int i = 0; i < populationSize; i++) {
+			population.add(new DFA(stateCount, alphabetSize, rand));
 		}
 	}
 
 	// Calculate the fitness of each DFA in the population.
-	private void calculatePopulationFitness() {
-		// Calculate the fitness of each DFA in the population.
+	void calculatePopulationFitness() {
+		// Only DFAs that changed since their last evaluation need their fitness calculated.
+		dirtyPopulation.clear();
+
 		for (DFA dfa : population) {
-			dfa.calculateFitness(inputs, expected);
+			if (dfa.isDirty()) {
+				dirtyPopulation.add(dfa);
+			}
 		}
 
-		// Sort in decreasing order of fitness.
-		population.sort(new FitnessComparator());
+		skippedEvaluations += population.size() - dirtyPopulation.size();
+
+		// Calculate the fitness of each changed DFA in the population.
+		TrainingSet scored = (miniBatch != null) ? miniBatch : examples;
+		long start = (metrics != null) ? System.nanoTime() : 0;
+		long cacheHits = (fitnessCache != null) ? fitnessCache.getHits() : 0;
+
+		if (mappedExamples != null) {
+			try {
+				mappedExamples.evaluate(dirtyPopulation);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else if (fitnessCache != null) {
+			fitnessCache.evaluate(dirtyPopulation, scored, evaluator, cutoff);
+		} else {
+			evaluator.evaluate(dirtyPopulation, scored, cutoff);
+		}
+
+		if (metrics != null) {
+			start = metrics.record(EvolutionMetrics.Measure.EVALUATE, start);
+			countEvaluations(scored, (fitnessCache != null) ? fitnessCache.getHits() - cacheHits : 0);
+		}
+
+		rankPopulation();
+
+		if (metrics != null) {
+			metrics.record(EvolutionMetrics.Measure.SORT, start);
+		}
+
+		if (scored != null && scored.getTraceBudget() > 0) {
+			traceElites(scored);
+		}
+
+		if (scored != null && scored.getCompiler() != null) {
+			compileElites();
+		}
 	}
 
 	/*
-	 * Implementation of roulette selection for choosing a DFA in the
-	 * population. DFAs with higher fitness are selected more often.
+	 * Let the elites of the ranked population keep an EvaluationTrace each,
+	 * as far as the trace budget of the examples allows, best first. Elites
+	 * are the only DFAs that survive into the next generation to be mutated
+	 * and scored again, so traces of other DFAs would never be used. Every
+	 * other DFA gives up its trace, so the traces of the whole population
+	 * never take more than the budget. The traces are recorded when the
+	 * elites are next scored, so they cost no separate evaluation.
 	 */
-	private DFA rouletteSelect() {
-		// Calculate the sum of all the fitnesses of the DFAs.
-		double fitnessSum = 0;
+	private void traceElites(TrainingSet scored) {
+		long traced = Math.min(elitismOffset, scored.getTraceBudget() / EvaluationTrace.bytesFor(scored, stateCount));
 
-		for (DFA dfa : population) {
-			fitnessSum += dfa.getFitness();
+		for (int i = 0; i < population.size(); i++) {
+			population.get(i).keepTrace(i < traced);
+		}
+	}
+
+	/*
+	 * Let only the elites of the ranked population be scored through their
+	 * compiled forms. An elite is compiled once when it is next scored after a
+	 * mutation, and its compiled form is reused while it stays an elite.
+	 * Crossover children are mostly discarded after one evaluation, so they
+	 * run from their transition tables instead of paying for a compilation
+	 * and evicting the elites from the compiler's cache.
+	 */
+	private void compileElites() {
+		for (int i = 0; i < population.size(); i++) {
+			population.get(i).keepCompiled(i < elitismOffset);
 		}
+	}
 
-		double value = rand.nextDouble();
-		double threshold = 0;
+	/*
+	 * Move the elites of the population, and at least its best DFA, to the
+	 * front in decreasing order of fitness, and calculate its average fitness
+	 * in the same pass. The rest of the population only needs ranking too if
+	 * the selection strategy depends on the order; otherwise the elites are
+	 * found by quickselect in O(n). DFAs cut off by bounded evaluation only
+	 * have a lower bound on their fitness, so they are left out of the average.
+	 */
+	void rankPopulation() {
+		int size = population.size();
 
-		for (DFA dfa : population) {
-			threshold += dfa.getFitness() / fitnessSum;
+		if (rankOrder.length < size) {
+			rankFitness = new double[size];
+			rankOrder = new int[size];
+			unranked = new DFA[size];
+		}
+
+		double fitnessSum = 0;
+		int exactCount = 0;
 
-			// Choose the DFA if the value is less than the current threshold.
-			if (value <= threshold) {
-				return dfa;
+		for (int i = 0; i < size; i++) {
+			DFA dfa = population.get(i);
+
+			unranked[i] = dfa;
+			rankFitness[i] = dfa.getFitness();
+			rankOrder[i] = i;
+
+			if (dfa.isFitnessExact()) {
+				fitnessSum += rankFitness[i];
+				exactCount++;
 			}
 		}
 
-		return null;
+		avgFitness = (exactCount > 0) ? fitnessSum / exactCount : 0;
+
+		if (selection.needsRanking()) {
+			FitnessRanking.sort(rankFitness, rankOrder, 0, size - 1);
+		} else {
+			FitnessRanking.rankTop(rankFitness, rankOrder, size, Math.max(1, elitismOffset));
+		}
+
+		for (int i = 0; i < size; i++) {
+			population.set(i, unranked[rankOrder[i]]);
+		}
+	}
+
+	// Count the evaluations of the DFAs just scored on the examples, of which cacheHits were cache hits.
+	private void countEvaluations(TrainingSet scored, long cacheHits) {
+		long evaluated = dirtyPopulation.size() - cacheHits;
+
+		metrics.count(EvolutionMetrics.Measure.EVALUATIONS, evaluated);
+		metrics.count(EvolutionMetrics.Measure.SKIPPED_EVALUATIONS, population.size() - dirtyPopulation.size());
+
+		if (fitnessCache != null) {
+			metrics.count(EvolutionMetrics.Measure.CACHE_HITS, cacheHits);
+			metrics.count(EvolutionMetrics.Measure.CACHE_LOOKUPS, dirtyPopulation.size());
+		}
+
+		// Memory-mapped examples are not in memory to count their symbols.
+		if (scored != null) {
+			metrics.count(EvolutionMetrics.Measure.TRANSITIONS, evaluated * scored.getSymbols().length);
+		}
+	}
+
+	// Prepare the selection strategy for the current population, as ranked by rankPopulation().
+	void prepareSelection() {
+		if (selectionFitness == null || selectionFitness.length < population.size()) {
+			selectionFitness = new double[population.size()];
+		}
+
+		for (int i = 0; i < population.size(); i++) {
+			selectionFitness[i] = population.get(i).getFitness();
+		}
+
+		selection.prepare(selectionFitness, population.size());
+	}
+
+	/*
+	 * Choose a DFA in the population using the selection strategy prepared by
+	 * prepareSelection(). DFAs with higher fitness are selected more often.
+	 */
+	DFA select() {
+		return population.get(selection.select(rand));
 	}
 
 	// Create a new child DFA from the crossover of two parent DFAs.
-	private DFA crossover(DFA first, DFA second) {
+	DFA crossover(DFA first, DFA second) {
+		int stateCount = first.getStateCount();
+		int alphabetSize = first.getAlphabetSize();
+
 		// Attributes of the new child DFA being created.
-		int[][] childDelta = new int[DFA.STATE_COUNT][DFA.ALPHABET_SIZE];
-		boolean[] childAcceptStates = new boolean[DFA.STATE_COUNT];
+		TransitionTable childDelta = TransitionTable.create(stateCount, alphabetSize);
+		long[] childAcceptMask = new long[first.getAcceptMask().length];
 		int childStartState = 0;
 
-		Random rand = new Random();
-
 		// Calculate an arbitrary crossover point for the delta function.
-		int crossoverRow = rand.nextInt(DFA.STATE_COUNT);
-		int crossoverCol = rand.nextInt(DFA.ALPHABET_SIZE);
+		int crossoverRow = rand.nextInt(stateCount);
+		int crossoverCol = rand.nextInt(alphabetSize);
+
+		TransitionTable firstDelta = first.getDelta();
+		TransitionTable secondDelta = second.getDelta();
+
+		for (int y = 0; y < stateCount; y++) {
+			for (int x = 0; x < alphabetSize; x++) {
+				int index = y * alphabetSize + x;
 
-		for (int y = 0; y < DFA.STATE_COUNT; y++) {
-			for (int x = 0; x < DFA.ALPHABET_SIZE; x++) {
 				// Choose the child's delta from either the first or second parent.
 				if (y >= crossoverRow && x >= crossoverCol) {
 					// If after the crossover point, use the second parent's delta function.
-					childDelta[y][x] = second.getDelta()[y][x];
+					childDelta.set(index, secondDelta.get(index));
 				} else {
 					// If before the crossover point, use the first parent's delta function.
-					childDelta[y][x] = first.getDelta()[y][x];
+					childDelta.set(index, firstDelta.get(index));
 				}
 			}
 		}
 
 		// Calculate an arbitrary crossover point for the accept states.
-		int acceptCrossover = rand.nextInt(DFA.STATE_COUNT);
+		int acceptCrossover = rand.nextInt(stateCount);
 
-		for (int i = 0; i < DFA.STATE_COUNT; i++) {
-			if (i >= acceptCrossover) {
-				childAcceptStates[i] = second.getAcceptStates()[i];
-			} else {
-				childAcceptStates[i] = first.getAcceptStates()[i];
+		for (int i = 0; i < stateCount; i++) {
+			boolean accept = (i >= acceptCrossover) ? second.isAcceptState(i) : first.isAcceptState(i);
+
+			if (accept) {
+				childAcceptMask[i >>> 6] |= 1L << i;
 			}
 		}
 
@@ -138,75 +419,861 @@ public class GeneticAlgorithm {
 		}
 
 		// Create the new child DFA.
-		return new DFA(childDelta, childAcceptStates, childStartState);
+		return new DFA(childDelta, childAcceptMask, childStartState);
 	}
 
-	// Calculate the average fitness of the entire population.
-	private double calculateAvgFitness() {
-		double fitnessSum = 0;
+	// Run the genetic algorithm and return the best DFA.
+	public DFA runEpochs() {
+		if (packed) {
+			return runPackedEpochs();
+		}
+
+		while (currentEpoch < maxEpochs && !cancelled) {
+			// The optimal DFA has been created, so the algorithm can be terminated.
+			if (runEpoch()) {
+				break;
+			}
+
+			if (checkpointer != null && currentEpoch % checkpointInterval == 0) {
+				checkpoint();
+			}
+		}
+
+		// Return the best DFA of the final population, or on all training examples when scoring on mini-batches.
+		return getBest();
+	}
+	
+	/*
+	 * Run a single epoch: evaluate the current population and, unless it
+	 * contains an optimal DFA, replace it with the next generation. Returns
+	 * true if an optimal DFA was found.
+	 */
+	boolean runEpoch() {
+		if (metrics == null) {
+			return evolveEpoch();
+		}
+
+		metrics.startEpoch();
+		boolean solved = evolveEpoch();
+		metrics.endEpoch();
+		return solved;
+	}
+
+	private boolean evolveEpoch() {
+		currentEpoch++;
+		Arrays.fill(mutatedElites, null);
+
+		if (miniBatchSize > 0 && (miniBatch == null || (currentEpoch - 1) % resampleInterval == 0)) {
+			resample();
+		}
+
+		calculatePopulationFitness();
+
+		// Log data regarding the best/average fitness of the current epoch's population.
+		avgFitnessOverEpochs.add(avgFitness);
+		bestFitnessOverEpochs.add(population.get(0).getFitness());
+
+		if (epochListener != null) {
+			epochListener.epochCompleted(this);
+		}
+
+		if (miniBatchSize > 0) {
+			// A perfect score on the mini-batch must be confirmed on all training examples.
+			if (population.get(0).getFitness() == 1.0 || currentEpoch % validationInterval == 0
+					|| currentEpoch >= maxEpochs) {
+				validateElites();
+			}
+
+			if (validatedBest != null && validatedBest.getFitness() == 1.0) {
+				return true;
+			}
+		} else if (population.get(0).getFitness() == 1.0) {
+			return true;
+		}
+
+		if (boundedEvaluation) {
+			updateCutoff();
+		}
+
+		List<DFA> nextPopulation = new ArrayList<>();
+
+		// Add the best DFAs of the current population to the next population.
+		for (int i = 0; i < elitismOffset; i++) {
+			nextPopulation.add(population.get(i));
+		}
+
+		if (metrics != null) {
+			breedMeasured(nextPopulation);
+		} else {
+			prepareSelection();
+
+			// Add children of DFAs chosen via selection to the next population.
+			for (int i = 0; i < populationSize - elitismOffset; i++) {
+				nextPopulation.add(crossover(select(), select()));
+			}
+
+			mutate(nextPopulation);
+		}
+
+		// Replace the old population with the newly created one.
+		population = nextPopulation;
+		return false;
+	}
+
+	/*
+	 * Fill the next population as runEpoch() does, making the same random
+	 * choices in the same order, while timing selection, crossover and mutation.
+	 */
+	private void breedMeasured(List<DFA> nextPopulation) {
+		long start = System.nanoTime();
+		prepareSelection();
+		start = metrics.record(EvolutionMetrics.Measure.SELECT, start);
+
+		for (int i = 0; i < populationSize - elitismOffset; i++) {
+			DFA first = select();
+			DFA second = select();
+			start = metrics.record(EvolutionMetrics.Measure.SELECT, start);
+
+			nextPopulation.add(crossover(first, second));
+			start = metrics.record(EvolutionMetrics.Measure.CROSSOVER, start);
+		}
+
+		mutate(nextPopulation);
+		metrics.record(EvolutionMetrics.Measure.MUTATE, start);
+	}
+
+	/*
+	 * There is a possibility of mutating DFAs in the next population. The
+	 * elites at its front are mutated in place, so a copy of each one as it
+	 * was evaluated is kept for getElites(...) and getBest().
+	 */
+	private void mutate(List<DFA> nextPopulation) {
+		if (mutatedElites.length < elitismOffset) {
+			mutatedElites = new DFA[elitismOffset];
+		}
+
+		for (int i = 0; i < nextPopulation.size(); i++) {
+			if (rand.nextDouble() <= mutationRate) {
+				DFA dfa = nextPopulation.get(i);
+
+				if (i < elitismOffset) {
+					mutatedElites[i] = new DFA(dfa);
+				}
+
+				dfa.mutate(rand);
+			}
+		}
+	}
+
+	/*
+	 * Prepare bounded evaluation of the next generation, using the current
+	 * population, whose elites have just been ranked by decreasing fitness.
+	 *
+	 * A DFA of the next generation that cannot reach the fitness of the
+	 * current worst elite cannot displace any elite, so its evaluation may stop
+	 * as soon as that is certain. Its fitness is then the lower bound given by
+	 * the examples it ran, which is below the cut-off: it ranks below every
+	 * DFA that reached the cut-off, so elitism and termination, which only
+	 * look at DFAs with an exact fitness, behave as before, and selection never
+	 * weighs it above what it is known to score. The average fitness statistic
+	 * leaves such DFAs out.
+	 */
+	private void updateCutoff() {
+		cutoff = (elitismOffset > 0) ? population.get(elitismOffset - 1).getFitness() : 0;
+
+		// Periodically move the examples the elites still get wrong to the front.
+		if (elitismOffset > 0 && currentEpoch % REORDER_INTERVAL == 1) {
+			if (miniBatch != null) {
+				miniBatch = miniBatch.orderedBy(population.subList(0, elitismOffset));
+			} else {
+				examples = examples.orderedBy(population.subList(0, elitismOffset));
+			}
+		}
+	}
+
+	/*
+	 * Draw the next mini-batch: the next window of a shuffled order of the
+	 * training examples, reshuffled once every example has been used, so that
+	 * all examples are scored on equally often. The fitness of the population
+	 * on the previous mini-batch is not comparable, so every DFA is scored again.
+	 */
+	private void resample() {
+		int batchSize = Math.min(miniBatchSize, examples.size());
+
+		if (sampleOrder == null || sampleOrder.length != examples.size()) {
+			sampleOrder = new int[examples.size()];
+
+			for (int i = 0; i < sampleOrder.length; i++) {
+				sampleOrder[i] = i;
+			}
+
+			sampleCursor = sampleOrder.length;
+		}
+
+		if (sampleCursor + batchSize > sampleOrder.length) {
+			// Fisher-Yates shuffle.
+			for (int i = sampleOrder.length - 1; i > 0; i--) {
+				int j = rand.nextInt(i + 1);
+				int swap = sampleOrder[i];
+				sampleOrder[i] = sampleOrder[j];
+				sampleOrder[j] = swap;
+			}
+
+			sampleCursor = 0;
+		}
+
+		miniBatch = examples.subset(sampleOrder, sampleCursor, sampleCursor + batchSize);
+		sampleCursor += batchSize;
+		cutoff = 0;
 
 		for (DFA dfa : population) {
-			fitnessSum += dfa.getFitness();
+			dfa.markDirty();
 		}
+	}
 
-		return fitnessSum / POPULATION_SIZE;
+	/*
+	 * Score copies of the elites of the current population, which have just
+	 * been ranked by decreasing mini-batch fitness, on all training examples
+	 * and keep the best one seen so far.
+	 */
+	private void validateElites() {
+		List<DFA> elites = new ArrayList<>();
+
+		for (int i = 0; i < Math.max(1, elitismOffset) && i < population.size(); i++) {
+			DFA elite = new DFA(population.get(i));
+			elite.keepCompiled(true);
+			elites.add(elite);
+		}
+
+		// The copies are scored once, so they need no trace for incremental evaluation.
+		long start = (metrics != null) ? System.nanoTime() : 0;
+		evaluator.evaluate(elites, examples.withoutTrie().withTraceBudget(0));
+
+		if (metrics != null) {
+			metrics.record(EvolutionMetrics.Measure.EVALUATE, start);
+			metrics.count(EvolutionMetrics.Measure.TRANSITIONS, elites.size() * (long) examples.getSymbols().length);
+		}
+
+		for (DFA elite : elites) {
+			if (validatedBest == null || elite.getFitness() > validatedBest.getFitness()) {
+				validatedBest = elite;
+			}
+		}
 	}
 
-	// Run the genetic algorithm and return the best DFA.
-	public DFA runEpochs() {
-		double bestFitness = 0;
+	/*
+	 * Run the genetic algorithm on a PackedPopulation and return the best DFA.
+	 * The whole population lives in primitive arrays that are reused every
+	 * epoch, so only the final population is turned into DFA objects.
+	 */
+	private DFA runPackedEpochs() {
+		PackedPopulation packedPopulation = new PackedPopulation(populationSize, stateCount, alphabetSize);
+		packedPopulation.randomize(rand);
 
-		while (bestFitness != 1.0 && currentEpoch <= MAX_EPOCHS) {
+		while (currentEpoch < maxEpochs && !cancelled) {
 			currentEpoch++;
 
-			calculatePopulationFitness();
+			long start = 0;
+
+			if (metrics != null) {
+				metrics.startEpoch();
+				start = System.nanoTime();
+			}
+
+			packedPopulation.evaluate(examples);
+
+			if (metrics != null) {
+				start = metrics.record(EvolutionMetrics.Measure.EVALUATE, start);
+				metrics.count(EvolutionMetrics.Measure.EVALUATIONS, populationSize);
+				metrics.count(EvolutionMetrics.Measure.TRANSITIONS, populationSize * (long) examples.getSymbols().length);
+			}
+
+			packedPopulation.rank(selection.needsRanking() ? populationSize : Math.max(1, elitismOffset));
+
+			if (metrics != null) {
+				start = metrics.record(EvolutionMetrics.Measure.SORT, start);
+			}
 
 			// Log data regarding the best/average fitness of the current epoch's population.
-			avgFitnessOverEpochs.add(calculateAvgFitness());
-			bestFitnessOverEpochs.add(population.get(0).getFitness());
+			double fitnessSum = 0;
+
+			for (int i = 0; i < populationSize; i++) {
+				fitnessSum += packedPopulation.getFitness(i);
+			}
+
+			double bestFitness = packedPopulation.getFitness(packedPopulation.getRanked(0));
+
+			avgFitnessOverEpochs.add(fitnessSum / populationSize);
+			bestFitnessOverEpochs.add(bestFitness);
+
+			if (epochListener != null) {
+				epochListener.epochCompleted(this);
+			}
 
 			// The optimal DFA has been created, so the algorithm can be terminated.
-			if (population.get(0).getFitness() == 1.0) {
+			if (bestFitness == 1.0) {
+				if (metrics != null) {
+					metrics.endEpoch();
+				}
+
 				break;
 			}
 
-			List<DFA> nextPopulation = new ArrayList<>();
+			// Carry the best DFAs of the current population over to the next population.
+			for (int i = 0; i < elitismOffset; i++) {
+				packedPopulation.copyToNext(packedPopulation.getRanked(i), i);
+			}
 
-			// Add the best DFAs of the current population to the next population.
-			for (int i = 0; i < ELITISM_OFFSET; i++) {
-				nextPopulation.add(population.get(i));
+			if (metrics != null) {
+				start = System.nanoTime();
 			}
 
-			// Add children of DFAs chosen via roulette selection to the next population.
-			for (int i = 0; i < POPULATION_SIZE - ELITISM_OFFSET; i++) {
-				nextPopulation.add(crossover(rouletteSelect(), rouletteSelect()));
+			packedPopulation.prepareSelection(selection);
+
+			if (metrics != null) {
+				start = metrics.record(EvolutionMetrics.Measure.SELECT, start);
+			}
+
+			// Fill the rest of the next population with children of DFAs chosen via selection.
+			for (int i = elitismOffset; i < populationSize; i++) {
+				int first = packedPopulation.select(selection, rand);
+				int second = packedPopulation.select(selection, rand);
+
+				if (metrics != null) {
+					start = metrics.record(EvolutionMetrics.Measure.SELECT, start);
+				}
+
+				packedPopulation.crossover(first, second, i, rand);
+
+				if (metrics != null) {
+					start = metrics.record(EvolutionMetrics.Measure.CROSSOVER, start);
+				}
 			}
 
 			// There is a possibility of mutating DFAs in the next population.
-			for (DFA dfa : nextPopulation) {
-				if (rand.nextDouble() <= MUTATION_RATE) {
-					dfa.mutate();
+			for (int i = 0; i < populationSize; i++) {
+				if (rand.nextDouble() <= mutationRate) {
+					packedPopulation.mutateNext(i, rand);
 				}
 			}
 
-			// Replace the old population with the newly created one.
-			population = nextPopulation;
+			packedPopulation.swap();
+
+			if (metrics != null) {
+				metrics.record(EvolutionMetrics.Measure.MUTATE, start);
+				metrics.endEpoch();
+			}
 		}
 
 		// Return the best DFA of the final population.
-		population.sort(new FitnessComparator());
+		population = packedPopulation.toDFAs();
 		return population.get(0);
 	}
+
+	/*
+	 * Choose whether DFAs are evaluated by walking a prefix trie over the
+	 * training inputs, simulating each shared prefix once per DFA.
+	 */
+	public void setTrieEvaluation(boolean trieEvaluation) {
+		requireInMemoryExamples(trieEvaluation, "Trie evaluation");
+		if (mappedExamples == null) {
+			examples = trieEvaluation ? examples.withTrie() : examples.withoutTrie();
+		}
+
+		if (miniBatch != null) {
+			miniBatch = trieEvaluation ? miniBatch.withTrie() : miniBatch.withoutTrie();
+		}
+	}
+
+	/*
+	 * Return copies of up to count elites of the last evaluated generation, at
+	 * most the elitism offset, as they were when they were scored. Between
+	 * epochs the elites at the front of the population may already have been
+	 * mutated for the next generation, and their fitness is then stale.
+	 */
+	public List<DFA> getElites(int count) {
+		List<DFA> elites = new ArrayList<>();
+
+		for (int i = 0; i < Math.min(count, Math.min(elitismOffset, population.size())); i++) {
+			DFA elite = (i < mutatedElites.length && mutatedElites[i] != null) ? mutatedElites[i] : population.get(i);
+			elites.add(new DFA(elite));
+		}
+
+		return elites;
+	}
+
+	/*
+	 * Replace the DFAs at the end of the population, which are children that
+	 * have not been evaluated yet, with DFAs from elsewhere. When scoring on
+	 * mini-batches, the fitness an immigrant brings was measured on another
+	 * algorithm's mini-batch, so it is marked dirty to be scored on this one's.
+	 */
+	public void immigrate(List<DFA> immigrants) {
+		int count = Math.min(immigrants.size(), population.size() - elitismOffset);
+
+		for (int i = 0; i < count; i++) {
+			DFA immigrant = immigrants.get(i);
+
+			if (miniBatchSize > 0) {
+				immigrant.markDirty();
+			}
+
+			population.set(population.size() - 1 - i, immigrant);
+		}
+	}
+
+	/*
+	 * Return the best DFA of the population as of the last evaluated epoch.
+	 * When scoring on mini-batches, this is the best DFA so far by its fitness
+	 * on all training examples.
+	 */
+	public DFA getBest() {
+		if (miniBatchSize > 0) {
+			if (validatedBest == null) {
+				validateElites();
+			}
+
+			return validatedBest;
+		}
+
+		// DFAs changed since they were scored have a stale fitness, but the elites were copied before mutation.
+		DFA best = null;
+
+		for (DFA dfa : population) {
+			if (!dfa.isDirty() && (best == null || dfa.getFitness() > best.getFitness())) {
+				best = dfa;
+			}
+		}
+
+		for (DFA elite : mutatedElites) {
+			if (elite != null && (best == null || elite.getFitness() > best.getFitness())) {
+				best = elite;
+			}
+		}
+
+		return (best != null) ? best : population.get(0);
+	}
+
+	/*
+	 * Compile the elites into CompiledDFAs to score them, keeping up to
+	 * capacity compiled DFAs so each elite is only compiled once; other DFAs
+	 * run from their transition tables. Compiling pays off on large training
+	 * sets, where it takes much less time than the evaluation it speeds up. It has no effect with trie or incremental evaluation, or on
+	 * the packed population. A capacity of 0 disables compilation.
+	 */
+	public void setCompiledEvaluation(int capacity) {
+		requireInMemoryExamples(capacity > 0, "Compiled evaluation");
+		DFACompiler compiler = (capacity > 0) ? new DFACompiler(capacity) : null;
+
+		if (mappedExamples == null) {
+			examples = examples.withCompiler(compiler);
+		}
+
+		if (miniBatch != null) {
+			miniBatch = miniBatch.withCompiler(compiler);
+		}
+	}
+
+	/*
+	 * Cache up to capacity fitness values by the canonical form of each DFA, so
+	 * DFAs recognizing a language that was already scored are not evaluated
+	 * again. A capacity of 0 disables the cache.
+	 */
+	public void setFitnessCache(int capacity) {
+		requireInMemoryExamples(capacity > 0, "The fitness cache");
+		fitnessCache = (capacity > 0) ? new FitnessCache(capacity) : null;
+	}
+
+	// Returns the fitness cache, or null if it is disabled.
+	public FitnessCache getFitnessCache() {
+		return fitnessCache;
+	}
+
+	public SelectionMode getSelectionMode() {
+		return selectionMode;
+	}
+
+	// Choose how parents are selected for the next generation.
+	public void setSelectionMode(SelectionMode selectionMode) {
+		this.selectionMode = selectionMode;
+		selection = selectionMode.createStrategy();
+	}
+
+	/*
+	 * Let the elites keep traces of how they ran on the training examples,
+	 * taking up to maxTraceBytes together, so that after a mutation only the
+	 * affected examples are simulated again. A budget of 0 disables
+	 * incremental evaluation.
+	 */
+	public void setIncrementalEvaluation(long maxTraceBytes) {
+		requireInMemoryExamples(maxTraceBytes > 0, "Incremental evaluation");
+		if (mappedExamples == null) {
+			examples = examples.withTraceBudget(maxTraceBytes);
+		}
+
+		if (miniBatch != null) {
+			miniBatch = miniBatch.withTraceBudget(maxTraceBytes);
+		}
+	}
+
+	/*
+	 * Choose whether the evaluation of a DFA may stop early once it can no
+	 * longer reach the fitness of the previous generation's worst elite.
+	 */
+	public void setBoundedEvaluation(boolean boundedEvaluation) {
+		requireInMemoryExamples(boundedEvaluation, "Bounded evaluation");
+		this.boundedEvaluation = boundedEvaluation;
+		cutoff = 0;
+	}
+
+	// Choose whether the population is stored in a PackedPopulation rather than as a list of DFAs.
+	public void setPackedPopulation(boolean packed) {
+		requireInMemoryExamples(packed, "The packed population");
+
+		if (packed && miniBatchSize > 0) {
+			throw new IllegalStateException("The packed population cannot be scored on mini-batches.");
+		}
+
+		if (packed && checkpointer != null) {
+			throw new IllegalStateException("The packed population cannot be checkpointed.");
+		}
+
+		this.packed = packed;
+	}
+
+	/*
+	 * Score each epoch on a mini-batch of batchSize training examples, drawing
+	 * a new mini-batch every resampleInterval epochs, so the cost of an epoch
+	 * grows with the batch size rather than the training set size. Every
+	 * validationInterval epochs, and whenever a DFA scores 1.0 on the
+	 * mini-batch, the elites are scored on all training examples; the
+	 * algorithm only stops on a DFA that is correct on all of them. The
+	 * recorded fitness statistics are mini-batch fitness. A batch size of 0
+	 * scores every epoch on all training examples.
+	 */
+	public void setMiniBatch(int batchSize, int resampleInterval, int validationInterval) {
+		requireInMemoryExamples(batchSize > 0, "Mini-batch evaluation");
+
+		if (batchSize > 0 && packed) {
+			throw new IllegalStateException("The packed population cannot be scored on mini-batches.");
+		}
+
+		if (resampleInterval < 1 || validationInterval < 1) {
+			throw new IllegalArgumentException("The resample and validation intervals must be at least 1.");
+		}
+
+		miniBatchSize = batchSize;
+		this.resampleInterval = resampleInterval;
+		this.validationInterval = validationInterval;
+		miniBatch = null;
+		validatedBest = null;
+	}
+
+	/*
+	 * Write a checkpoint of the run to the file every interval epochs, from
+	 * which resume(...) continues the run exactly as if it had never stopped.
+	 * The checkpoint is encoded between epochs and written in the background.
+	 */
+	public void setCheckpointing(Path file, int interval) {
+		requireInMemoryExamples(true, "Checkpointing");
+
+		if (packed) {
+			throw new IllegalStateException("The packed population cannot be checkpointed.");
+		}
+
+		if (interval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be at least 1.");
+		}
+
+		if (checkpointer != null) {
+			checkpointer.close();
+		}
+
+		checkpointer = new Checkpointer(file);
+		checkpointInterval = interval;
+	}
+
+	// Encode the complete state of the run and queue it to be written.
+	private void checkpoint() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			writeCheckpoint(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		checkpointer.submit(bytes.toByteArray());
+	}
+
+	/*
+	 * Checkpoint layout (big-endian): MAGIC, VERSION, the seed of the run if
+	 * it has one, the settings of the algorithm and the dimensions of its DFAs, the size of the training set,
+	 * the epoch counter, the bounded evaluation and mini-batch state, the
+	 * random number generator, the fitness history, and the population.
+	 */
+	private void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeInt(Checkpointer.MAGIC);
+		out.writeInt(Checkpointer.VERSION);
+		out.writeBoolean(seed != null);
+		out.writeLong((seed != null) ? seed : 0);
+
+		out.writeInt(populationSize);
+		out.writeInt(elitismOffset);
+		out.writeDouble(mutationRate);
+		out.writeInt(maxEpochs);
+		out.writeInt(stateCount);
+		out.writeInt(alphabetSize);
+		out.writeUTF(selectionMode.name());
+
+		out.writeInt(examples.size());
+		out.writeInt(examples.getSymbols().length);
+
+		out.writeInt(currentEpoch);
+		out.writeLong(skippedEvaluations);
+
+		out.writeBoolean(boundedEvaluation);
+		out.writeDouble(cutoff);
+		Checkpointer.writeInts(out, examples.getOrder());
+
+		out.writeInt(miniBatchSize);
+		out.writeInt(resampleInterval);
+		out.writeInt(validationInterval);
+		Checkpointer.writeInts(out, sampleOrder);
+		out.writeInt(sampleCursor);
+		out.writeBoolean(miniBatch != null);
+		Checkpointer.writeInts(out, (miniBatch != null) ? miniBatch.getOrder() : null);
+		out.writeBoolean(validatedBest != null);
+
+		if (validatedBest != null) {
+			Checkpointer.writeDFA(out, validatedBest);
+		}
+
+		Checkpointer.writeRandom(out, rand);
+
+		out.writeInt(avgFitnessOverEpochs.size());
+
+		for (int i = 0; i < avgFitnessOverEpochs.size(); i++) {
+			out.writeDouble(avgFitnessOverEpochs.get(i));
+			out.writeDouble(bestFitnessOverEpochs.get(i));
+		}
+
+		out.writeInt(population.size());
+
+		for (DFA dfa : population) {
+			Checkpointer.writeDFA(out, dfa);
+		}
+	}
+
+	/*
+	 * Continue a run from a checkpoint written by setCheckpointing(...) on the
+	 * same training examples. The settings, DFA dimensions, selection mode,
+	 * and bounded and mini-batch evaluation of the run are restored; options
+	 * that only affect speed, such as the evaluation mode, trie evaluation and
+	 * the fitness cache, are set on the returned algorithm as usual. Nothing
+	 * outside the returned algorithm is changed, so an invalid checkpoint
+	 * leaves no trace.
+	 */
+	public static GeneticAlgorithm resume(Path file, TrainingSet examples) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Checkpointer.read(file)))) {
+			Long seed = readSeed(in, file);
+			int populationSize = in.readInt();
+			int elitismOffset = in.readInt();
+			double mutationRate = in.readDouble();
+			int maxEpochs = in.readInt();
+			int stateCount = in.readInt();
+			int alphabetSize = in.readInt();
+			SelectionMode selectionMode;
+
+			// The training examples have already been encoded into symbols of their alphabet.
+			if (alphabetSize != examples.getAlphabetSize()) {
+				throw new IOException(file + " was written for an alphabet of " + alphabetSize + " symbols.");
+			}
+
+			try {
+				DFA.checkDimensions(stateCount, alphabetSize);
+				selectionMode = SelectionMode.valueOf(in.readUTF());
+			} catch (IllegalArgumentException e) {
+				throw new IOException(file + " holds invalid settings: " + e.getMessage(), e);
+			}
+
+			if (in.readInt() != examples.size() || in.readInt() != examples.getSymbols().length) {
+				throw new IOException(file + " was written for a different training set.");
+			}
+
+			// The population and random number generator are replaced below.
+			GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, stateCount, new SplitMixRandom(0));
+			algorithm.populationSize = populationSize;
+			algorithm.elitismOffset = elitismOffset;
+			algorithm.mutationRate = mutationRate;
+			algorithm.maxEpochs = maxEpochs;
+			algorithm.setSelectionMode(selectionMode);
+
+			algorithm.currentEpoch = in.readInt();
+			algorithm.skippedEvaluations = in.readLong();
+
+			algorithm.boundedEvaluation = in.readBoolean();
+			algorithm.cutoff = in.readDouble();
+			algorithm.examples = examples.withOrder(Checkpointer.readInts(in));
+
+			algorithm.miniBatchSize = in.readInt();
+			algorithm.resampleInterval = in.readInt();
+			algorithm.validationInterval = in.readInt();
+			algorithm.sampleOrder = Checkpointer.readInts(in);
+			algorithm.sampleCursor = in.readInt();
+			boolean hasMiniBatch = in.readBoolean();
+			int[] miniBatchOrder = Checkpointer.readInts(in);
+
+			if (hasMiniBatch) {
+				// The current mini-batch is the window of the sample order just before the cursor.
+				int batchSize = Math.min(algorithm.miniBatchSize, examples.size());
+				algorithm.miniBatch = examples.subset(algorithm.sampleOrder, algorithm.sampleCursor - batchSize,
+						algorithm.sampleCursor).withOrder(miniBatchOrder);
+			}
+
+			if (in.readBoolean()) {
+				algorithm.validatedBest = readDFA(in, file, stateCount, alphabetSize);
+			}
+
+			algorithm.rand = Checkpointer.readRandom(in);
+			algorithm.seed = seed;
+
+			int epochs = in.readInt();
+
+			for (int i = 0; i < epochs; i++) {
+				algorithm.avgFitnessOverEpochs.add(in.readDouble());
+				algorithm.bestFitnessOverEpochs.add(in.readDouble());
+			}
+
+			int size = in.readInt();
+			algorithm.population = new ArrayList<>(size);
+
+			for (int i = 0; i < size; i++) {
+				algorithm.population.add(readDFA(in, file, stateCount, alphabetSize));
+			}
+
+			return algorithm;
+		} catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException(file + " is not a valid checkpoint.", e);
+		}
+	}
+
+	// Read a DFA of a checkpoint, which must have the dimensions of the run.
+	/*
+	 * Return the seed of the run in a checkpoint, or null if it was given a
+	 * generator instead, so that training examples generated from the seed
+	 * can be recreated before the run is resumed.
+	 */
+	public static Long readSeed(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			return readSeed(in, file);
+		}
+	}
+
+	// Check the start of a checkpoint and read the seed of its run.
+	private static Long readSeed(DataInputStream in, Path file) throws IOException {
+		if (in.readInt() != Checkpointer.MAGIC || in.readInt() != Checkpointer.VERSION) {
+			throw new IOException(file + " is not a version " + Checkpointer.VERSION + " checkpoint.");
+		}
+
+		boolean seeded = in.readBoolean();
+		long seed = in.readLong();
+		return seeded ? seed : null;
+	}
+
+	private static DFA readDFA(DataInputStream in, Path file, int stateCount, int alphabetSize) throws IOException {
+		DFA dfa = Checkpointer.readDFA(in);
+
+		if (dfa.getStateCount() != stateCount || dfa.getAlphabetSize() != alphabetSize) {
+			throw new IOException(file + " holds a DFA of different dimensions than the run.");
+		}
+
+		return dfa;
+	}
+
+	// Fail if an option that needs the training examples in memory is enabled with a mapped training set.
+	private void requireInMemoryExamples(boolean enabled, String option) {
+		if (enabled && mappedExamples != null) {
+			throw new IllegalStateException(option + " is not supported with a memory-mapped training set.");
+		}
+	}
 	
+	// Returns the seed all random choices are derived from, or null if the algorithm was given a generator.
+	public Long getSeed() {
+		return seed;
+	}
+
 	// Set various parameters of the genetic algorithm.
 	public void setSettings(int populationSize, int elitismOffset, double mutationRate, int epochs) {
-		POPULATION_SIZE = populationSize;
-		ELITISM_OFFSET = elitismOffset;
-		MUTATION_RATE = mutationRate;
-		MAX_EPOCHS = epochs;
+		this.populationSize = populationSize;
+		this.elitismOffset = elitismOffset;
+		this.mutationRate = mutationRate;
+		this.maxEpochs = epochs;
 		
 		initializePopulation();
 	}
+	
+	// Set the parameters of the genetic algorithm along with how the population's fitness is calculated.
+	public void setSettings(int populationSize, int elitismOffset, double mutationRate, int epochs,
+			EvaluationMode evaluationMode) {
+		setSettings(populationSize, elitismOffset, mutationRate, epochs);
+		setEvaluationMode(evaluationMode);
+	}
+
+	// Choose how the population's fitness is calculated.
+	public void setEvaluationMode(EvaluationMode evaluationMode) {
+		// Release the threads of the evaluator being replaced.
+		evaluator.shutdown();
+		evaluator = evaluationMode.createEvaluator();
+	}
+	
+	/*
+	 * Start measuring where each epoch spends its time (see EvolutionMetrics)
+	 * and return the measurements. Without this call the algorithm only pays
+	 * for a null check per phase.
+	 */
+	public EvolutionMetrics enableMetrics() {
+		if (metrics == null) {
+			metrics = new EvolutionMetrics();
+		}
+
+		return metrics;
+	}
+
+	// Returns the measurements of the epochs, or null if they are not being measured.
+	public EvolutionMetrics getMetrics() {
+		return metrics;
+	}
+
+	// Be notified after every epoch, or stop being notified if the listener is null.
+	public void setEpochListener(EpochListener epochListener) {
+		this.epochListener = epochListener;
+	}
+
+	/*
+	 * Stop a run in progress on another thread after its current epoch.
+	 * runEpochs() then returns the best DFA found so far.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	// Release any threads used by the algorithm once it is no longer needed.
+	public void shutdown() {
+		evaluator.shutdown();
+
+		if (checkpointer != null) {
+			checkpointer.close();
+		}
+
+		if (metrics != null) {
+			metrics.unregister();
+		}
+	}
 
 	public List<Double> getAvgFitnessOverEpochs() {
 		return avgFitnessOverEpochs;
@@ -220,7 +1287,45 @@ public class GeneticAlgorithm {
 		return population;
 	}
 	
+	// Number of fitness evaluations skipped so far because a DFA had not changed since it was last evaluated.
+	public long getSkippedEvaluations() {
+		return skippedEvaluations;
+	}
+	
 	public int getCurrentEpoch() {
 		return currentEpoch;
 	}
+
+	public int getPopulationSize() {
+		return populationSize;
+	}
+
+	public int getElitismOffset() {
+		return elitismOffset;
+	}
+
+	public double getMutationRate() {
+		return mutationRate;
+	}
+
+	public int getMaxEpochs() {
+		return maxEpochs;
+	}
+
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public boolean isBoundedEvaluation() {
+		return boundedEvaluation;
+	}
+
+	// Number of examples scored per epoch, or 0 if every epoch scores all of them.
+	public int getMiniBatchSize() {
+		return miniBatchSize;
+	}
 }
@@ -0,0 +1,155 @@
+package genetic_automata;
+
+import java.util.Arrays;
+
+/*
+ * Canonical key of the language recognized by a DFA. The DFA is reduced to its
+ * reachable states, minimized, and renumbered in breadth-first order from the
+ * start state. Two DFAs therefore have equal keys exactly when they accept the
+ * same language, in which case they also have the same fitness.
+ */
+public final class GenomeKey {
+	// Number of states, followed by the delta function and the accept flags of the canonical DFA.
+	private final int[] data;
+	private final int hash;
+
+	private GenomeKey(int[] data) {
+		this.data = data;
+		this.hash = Arrays.hashCode(data);
+	}
+
+	// Compute the canonical key of the DFA.
+	public static GenomeKey of(DFA dfa) {
+		TransitionTable delta = dfa.getDelta();
+		int alphabetSize = delta.getAlphabetSize();
+
+		// Number the reachable states in breadth-first order from the start state.
+		int[] number = new int[delta.getStateCount()];
+		int[] states = new int[delta.getStateCount()];
+		Arrays.fill(number, -1);
+
+		number[dfa.getStartState()] = 0;
+		states[0] = dfa.getStartState();
+		int count = 1;
+
+		for (int i = 0; i < count; i++) {
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				int next = delta.get(states[i] * alphabetSize + symbol);
+
+				if (number[next] < 0) {
+					number[next] = count;
+					states[count++] = next;
+				}
+			}
+		}
+
+		// Moore's algorithm: start from accepting/rejecting blocks and split until stable.
+		int[] block = new int[count];
+		int blockCount = 0;
+		boolean acceptFirst = dfa.isAcceptState(states[0]);
+
+		for (int i = 0; i < count; i++) {
+			block[i] = (dfa.isAcceptState(states[i]) == acceptFirst) ? 0 : 1;
+			blockCount = Math.max(blockCount, block[i] + 1);
+		}
+
+		int width = alphabetSize + 1;
+		int[] signature = new int[count * width];
+		int[] nextBlock = new int[count];
+
+		// Open-addressing table of the first state with each signature, so large DFAs are not compared pairwise.
+		int[] firstWithSignature = new int[Integer.highestOneBit(count) << 2];
+
+		while (true) {
+			for (int i = 0; i < count; i++) {
+				signature[i * width] = block[i];
+
+				for (int symbol = 0; symbol < alphabetSize; symbol++) {
+					int next = number[delta.get(states[i] * alphabetSize + symbol)];
+					signature[i * width + 1 + symbol] = block[next];
+				}
+			}
+
+			// States with equal signatures stay together. Blocks are numbered by first appearance.
+			int newBlockCount = 0;
+			int mask = firstWithSignature.length - 1;
+			Arrays.fill(firstWithSignature, -1);
+
+			for (int i = 0; i < count; i++) {
+				int slot = hashSignature(signature, i, width) & mask;
+
+				while (firstWithSignature[slot] >= 0 && !sameSignature(signature, i, firstWithSignature[slot], width)) {
+					slot = (slot + 1) & mask;
+				}
+
+				if (firstWithSignature[slot] >= 0) {
+					nextBlock[i] = nextBlock[firstWithSignature[slot]];
+				} else {
+					firstWithSignature[slot] = i;
+					nextBlock[i] = newBlockCount++;
+				}
+			}
+
+			int[] temp = block;
+			block = nextBlock;
+			nextBlock = temp;
+
+			if (newBlockCount == blockCount) {
+				break;
+			}
+
+			blockCount = newBlockCount;
+		}
+
+		/*
+		 * Blocks were numbered by the first state in breadth-first order that
+		 * falls into them, which is the breadth-first order of the minimal DFA
+		 * itself, so the block numbers are already canonical.
+		 */
+		int[] data = new int[1 + blockCount * alphabetSize + blockCount];
+		data[0] = blockCount;
+
+		for (int i = 0; i < count; i++) {
+			int b = block[i];
+
+			for (int symbol = 0; symbol < alphabetSize; symbol++) {
+				data[1 + b * alphabetSize + symbol] = block[number[delta.get(states[i] * alphabetSize + symbol)]];
+			}
+
+			data[1 + blockCount * alphabetSize + b] = dfa.isAcceptState(states[i]) ? 1 : 0;
+		}
+
+		return new GenomeKey(data);
+	}
+
+	private static int hashSignature(int[] signature, int state, int width) {
+		int hash = 1;
+
+		for (int k = 0; k < width; k++) {
+			hash = 31 * hash + signature[state * width + k];
+		}
+
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean sameSignature(int[] signature, int first, int second, int width) {
+		for (int k = 0; k < width; k++) {
+			if (signature[first * width + k] != signature[second * width + k]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof GenomeKey && hash == ((GenomeKey) other).hash
+				&& Arrays.equals(data, ((GenomeKey) other).data);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,136 @@
+package genetic_automata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Island-model evolution: several independent genetic algorithms evolve on
+ * their own threads and only interact through periodic migration. Every
+ * migration interval, each island sends copies of its best DFAs to the next
+ * island in a ring through a lock-free queue, and replaces its own worst DFAs
+ * with whatever migrants have arrived. All islands stop as soon as any of
+ * them finds an optimal DFA.
+ */
+public class IslandModel {
+	private List<GeneticAlgorithm> islands;
+
+	// Incoming migrants of each island, written by the previous island in the ring.
+	private List<Queue<DFA>> inboxes;
+
+	// Number of epochs between migrations.
+	private int migrationInterval;
+
+	// Number of elite DFAs each island sends per migration.
+	private int migrantCount;
+
+	// Set once any island has found an optimal DFA.
+	private AtomicBoolean solved = new AtomicBoolean();
+
+	/*
+	 * Create islands evolving DFAs with the given number of states on the same
+	 * training examples. Each island gets its own random number generator,
+	 * split from one created with the given seed.
+	 */
+	public IslandModel(TrainingSet examples, int stateCount, int islandCount, int migrationInterval, int migrantCount,
+			long seed) {
+		this.migrationInterval = migrationInterval;
+		this.migrantCount = migrantCount;
+
+		SplitMixRandom master = new SplitMixRandom(seed);
+		islands = new ArrayList<>();
+		inboxes = new ArrayList<>();
+
+		for (int i = 0; i < islandCount; i++) {
+			islands.add(new GeneticAlgorithm(examples, stateCount, master.split()));
+			inboxes.add(new ConcurrentLinkedQueue<>());
+		}
+	}
+
+	// Evolve all islands in parallel and return the best DFA found on any of them.
+	public DFA run() {
+		for (GeneticAlgorithm island : islands) {
+			if (migrantCount > island.getElitismOffset()) {
+				throw new IllegalArgumentException("Islands can send at most their elitism offset of migrants at a time.");
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+		List<Future<DFA>> results = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < islands.size(); i++) {
+				int island = i;
+				results.add(executor.submit(() -> evolve(island)));
+			}
+
+			DFA best = null;
+
+			for (Future<DFA> result : results) {
+				DFA dfa = result.get();
+
+				if (best == null || dfa.getFitness() > best.getFitness()) {
+					best = dfa;
+				}
+			}
+
+			return best;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Island evolution was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Island evolution failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Evolve a single island until it or another island is solved, or it runs out of epochs.
+	private DFA evolve(int island) {
+		GeneticAlgorithm algorithm = islands.get(island);
+		Queue<DFA> inbox = inboxes.get(island);
+		Queue<DFA> neighbour = inboxes.get((island + 1) % islands.size());
+
+		while (!solved.get() && algorithm.getCurrentEpoch() < algorithm.getMaxEpochs()) {
+			if (algorithm.runEpoch()) {
+				solved.set(true);
+				break;
+			}
+
+			if (algorithm.getCurrentEpoch() % migrationInterval == 0) {
+				// The elites are copies, since the originals keep evolving on this island.
+				for (DFA emigrant : algorithm.getElites(migrantCount)) {
+					neighbour.offer(emigrant);
+				}
+
+				List<DFA> immigrants = new ArrayList<>();
+				DFA immigrant;
+
+				while ((immigrant = inbox.poll()) != null) {
+					immigrants.add(immigrant);
+				}
+
+				algorithm.immigrate(immigrants);
+			}
+		}
+
+		return algorithm.getBest();
+	}
+
+	public List<GeneticAlgorithm> getIslands() {
+		return islands;
+	}
+
+	// Release any threads used by the islands' evaluators.
+	public void shutdown() {
+		for (GeneticAlgorithm island : islands) {
+			island.shutdown();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.text.DecimalFormat;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -36,6 +37,10 @@ public class LeftPanel extends JPanel {
 	JLabel bestFitnessLabel;
 	JLabel avgFitnessLabel;
 	
+	// Start and cancel a run; only one of them is enabled at a time.
+	JButton startButton;
+	JButton cancelButton;
+	
 	public LeftPanel() {
 		setPreferredSize(new Dimension(WIDTH, Main.HEIGHT));
 		
@@ -103,12 +108,21 @@ public class LeftPanel extends JPanel {
 		buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
 		buttonPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-		JButton startButton = new JButton("Start Algorithm");
+		startButton = new JButton("Start Algorithm");
+		cancelButton = new JButton("Cancel");
+		cancelButton.setEnabled(false);
 
 		// Start the genetic algorithm when the button is clicked.
 		startButton.addActionListener((e) -> startAlgorithm());
+		
+		// Stop the running algorithm after its current epoch; its outcome is shown as usual.
+		cancelButton.addActionListener((e) -> {
+			cancelButton.setEnabled(false);
+			Main.algorithm.cancel();
+		});
 
 		buttonPanel.add(startButton);
+		buttonPanel.add(cancelButton);
 		
 		return buttonPanel;
 	}
@@ -150,24 +164,13 @@ public class LeftPanel extends JPanel {
 			// Reset the background color of the settings panel.
 			settingsPanel.setBackground(UIManager.getColor("Panel.background"));
 			
-			// Initiate the algorithm with the provided settings.
+			// Initiate the algorithm with the provided settings; it reports back through showProgress and runFinished.
 			Main.startAlgorithm(populationSize, elitismOffset, mutationRate, epochs);
 			
-			// Display the outcome of the algorithm.
-			epochsRunLabel.setText("Epochs Run: " + Main.algorithm.getCurrentEpoch());
-			
-			// Retrieve the best and average fitness of the final population.
-			double bestFitness = Main.algorithm.getBestFitnessOverEpochs().get
-					(Main.algorithm.getBestFitnessOverEpochs().size() - 1);
-			
-			double avgFitness = Main.algorithm.getAvgFitnessOverEpochs().get
-					(Main.algorithm.getAvgFitnessOverEpochs().size() - 1);
-			
-			DecimalFormat fmt = new DecimalFormat("0.00");
-			
-			bestFitnessLabel.setText("Best Final Fitness: " + fmt.format(bestFitness));
-			avgFitnessLabel.setText("Avg Final Fitness: " + fmt.format(avgFitness));
+			startButton.setEnabled(false);
+			cancelButton.setEnabled(true);
 			
+			showProgress(0, 0, 0);
 			outcomePanel.setVisible(true);
 			validate();
 		} catch (Exception e) {
@@ -180,4 +183,34 @@ public class LeftPanel extends JPanel {
 			settingsPanel.setBackground(errorColor);
 		}
 	}
+	
+	// Show the statistics of the latest epoch of the running algorithm.
+	public void showProgress(int epochsRun, double bestFitness, double avgFitness) {
+		DecimalFormat fmt = new DecimalFormat("0.00");
+		
+		epochsRunLabel.setText("Epochs Run: " + epochsRun);
+		bestFitnessLabel.setText("Best Fitness: " + fmt.format(bestFitness));
+		avgFitnessLabel.setText("Avg Fitness: " + fmt.format(avgFitness));
+	}
+	
+	// Display the outcome of the algorithm once it has finished or been cancelled.
+	public void runFinished(GeneticAlgorithm algorithm) {
+		epochsRunLabel.setText("Epochs Run: " + algorithm.getCurrentEpoch()
+				+ (algorithm.isCancelled() ? " (cancelled)" : ""));
+		
+		// Retrieve the best and average fitness of the final population.
+		List<Double> bestOverEpochs = algorithm.getBestFitnessOverEpochs();
+		List<Double> avgOverEpochs = algorithm.getAvgFitnessOverEpochs();
+		
+		if (!bestOverEpochs.isEmpty()) {
+			DecimalFormat fmt = new DecimalFormat("0.00");
+			
+			bestFitnessLabel.setText("Best Final Fitness: " + fmt.format(bestOverEpochs.get(bestOverEpochs.size() - 1)));
+			avgFitnessLabel.setText("Avg Final Fitness: " + fmt.format(avgOverEpochs.get(avgOverEpochs.size() - 1)));
+		}
+		
+		startButton.setEnabled(true);
+		cancelButton.setEnabled(false);
+		validate();
+	}
 }
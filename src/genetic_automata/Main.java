@@ -23,10 +23,15 @@ package genetic_automata;
 
 import java.awt.BorderLayout;
 import java.awt.Container;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JFrame;
 
@@ -46,6 +51,12 @@ public class Main extends JFrame {
 	
 	public static GeneticAlgorithm algorithm;
 	
+	// Store that finished runs are added to, or null if none was given.
+	private static RunStore store;
+	
+	// Single daemon thread appending finished runs to the store in order, so the GUI never waits for the disk.
+	private static ExecutorService storeWriter;
+	
 	public Main() {
 		controlsPanel = new LeftPanel();
 		displayPanel = new DisplayPanel();
@@ -62,7 +73,20 @@ public class Main extends JFrame {
 		cont.add(displayPanel, BorderLayout.CENTER);
 	}
 	
-	public static void main(String[] args) {
+	// The optional argument is the directory of a run store to add finished runs to.
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0) {
+			store = RunStore.open(Paths.get(args[0]));
+			storeWriter = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "run-store-writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			
+			// Let the runs still queued reach the store before the application exits.
+			Runtime.getRuntime().addShutdownHook(new Thread(Main::closeStore));
+		}
+		
 		createTrainingExamples();
 		
 		// Start the application.
@@ -101,7 +125,12 @@ public class Main extends JFrame {
 		}
 	}
 
-	// Start the algorithm with the settings specified by the user in the settings panel.
+	/*
+	 * Start the algorithm with the settings specified by the user in the
+	 * settings panel. It runs on a background thread, which streams its
+	 * progress to the display panel and tells the controls panel when it has
+	 * finished; call algorithm.cancel() to stop it early.
+	 */
 	public static void startAlgorithm(int populationSize, int elitismOffset, double mutationRate, int epochs) {
 		// Convert lists to arrays before passing to the algorithm.
 		String[] inputsArray = new String[TRAINING_SIZE];
@@ -112,12 +141,48 @@ public class Main extends JFrame {
 			expectedArray[i] = expected.get(i);
 		}
 		
+		// Release the resources of the previous run.
+		if (algorithm != null) {
+			algorithm.shutdown();
+		}
+		
 		algorithm = new GeneticAlgorithm(inputsArray, expectedArray);
 		algorithm.setSettings(populationSize, elitismOffset, mutationRate, epochs);
 		
-		algorithm.runEpochs();
-		
 		displayPanel.showFitnessChart();
-		displayPanel.showDFAGraph();
+		
+		new EvolutionWorker(algorithm, displayPanel, controlsPanel).execute();
+	}
+	
+	// Add a finished run to the run store, if one was given.
+	public static void recordRun(GeneticAlgorithm algorithm, DFA best) {
+		if (store == null) {
+			return;
+		}
+		
+		// The record copies the best DFA and the fitness curves, so a new run cannot change it while it is queued.
+		RunRecord record = RunRecord.of(RunStore.DEFAULT_LANGUAGE, algorithm, best, null);
+		
+		storeWriter.execute(() -> {
+			try {
+				store.append(record);
+			} catch (IOException e) {
+				System.out.println("The run could not be stored: " + e.getMessage());
+			}
+		});
+	}
+	
+	// Wait for the queued runs to be appended and close the store.
+	private static void closeStore() {
+		storeWriter.shutdown();
+		
+		try {
+			storeWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			store.close();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			System.out.println("The run store could not be closed: " + e.getMessage());
+		}
 	}
 }
@@ -0,0 +1,372 @@
+package genetic_automata;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ * Training set stored in a binary file that is read through memory-mapped
+ * windows instead of being loaded onto the heap, so training sets larger than
+ * the heap can be used. DFAs run directly on the symbols decoded from the
+ * mapped bytes; no String is ever created.
+ *
+ * File layout (big-endian):
+ *
+ *   int   MAGIC
+ *   int   VERSION
+ *   int   alphabet size
+ *   int   bits per symbol (1, 2, 4 or 8)
+ *   long  number of examples
+ *   long  offset of the label bitmap
+ *   for each example:
+ *     int   number of symbols
+ *     byte  symbols packed bitsPerSymbol bits each, lowest bits first
+ *   label bitmap: bit i (lowest bit first) is set if example i should be accepted
+ *
+ * Convert a text training file (see TrainingSet.read) with:
+ *
+ *   java genetic_automata.MappedTrainingSet examples.txt examples.dfat [alphabet size]
+ */
+public class MappedTrainingSet implements Closeable {
+	public static final int MAGIC = 0x44464154;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 32;
+
+	// Largest region of the file mapped at once.
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	private Path file;
+	private int alphabetSize;
+	private int bitsPerSymbol;
+	private long exampleCount;
+	private long labelsOffset;
+
+	// Channel of the file, open until close() is called.
+	private FileChannel channel;
+
+	// Label bitmap, which is small enough to stay mapped for the whole run.
+	private MappedByteBuffer labels;
+
+	// First window of example records, kept mapped so files that fit in one window are mapped only once.
+	private MappedByteBuffer firstWindow;
+
+	// Open a training set file written by write(...) or convert(...). Close it once no longer needed.
+	public MappedTrainingSet(Path file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException(file + " is not a version " + VERSION + " training set file.");
+			}
+
+			alphabetSize = header.getInt();
+			bitsPerSymbol = header.getInt();
+			exampleCount = header.getLong();
+			labelsOffset = header.getLong();
+
+			if (alphabetSize < 1 || alphabetSize > DFA.MAX_ALPHABET_SIZE
+					|| bitsPerSymbol != bitsPerSymbol(alphabetSize)) {
+				throw new IOException(file + " holds an invalid alphabet of " + alphabetSize + " symbols.");
+			}
+
+			// A DFA's fitness is the fraction of examples it classifies correctly, which needs at least one.
+			if (exampleCount < 1) {
+				throw new IOException(file + " holds no examples.");
+			}
+
+			labels = channel.map(FileChannel.MapMode.READ_ONLY, labelsOffset, (exampleCount + 7) / 8);
+			firstWindow = map(HEADER_SIZE);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	// Smallest power of two number of bits, at most 8, that can hold every symbol of the alphabet.
+	public static int bitsPerSymbol(int alphabetSize) {
+		int bits = 1;
+
+		while ((1 << bits) < alphabetSize) {
+			bits *= 2;
+		}
+
+		return bits;
+	}
+
+	/*
+	 * Calculate the fitness of every DFA in the population by streaming once
+	 * through the file. Each example is decoded once into a reused buffer and
+	 * then run by every DFA.
+	 */
+	public void evaluate(List<DFA> population) throws IOException {
+		int[] correct = new int[population.size()];
+		byte[] symbols = new byte[64];
+
+		long windowStart = HEADER_SIZE;
+		MappedByteBuffer window = firstWindow;
+		long position = HEADER_SIZE;
+
+		for (long e = 0; e < exampleCount; e++) {
+			// Move the window forward if the length of the next example lies beyond it.
+			if (position + 4 > windowStart + window.limit()) {
+				windowStart = position;
+				window = map(windowStart);
+			}
+
+			int length = window.getInt((int) (position - windowStart));
+			int packedLength = (int) (((long) length * bitsPerSymbol + 7) / 8);
+
+			if (position + 4 + packedLength > windowStart + window.limit()) {
+				windowStart = position;
+				window = map(windowStart);
+
+				if (4 + packedLength > window.limit()) {
+					throw new IOException("Example " + e + " of " + file + " is truncated or too long.");
+				}
+			}
+
+			if (symbols.length < length) {
+				symbols = new byte[Math.max(length, symbols.length * 2)];
+			}
+
+			decode(window, (int) (position - windowStart) + 4, length, symbols);
+			position += 4 + packedLength;
+
+			boolean expected = (labels.get((int) (e >>> 3)) & (1 << (e & 7))) != 0;
+
+			for (int i = 0; i < correct.length; i++) {
+				if (population.get(i).run(symbols, 0, length) == expected) {
+					correct[i]++;
+				}
+			}
+		}
+
+		for (int i = 0; i < correct.length; i++) {
+			population.get(i).setFitness((correct[i] * 1.0) / exampleCount);
+		}
+	}
+
+	// Map the next window of example records, starting at the given position of the file.
+	private MappedByteBuffer map(long start) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, labelsOffset - start));
+	}
+
+	// Unpack the symbols of an example starting at the given index of the window.
+	private void decode(MappedByteBuffer window, int index, int length, byte[] symbols) {
+		int perByte = 8 / bitsPerSymbol;
+		int mask = (1 << bitsPerSymbol) - 1;
+
+		for (int i = 0; i < length; i++) {
+			int packed = window.get(index + i / perByte);
+			int symbol = (packed >>> ((i % perByte) * bitsPerSymbol)) & mask;
+
+			if (symbol >= alphabetSize) {
+				throw new IllegalStateException("Symbol " + symbol + " is not in the alphabet of " + file + ".");
+			}
+
+			symbols[i] = (byte) symbol;
+		}
+	}
+
+	// Write an in-memory training set to a file in this format.
+	public static void write(TrainingSet examples, Path file) throws IOException {
+		int bits = bitsPerSymbol(examples.getAlphabetSize());
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			writeHeader(out, examples.getAlphabetSize(), 0, 0);
+
+			for (int i = 0; i < examples.size(); i++) {
+				int from = examples.getOffsets()[i];
+				int to = examples.getOffsets()[i + 1];
+
+				writeExample(out, examples.getSymbols(), from, to, bits);
+			}
+
+			LabelWriter labels = new LabelWriter(out);
+
+			for (boolean expected : examples.getExpected()) {
+				labels.add(expected);
+			}
+
+			labels.finish();
+		}
+
+		patchHeader(file, examples.size());
+	}
+
+	/*
+	 * Convert a text training file (see TrainingSet.read) to this format one
+	 * line at a time, so the text file never has to fit in memory. The inputs
+	 * are encoded into symbols of an alphabet of the given size. The label
+	 * bitmap is streamed to a temporary file next to the output while the
+	 * examples are written, and appended to the output at the end.
+	 */
+	public static void convert(Path textFile, Path file, int alphabetSize) throws IOException {
+		Path labelsFile = file.resolveSibling(file.getFileName() + ".labels.tmp");
+		long count;
+
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+				writeHeader(out, alphabetSize, 0, 0);
+
+				try (OutputStream labelsOut = new BufferedOutputStream(Files.newOutputStream(labelsFile))) {
+					TextConverter converter = new TextConverter(out, new LabelWriter(labelsOut), alphabetSize);
+
+					TrainingSet.readExamples(textFile, converter);
+					converter.labels.finish();
+					count = converter.count;
+				}
+
+				Files.copy(labelsFile, out);
+			}
+		} finally {
+			Files.deleteIfExists(labelsFile);
+		}
+
+		patchHeader(file, count);
+	}
+
+	// Encodes the examples of a text training file and writes them in this format.
+	private static class TextConverter implements TrainingSet.ExampleHandler {
+		private final DataOutputStream out;
+		private final LabelWriter labels;
+		private final int alphabetSize;
+		private final int bits;
+		private byte[] symbols = new byte[64];
+		private long count;
+
+		TextConverter(DataOutputStream out, LabelWriter labels, int alphabetSize) {
+			this.out = out;
+			this.labels = labels;
+			this.alphabetSize = alphabetSize;
+			bits = bitsPerSymbol(alphabetSize);
+		}
+
+		@Override
+		public void example(String input, boolean expected) throws IOException {
+			if (symbols.length < input.length()) {
+				symbols = new byte[input.length() * 2];
+			}
+
+			for (int i = 0; i < input.length(); i++) {
+				symbols[i] = (byte) TrainingSet.encodeSymbol(input.charAt(i), alphabetSize);
+			}
+
+			writeExample(out, symbols, 0, input.length(), bits);
+			labels.add(expected);
+			count++;
+		}
+	}
+
+	private static void writeHeader(DataOutputStream out, int alphabetSize, long exampleCount, long labelsOffset)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(alphabetSize);
+		out.writeInt(bitsPerSymbol(alphabetSize));
+		out.writeLong(exampleCount);
+		out.writeLong(labelsOffset);
+	}
+
+	private static void writeExample(DataOutputStream out, byte[] symbols, int from, int to, int bits)
+			throws IOException {
+		int perByte = 8 / bits;
+		int packed = 0;
+
+		out.writeInt(to - from);
+
+		for (int i = 0; i < to - from; i++) {
+			packed |= symbols[from + i] << ((i % perByte) * bits);
+
+			if (i % perByte == perByte - 1) {
+				out.writeByte(packed);
+				packed = 0;
+			}
+		}
+
+		if ((to - from) % perByte != 0) {
+			out.writeByte(packed);
+		}
+	}
+
+	// Packs labels into the bytes of the label bitmap as they are added, lowest bit first.
+	private static class LabelWriter {
+		private final OutputStream out;
+		private int bits;
+		private int count;
+
+		LabelWriter(OutputStream out) {
+			this.out = out;
+		}
+
+		void add(boolean label) throws IOException {
+			if (label) {
+				bits |= 1 << count;
+			}
+
+			if (++count == 8) {
+				out.write(bits);
+				bits = 0;
+				count = 0;
+			}
+		}
+
+		// Write the last, partly filled byte.
+		void finish() throws IOException {
+			if (count > 0) {
+				out.write(bits);
+			}
+		}
+	}
+
+	// Fill in the example count and label offset once all examples have been written.
+	private static void patchHeader(Path file, long exampleCount) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			long labelsOffset = raf.length() - (exampleCount + 7) / 8;
+
+			raf.seek(16);
+			raf.writeLong(exampleCount);
+			raf.writeLong(labelsOffset);
+		}
+	}
+
+	public long size() {
+		return exampleCount;
+	}
+
+	// Close the file. Mapped windows are released once they are garbage collected.
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// Number of symbols of the alphabet the inputs are encoded in.
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2 && args.length != 3) {
+			System.err.println("Usage: java genetic_automata.MappedTrainingSet <text file> <training set file>"
+					+ " [alphabet size]");
+			System.exit(2);
+		}
+
+		int alphabetSize = (args.length == 3) ? Integer.parseInt(args[2]) : DFA.DEFAULT_ALPHABET_SIZE;
+		DFA.checkDimensions(1, alphabetSize);
+		convert(Paths.get(args[0]), Paths.get(args[1]), alphabetSize);
+	}
+}
@@ -0,0 +1,290 @@
+package genetic_automata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Population backend that stores every DFA in contiguous primitive arrays
+ * instead of one object per DFA. Individual i owns the delta entries starting
+ * at i * genomeDelta and the accept words starting at i * acceptWords. All
+ * DFAs of the population have the same dimensions.
+ *
+ * The population is double-buffered: genetic operators read the current
+ * generation and write straight into the next one, and swap() exchanges the
+ * two. All buffers are allocated once, so an epoch allocates nothing
+ * regardless of the population size.
+ */
+public class PackedPopulation {
+	private int size;
+
+	// Dimensions of every DFA in the population.
+	private int stateCount;
+	private int alphabetSize;
+
+	// Number of delta entries and accept words in the genome of a single DFA.
+	private int genomeDelta;
+	private int acceptWords;
+
+	// Genomes and fitness of the current generation.
+	private int[] delta;
+	private long[] acceptMask;
+	private int[] startStates;
+	private double[] fitness;
+
+	// Genomes and fitness of the generation being built.
+	private int[] nextDelta;
+	private long[] nextAcceptMask;
+	private int[] nextStartStates;
+	private double[] nextFitness;
+
+	// Indices of the current generation in decreasing order of fitness.
+	private int[] order;
+
+	// Fitness of the current generation in decreasing order, used for selection.
+	private double[] rankedFitness;
+
+	public PackedPopulation(int size, int stateCount, int alphabetSize) {
+		DFA.checkDimensions(stateCount, alphabetSize);
+
+		this.size = size;
+		this.stateCount = stateCount;
+		this.alphabetSize = alphabetSize;
+		genomeDelta = stateCount * alphabetSize;
+		acceptWords = DFA.acceptWords(stateCount);
+
+		delta = new int[size * genomeDelta];
+		acceptMask = new long[size * acceptWords];
+		startStates = new int[size];
+		fitness = new double[size];
+
+		nextDelta = new int[size * genomeDelta];
+		nextAcceptMask = new long[size * acceptWords];
+		nextStartStates = new int[size];
+		nextFitness = new double[size];
+
+		order = new int[size];
+		rankedFitness = new double[size];
+	}
+
+	// Fill the current generation with random DFAs.
+	public void randomize(Random rand) {
+		for (int i = 0; i < size; i++) {
+			int deltaOffset = i * genomeDelta;
+
+			// Randomize the delta function.
+			for (int j = 0; j < genomeDelta; j++) {
+				delta[deltaOffset + j] = rand.nextInt(stateCount);
+			}
+
+			// Randomize the accept states.
+			for (int state = 0; state < stateCount; state++) {
+				int word = i * acceptWords + (state >>> 6);
+
+				if (rand.nextDouble() <= DFA.ACCEPT_RATE) {
+					acceptMask[word] |= 1L << state;
+				} else {
+					acceptMask[word] &= ~(1L << state);
+				}
+			}
+
+			// Randomize the start state.
+			startStates[i] = rand.nextInt(stateCount);
+			fitness[i] = 0;
+		}
+	}
+
+	// Calculate the fitness of every DFA in the current generation.
+	public void evaluate(TrainingSet examples) {
+		byte[] symbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+		TrainingTrie trie = examples.getTrie();
+
+		for (int i = 0; i < size; i++) {
+			// Walk the prefix trie if the training set has one.
+			if (trie != null) {
+				fitness[i] = (trie.countCorrect(delta, i * genomeDelta, acceptMask, i * acceptWords, startStates[i])
+						* 1.0) / expected.length;
+				continue;
+			}
+
+			int correct = 0;
+
+			for (int j = 0; j < expected.length; j++) {
+				boolean accepted = DFA.run(delta, i * genomeDelta, alphabetSize, acceptMask, i * acceptWords,
+						startStates[i], symbols, offsets[j], offsets[j + 1]);
+
+				if (accepted == expected[j]) {
+					correct++;
+				}
+			}
+
+			fitness[i] = (correct * 1.0) / expected.length;
+		}
+	}
+
+	// Order the current generation by decreasing fitness.
+	public void rank() {
+		rank(size);
+	}
+
+	/*
+	 * Order the current generation so that its topCount fittest DFAs come
+	 * first, by decreasing fitness; the rest follow in no particular order.
+	 */
+	public void rank(int topCount) {
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		if (topCount >= size) {
+			FitnessRanking.sort(fitness, order, 0, size - 1);
+		} else {
+			FitnessRanking.rankTop(fitness, order, size, topCount);
+		}
+	}
+
+	// Prepare a selection strategy for the current generation once it has been ranked by rank(...).
+	public void prepareSelection(SelectionStrategy selection) {
+		for (int i = 0; i < size; i++) {
+			rankedFitness[i] = fitness[order[i]];
+		}
+
+		selection.prepare(rankedFitness, size);
+	}
+
+	// Select the index of a DFA of the current generation using a prepared selection strategy.
+	public int select(SelectionStrategy selection, Random rand) {
+		return order[selection.select(rand)];
+	}
+
+	// Copy a DFA of the current generation, unchanged, into a slot of the next generation.
+	public void copyToNext(int source, int target) {
+		System.arraycopy(delta, source * genomeDelta, nextDelta, target * genomeDelta, genomeDelta);
+		System.arraycopy(acceptMask, source * acceptWords, nextAcceptMask, target * acceptWords,
+				acceptWords);
+		nextStartStates[target] = startStates[source];
+		nextFitness[target] = fitness[source];
+	}
+
+	// Write the child of two DFAs of the current generation into a slot of the next generation.
+	public void crossover(int first, int second, int target, Random rand) {
+		int firstOffset = first * genomeDelta;
+		int secondOffset = second * genomeDelta;
+		int targetOffset = target * genomeDelta;
+
+		// Calculate an arbitrary crossover point for the delta function.
+		int crossoverRow = rand.nextInt(stateCount);
+		int crossoverCol = rand.nextInt(alphabetSize);
+
+		for (int y = 0; y < stateCount; y++) {
+			for (int x = 0; x < alphabetSize; x++) {
+				int index = y * alphabetSize + x;
+
+				if (y >= crossoverRow && x >= crossoverCol) {
+					nextDelta[targetOffset + index] = delta[secondOffset + index];
+				} else {
+					nextDelta[targetOffset + index] = delta[firstOffset + index];
+				}
+			}
+		}
+
+		// Calculate an arbitrary crossover point for the accept states.
+		int acceptCrossover = rand.nextInt(stateCount);
+
+		for (int state = 0; state < stateCount; state++) {
+			int parent = (state >= acceptCrossover) ? second : first;
+			long bit = 1L << state;
+			int word = state >>> 6;
+			int targetWord = target * acceptWords + word;
+
+			if ((acceptMask[parent * acceptWords + word] & bit) != 0) {
+				nextAcceptMask[targetWord] |= bit;
+			} else {
+				nextAcceptMask[targetWord] &= ~bit;
+			}
+		}
+
+		// Randomly select one of the parent's start states.
+		nextStartStates[target] = rand.nextBoolean() ? startStates[first] : startStates[second];
+		nextFitness[target] = 0;
+	}
+
+	// Mutate a DFA of the next generation in place according to DFA.MUTATION_RATE.
+	public void mutateNext(int target, Random rand) {
+		int targetOffset = target * genomeDelta;
+
+		// Mutate the DFA's delta function.
+		for (int j = 0; j < genomeDelta; j++) {
+			if (rand.nextDouble() <= DFA.MUTATION_RATE) {
+				nextDelta[targetOffset + j] = rand.nextInt(stateCount);
+			}
+		}
+
+		// Mutate the DFA's accept states.
+		for (int state = 0; state < stateCount; state++) {
+			if (rand.nextDouble() <= DFA.MUTATION_RATE) {
+				nextAcceptMask[target * acceptWords + (state >>> 6)] ^= 1L << state;
+			}
+		}
+	}
+
+	// Make the next generation the current one. The old generation's buffers are reused.
+	public void swap() {
+		int[] tempDelta = delta;
+		delta = nextDelta;
+		nextDelta = tempDelta;
+
+		long[] tempAcceptMask = acceptMask;
+		acceptMask = nextAcceptMask;
+		nextAcceptMask = tempAcceptMask;
+
+		int[] tempStartStates = startStates;
+		startStates = nextStartStates;
+		nextStartStates = tempStartStates;
+
+		double[] tempFitness = fitness;
+		fitness = nextFitness;
+		nextFitness = tempFitness;
+	}
+
+	// Create a standalone DFA from the genome of an individual of the current generation.
+	public DFA toDFA(int index) {
+		int[] dfaDelta = new int[genomeDelta];
+		long[] dfaAcceptMask = new long[acceptWords];
+
+		System.arraycopy(delta, index * genomeDelta, dfaDelta, 0, genomeDelta);
+		System.arraycopy(acceptMask, index * acceptWords, dfaAcceptMask, 0, acceptWords);
+
+		return new DFA(TransitionTable.of(dfaDelta, stateCount, alphabetSize), dfaAcceptMask, startStates[index]);
+	}
+
+	// Create standalone DFAs for the whole current generation, in decreasing order of fitness.
+	public List<DFA> toDFAs() {
+		rank();
+
+		List<DFA> dfas = new ArrayList<>();
+
+		for (int i = 0; i < size; i++) {
+			DFA dfa = toDFA(order[i]);
+			dfa.setFitness(fitness[order[i]]);
+			dfas.add(dfa);
+		}
+
+		return dfas;
+	}
+
+	// Index of the DFA with the given rank, where rank 0 is the fittest DFA.
+	public int getRanked(int rank) {
+		return order[rank];
+	}
+
+	public double getFitness(int index) {
+		return fitness[index];
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,33 @@
+package genetic_automata;
+
+import java.util.Random;
+
+/*
+ * Linear rank selection, where the weight of a DFA depends only on its rank:
+ * the best of n DFAs has weight n and the worst has weight 1. Large gaps in
+ * fitness therefore cannot let a few DFAs take over the population. The rank
+ * is drawn by inverting the cumulative weights directly, so each draw is O(1).
+ */
+public class RankSelection implements SelectionStrategy {
+	private int size;
+
+	@Override
+	public void prepare(double[] fitness, int size) {
+		this.size = size;
+	}
+
+	@Override
+	public int select(Random rand) {
+		/*
+		 * Counting from the worst DFA, the first k ranks hold k(k + 1) / 2 of the
+		 * n(n + 1) / 2 total weight. Solve for the k that covers the drawn weight.
+		 */
+		double weight = rand.nextDouble() * size * (size + 1.0) / 2.0;
+		int fromWorst = (int) Math.ceil((Math.sqrt(8.0 * weight + 1.0) - 1.0) / 2.0);
+
+		// Clamp against rounding at the ends of the range.
+		fromWorst = Math.max(1, Math.min(size, fromWorst));
+
+		return size - fromWorst;
+	}
+}
@@ -0,0 +1,97 @@
+package genetic_automata;
+
+import java.util.Random;
+
+/*
+ * Roulette selection, where each DFA is selected with probability proportional
+ * to its fitness. Uses Vose's alias method: preparing the table takes O(n)
+ * and every draw takes O(1).
+ */
+public class RouletteSelection implements SelectionStrategy {
+	// Probability of keeping each column of the table rather than taking its alias.
+	private double[] probability = new double[0];
+	private int[] alias = new int[0];
+
+	// Work lists of the columns with less and more than the average weight.
+	private int[] small = new int[0];
+	private int[] large = new int[0];
+
+	private int size;
+
+	@Override
+	public void prepare(double[] fitness, int size) {
+		this.size = size;
+
+		if (probability.length < size) {
+			probability = new double[size];
+			alias = new int[size];
+			small = new int[size];
+			large = new int[size];
+		}
+
+		double fitnessSum = 0;
+
+		for (int i = 0; i < size; i++) {
+			fitnessSum += fitness[i];
+		}
+
+		// Without any fitness to weigh by, every DFA is equally likely.
+		if (fitnessSum == 0) {
+			for (int i = 0; i < size; i++) {
+				probability[i] = 1.0;
+				alias[i] = i;
+			}
+			return;
+		}
+
+		int smallCount = 0;
+		int largeCount = 0;
+
+		// Scale the weights so the average column holds exactly 1.
+		for (int i = 0; i < size; i++) {
+			probability[i] = fitness[i] * size / fitnessSum;
+
+			if (probability[i] < 1.0) {
+				small[smallCount++] = i;
+			} else {
+				large[largeCount++] = i;
+			}
+		}
+
+		// Fill each small column with the excess of a large one.
+		while (smallCount > 0 && largeCount > 0) {
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+
+			alias[less] = more;
+			probability[more] = (probability[more] + probability[less]) - 1.0;
+
+			if (probability[more] < 1.0) {
+				small[smallCount++] = more;
+			} else {
+				large[largeCount++] = more;
+			}
+		}
+
+		// Columns left over only differ from 1 by rounding error.
+		while (largeCount > 0) {
+			probability[large[--largeCount]] = 1.0;
+		}
+		while (smallCount > 0) {
+			probability[small[--smallCount]] = 1.0;
+		}
+	}
+
+	// The probability of each DFA only depends on its own fitness.
+	@Override
+	public boolean needsRanking() {
+		return false;
+	}
+
+	@Override
+	public int select(Random rand) {
+		int column = rand.nextInt(size);
+
+		return (rand.nextDouble() < probability[column]) ? column : alias[column];
+	}
+}
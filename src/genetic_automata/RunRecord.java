@@ -0,0 +1,341 @@
+package genetic_automata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+ * The settings and outcome of one finished run of the genetic algorithm, as
+ * kept in a RunStore. Its summary (settings, epochs run and best fitness) is
+ * small and kept in the store's index; the best DFA and the fitness curves
+ * are only read from the log when asked for.
+ *
+ * The curves are stored compressed: each value is XORed with the one before
+ * it, so the long stretches in which the best fitness does not change become
+ * zeros, and the result is deflated.
+ *
+ * Version 2 added the bounded evaluation, mini-batch and island settings.
+ * Version 1 records are still read, as runs of a single population scored
+ * on every example.
+ */
+public class RunRecord {
+	private static final int VERSION = 2;
+
+	private long timestamp;
+
+	// Name of the language the training examples are drawn from, which groups runs in the store.
+	private String language;
+
+	private int population;
+	private int elitism;
+	private double mutation;
+	private int maxEpochs;
+	private int states;
+	private int alphabet;
+	private String selection;
+	private boolean bounded;
+
+	// Examples scored per epoch, or 0 if every epoch scores all of them.
+	private int miniBatchSize;
+
+	// Number of islands, and the epochs between migrations and DFAs sent, which are 0 for a single population.
+	private int islands = 1;
+	private int migrationInterval;
+	private int migrants;
+
+	// Seed of the run, or null if it was not seeded.
+	private Long seed;
+
+	private int epochsRun;
+	private double bestFitness;
+
+	// Best DFA and fitness per epoch, or null if only the summary was read.
+	private DFA best;
+	private double[] bestCurve;
+	private double[] avgCurve;
+
+	private RunRecord() {
+	}
+
+	/*
+	 * Record a finished run of the algorithm on examples of the language. The
+	 * settings are those the algorithm ran with.
+	 */
+	public static RunRecord of(String language, GeneticAlgorithm algorithm, DFA best, Long seed) {
+		return of(language, algorithm, best, seed, 1, 0, 0);
+	}
+
+	/*
+	 * Record a finished run of an island model on examples of the language,
+	 * where the algorithm is the island that produced the best DFA.
+	 */
+	public static RunRecord of(String language, GeneticAlgorithm algorithm, DFA best, Long seed, int islands,
+			int migrationInterval, int migrants) {
+		RunRecord record = new RunRecord();
+		record.timestamp = System.currentTimeMillis();
+		record.language = language;
+		record.population = algorithm.getPopulationSize();
+		record.elitism = algorithm.getElitismOffset();
+		record.mutation = algorithm.getMutationRate();
+		record.maxEpochs = algorithm.getMaxEpochs();
+		record.states = best.getStateCount();
+		record.alphabet = best.getAlphabetSize();
+		record.selection = algorithm.getSelectionMode().name();
+		record.bounded = algorithm.isBoundedEvaluation();
+		record.miniBatchSize = algorithm.getMiniBatchSize();
+		record.islands = islands;
+		record.migrationInterval = (islands > 1) ? migrationInterval : 0;
+		record.migrants = (islands > 1) ? migrants : 0;
+		record.seed = seed;
+		record.epochsRun = algorithm.getCurrentEpoch();
+		record.bestFitness = best.getFitness();
+		record.best = new DFA(best);
+		record.bestCurve = toArray(algorithm.getBestFitnessOverEpochs());
+		record.avgCurve = toArray(algorithm.getAvgFitnessOverEpochs());
+		return record;
+	}
+
+	private static double[] toArray(List<Double> values) {
+		double[] array = new double[values.size()];
+
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+
+		return array;
+	}
+
+	// Return a copy of the record without its best DFA and fitness curves.
+	RunRecord summary() {
+		RunRecord summary = new RunRecord();
+		summary.timestamp = timestamp;
+		summary.language = language;
+		summary.population = population;
+		summary.elitism = elitism;
+		summary.mutation = mutation;
+		summary.maxEpochs = maxEpochs;
+		summary.states = states;
+		summary.alphabet = alphabet;
+		summary.selection = selection;
+		summary.bounded = bounded;
+		summary.miniBatchSize = miniBatchSize;
+		summary.islands = islands;
+		summary.migrationInterval = migrationInterval;
+		summary.migrants = migrants;
+		summary.seed = seed;
+		summary.epochsRun = epochsRun;
+		summary.bestFitness = bestFitness;
+		return summary;
+	}
+
+	// Write the settings and outcome, which are also kept in the index.
+	void writeSummary(DataOutputStream out) throws IOException {
+		out.writeByte(VERSION);
+		out.writeLong(timestamp);
+		out.writeUTF(language);
+		out.writeInt(population);
+		out.writeInt(elitism);
+		out.writeDouble(mutation);
+		out.writeInt(maxEpochs);
+		out.writeInt(states);
+		out.writeInt(alphabet);
+		out.writeUTF(selection);
+		out.writeBoolean(bounded);
+		out.writeInt(miniBatchSize);
+		out.writeInt(islands);
+		out.writeInt(migrationInterval);
+		out.writeInt(migrants);
+		out.writeBoolean(seed != null);
+		out.writeLong((seed != null) ? seed : 0);
+		out.writeInt(epochsRun);
+		out.writeDouble(bestFitness);
+	}
+
+	static RunRecord readSummary(DataInputStream in) throws IOException {
+		int version = in.readByte();
+
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Not a version 1 to " + VERSION + " run record.");
+		}
+
+		RunRecord record = new RunRecord();
+		record.timestamp = in.readLong();
+		record.language = in.readUTF();
+		record.population = in.readInt();
+		record.elitism = in.readInt();
+		record.mutation = in.readDouble();
+		record.maxEpochs = in.readInt();
+		record.states = in.readInt();
+		record.alphabet = in.readInt();
+		record.selection = in.readUTF();
+
+		if (version >= 2) {
+			record.bounded = in.readBoolean();
+			record.miniBatchSize = in.readInt();
+			record.islands = in.readInt();
+			record.migrationInterval = in.readInt();
+			record.migrants = in.readInt();
+		}
+
+		boolean seeded = in.readBoolean();
+		long seed = in.readLong();
+		record.seed = seeded ? seed : null;
+		record.epochsRun = in.readInt();
+		record.bestFitness = in.readDouble();
+		return record;
+	}
+
+	// Write the whole record: the summary, the best DFA and the compressed fitness curves.
+	void write(DataOutputStream out) throws IOException {
+		writeSummary(out);
+		Checkpointer.writeDFA(out, best);
+		writeCurve(out, bestCurve);
+		writeCurve(out, avgCurve);
+	}
+
+	static RunRecord read(DataInputStream in) throws IOException {
+		RunRecord record = readSummary(in);
+		record.best = Checkpointer.readDFA(in);
+		record.bestCurve = readCurve(in);
+		record.avgCurve = readCurve(in);
+		return record;
+	}
+
+	private static void writeCurve(DataOutputStream out, double[] curve) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+		try (DataOutputStream deflated = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+			long previous = 0;
+
+			for (double value : curve) {
+				long bits = Double.doubleToLongBits(value);
+				deflated.writeLong(bits ^ previous);
+				previous = bits;
+			}
+		} finally {
+			deflater.end();
+		}
+
+		out.writeInt(curve.length);
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	private static double[] readCurve(DataInputStream in) throws IOException {
+		double[] curve = new double[in.readInt()];
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+
+		try (DataInputStream inflated = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+			long previous = 0;
+
+			for (int i = 0; i < curve.length; i++) {
+				previous ^= inflated.readLong();
+				curve[i] = Double.longBitsToDouble(previous);
+			}
+		}
+
+		return curve;
+	}
+
+	// Returns true if the run found a DFA that classifies every training example correctly.
+	public boolean isConverged() {
+		return bestFitness == 1.0;
+	}
+
+	// Milliseconds since the epoch at which the run was recorded.
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getLanguage() {
+		return language;
+	}
+
+	public int getPopulation() {
+		return population;
+	}
+
+	public int getElitism() {
+		return elitism;
+	}
+
+	public double getMutation() {
+		return mutation;
+	}
+
+	public int getMaxEpochs() {
+		return maxEpochs;
+	}
+
+	public int getStates() {
+		return states;
+	}
+
+	public int getAlphabet() {
+		return alphabet;
+	}
+
+	public String getSelection() {
+		return selection;
+	}
+
+	// Returns true if DFAs were scored only until they could no longer reach the cutoff.
+	public boolean isBounded() {
+		return bounded;
+	}
+
+	// Returns the number of examples scored per epoch, or 0 if every epoch scored all of them.
+	public int getMiniBatchSize() {
+		return miniBatchSize;
+	}
+
+	public int getIslands() {
+		return islands;
+	}
+
+	// Returns the epochs between migrations, or 0 for a single population.
+	public int getMigrationInterval() {
+		return migrationInterval;
+	}
+
+	// Returns the DFAs each island sent per migration, or 0 for a single population.
+	public int getMigrants() {
+		return migrants;
+	}
+
+	// Returns the seed of the run, or null if it was not seeded.
+	public Long getSeed() {
+		return seed;
+	}
+
+	public int getEpochsRun() {
+		return epochsRun;
+	}
+
+	public double getBestFitness() {
+		return bestFitness;
+	}
+
+	// Returns the best DFA, or null if only the summary was read.
+	public DFA getBest() {
+		return best;
+	}
+
+	// Returns the best fitness of every epoch, or null if only the summary was read.
+	public double[] getBestCurve() {
+		return bestCurve;
+	}
+
+	// Returns the average fitness of every epoch, or null if only the summary was read.
+	public double[] getAvgCurve() {
+		return avgCurve;
+	}
+}
@@ -0,0 +1,465 @@
+package genetic_automata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/*
+ * Embedded, append-only store of the RunRecords of finished runs, so runs can
+ * be compared across parameter sweeps and sessions. A store is a directory
+ * holding two files:
+ *
+ *   runs.log  every record in full, including its best DFA and fitness curves
+ *   runs.idx  the summary of every record and where it is in the log
+ *
+ * Both are sequences of frames: the length of the payload, its CRC-32, and the
+ * payload. A record is appended to the log and forced to disk before its
+ * index entry, so a crash can at worst leave a torn frame at the end of a file
+ * or a record missing from the index. Opening the store truncates torn frames
+ * and re-indexes records missing from the index.
+ *
+ * The index is read into memory when the store is opened, and the runs are
+ * aggregated by language and configuration as they are added, so queries
+ * such as fastestConverging(...) never read the log. Only one process may
+ * open a store at a time.
+ */
+public class RunStore implements Closeable {
+	// Language of the default training examples of Main and BatchRunner.
+	public static final String DEFAULT_LANGUAGE = "binary multiples of 5";
+
+	private static final String LOG_FILE = "runs.log";
+	private static final String INDEX_FILE = "runs.idx";
+
+	// Length and CRC-32 before each payload.
+	private static final int FRAME_HEADER = 8;
+
+	private FileChannel log;
+	private FileChannel index;
+	private FileLock lock;
+
+	private List<Entry> entries = new ArrayList<>();
+
+	// Statistics of each configuration, by language and configuration key.
+	private Map<String, Map<String, Config>> configs = new LinkedHashMap<>();
+
+	// A record in the log and its summary.
+	public static class Entry {
+		private long offset;
+		private RunRecord summary;
+
+		Entry(long offset, RunRecord summary) {
+			this.offset = offset;
+			this.summary = summary;
+		}
+
+		// Returns the settings and outcome of the run, without its best DFA and fitness curves.
+		public RunRecord getSummary() {
+			return summary;
+		}
+	}
+
+	/*
+	 * The runs of one configuration on one language. Runs that did not
+	 * converge count with the number of epochs they ran, so the mean epochs
+	 * rank configurations by both how fast and how often they converge.
+	 */
+	public static class Config {
+		private int population;
+		private int elitism;
+		private double mutation;
+		private int maxEpochs;
+		private int states;
+		private int alphabet;
+		private String selection;
+		private boolean bounded;
+		private int miniBatchSize;
+		private int islands;
+		private int migrationInterval;
+		private int migrants;
+
+		private int runs;
+		private int converged;
+		private long totalEpochs;
+		private long convergedEpochs;
+
+		private Config(RunRecord run) {
+			population = run.getPopulation();
+			elitism = run.getElitism();
+			mutation = run.getMutation();
+			maxEpochs = run.getMaxEpochs();
+			states = run.getStates();
+			alphabet = run.getAlphabet();
+			selection = run.getSelection();
+			bounded = run.isBounded();
+			miniBatchSize = run.getMiniBatchSize();
+			islands = run.getIslands();
+			migrationInterval = run.getMigrationInterval();
+			migrants = run.getMigrants();
+		}
+
+		private static String keyOf(RunRecord run) {
+			return run.getPopulation() + "/" + run.getElitism() + "/" + run.getMutation() + "/" + run.getMaxEpochs()
+					+ "/" + run.getStates() + "/" + run.getAlphabet() + "/" + run.getSelection() + "/" + run.isBounded()
+					+ "/" + run.getMiniBatchSize() + "/" + run.getIslands() + "/" + run.getMigrationInterval() + "/"
+					+ run.getMigrants();
+		}
+
+		private void add(RunRecord run) {
+			runs++;
+			totalEpochs += run.getEpochsRun();
+
+			if (run.isConverged()) {
+				converged++;
+				convergedEpochs += run.getEpochsRun();
+			}
+		}
+
+		public int getPopulation() {
+			return population;
+		}
+
+		public int getElitism() {
+			return elitism;
+		}
+
+		public double getMutation() {
+			return mutation;
+		}
+
+		public int getMaxEpochs() {
+			return maxEpochs;
+		}
+
+		public int getStates() {
+			return states;
+		}
+
+		public int getAlphabet() {
+			return alphabet;
+		}
+
+		public String getSelection() {
+			return selection;
+		}
+
+		public boolean isBounded() {
+			return bounded;
+		}
+
+		public int getMiniBatchSize() {
+			return miniBatchSize;
+		}
+
+		public int getIslands() {
+			return islands;
+		}
+
+		public int getMigrationInterval() {
+			return migrationInterval;
+		}
+
+		public int getMigrants() {
+			return migrants;
+		}
+
+		public int getRuns() {
+			return runs;
+		}
+
+		public int getConverged() {
+			return converged;
+		}
+
+		public double getConvergenceRate() {
+			return (converged * 1.0) / runs;
+		}
+
+		// Mean epochs run over all runs, including those that did not converge.
+		public double getMeanEpochs() {
+			return (totalEpochs * 1.0) / runs;
+		}
+
+		// Mean epochs run by the runs that converged, or infinity if none did.
+		public double getMeanEpochsToConvergence() {
+			return (converged == 0) ? Double.POSITIVE_INFINITY : (convergedEpochs * 1.0) / converged;
+		}
+
+		@Override
+		public String toString() {
+			String settings = String.format(Locale.ROOT, "population %d, elitism %d, mutation %s, epochs %d, states %d, "
+					+ "alphabet %d, %s selection", population, elitism, mutation, maxEpochs, states, alphabet, selection);
+
+			if (bounded) {
+				settings += ", bounded";
+			}
+
+			if (miniBatchSize > 0) {
+				settings += ", mini-batches of " + miniBatchSize;
+			}
+
+			if (islands > 1) {
+				settings += String.format(Locale.ROOT, ", %d islands migrating %d every %d epochs", islands, migrants,
+						migrationInterval);
+			}
+
+			return settings;
+		}
+	}
+
+	private RunStore() {
+	}
+
+	/*
+	 * Open the store in the directory, creating it if it does not exist, and
+	 * repair any damage left by a crash while a record was being added.
+	 */
+	public static RunStore open(Path directory) throws IOException {
+		Files.createDirectories(directory);
+
+		RunStore store = new RunStore();
+		store.log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		store.index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			store.lock = store.index.tryLock();
+
+			if (store.lock == null) {
+				throw new IOException("The run store " + directory + " is in use by another process.");
+			}
+
+			store.load();
+		} catch (IOException | RuntimeException e) {
+			store.close();
+			throw e;
+		}
+
+		return store;
+	}
+
+	// Read the index, then index the records of the log that it is missing.
+	private void load() throws IOException {
+		long position = 0;
+		byte[] payload;
+
+		while ((payload = readFrame(index, position)) != null) {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+			long offset = in.readLong();
+			add(new Entry(offset, RunRecord.readSummary(in)));
+			position += FRAME_HEADER + payload.length;
+		}
+
+		index.truncate(position);
+
+		position = entries.isEmpty() ? 0 : nextOffset(entries.get(entries.size() - 1));
+
+		while ((payload = readFrame(log, position)) != null) {
+			RunRecord summary = RunRecord.readSummary(new DataInputStream(new ByteArrayInputStream(payload)));
+			writeIndexEntry(new Entry(position, summary));
+			position += FRAME_HEADER + payload.length;
+		}
+
+		log.truncate(position);
+		index.force(false);
+	}
+
+	// Offset in the log just after the record of the entry.
+	private long nextOffset(Entry entry) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+		readFully(log, header, entry.offset);
+		return entry.offset + FRAME_HEADER + header.getInt(0);
+	}
+
+	// Add a finished run to the store and return its entry.
+	public synchronized Entry append(RunRecord record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			record.write(out);
+		}
+
+		// The record must be on disk before the index points to it.
+		long offset = log.size();
+		writeFrame(log, offset, bytes.toByteArray());
+		log.force(false);
+
+		Entry entry = new Entry(offset, record.summary());
+		writeIndexEntry(entry);
+		index.force(false);
+		return entry;
+	}
+
+	private void writeIndexEntry(Entry entry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeLong(entry.offset);
+			entry.summary.writeSummary(out);
+		}
+
+		writeFrame(index, index.size(), bytes.toByteArray());
+		add(entry);
+	}
+
+	private void add(Entry entry) {
+		entries.add(entry);
+
+		RunRecord run = entry.summary;
+		configs.computeIfAbsent(run.getLanguage(), language -> new LinkedHashMap<>())
+				.computeIfAbsent(Config.keyOf(run), key -> new Config(run)).add(run);
+	}
+
+	// Read the whole record of an entry, including its best DFA and fitness curves.
+	public synchronized RunRecord read(Entry entry) throws IOException {
+		byte[] payload = readFrame(log, entry.offset);
+
+		if (payload == null) {
+			throw new IOException("The record at " + entry.offset + " of the run log is damaged.");
+		}
+
+		return RunRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+	}
+
+	// Returns the entries of all runs, in the order they were added.
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<>(entries);
+	}
+
+	// Returns the languages of the runs, in the order they were first seen.
+	public synchronized Set<String> getLanguages() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(configs.keySet()));
+	}
+
+	// Returns the configurations run on the language, those with the fewest mean epochs first.
+	public synchronized List<Config> getConfigs(String language) {
+		List<Config> ranked = new ArrayList<>(configs.getOrDefault(language, Collections.emptyMap()).values());
+		ranked.sort(Comparator.comparingDouble(Config::getMeanEpochs)
+				.thenComparing(Comparator.comparingDouble(Config::getConvergenceRate).reversed()));
+		return ranked;
+	}
+
+	/*
+	 * Returns the configuration with the fewest mean epochs on the language
+	 * among those that converged at least once, or null if none did.
+	 */
+	public synchronized Config fastestConverging(String language) {
+		Config fastest = null;
+
+		for (Config config : configs.getOrDefault(language, Collections.emptyMap()).values()) {
+			if (config.converged > 0 && (fastest == null || config.getMeanEpochs() < fastest.getMeanEpochs())) {
+				fastest = config;
+			}
+		}
+
+		return fastest;
+	}
+
+	private static void writeFrame(FileChannel channel, long position, byte[] payload) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+		frame.putInt(payload.length);
+		frame.putInt((int) crc.getValue());
+		frame.put(payload);
+		frame.flip();
+
+		while (frame.hasRemaining()) {
+			position += channel.write(frame, position);
+		}
+	}
+
+	// Read the payload of the frame at the position, or return null if there is no complete, intact frame there.
+	private static byte[] readFrame(FileChannel channel, long position) throws IOException {
+		if (channel.size() - position < FRAME_HEADER) {
+			return null;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+		readFully(channel, header, position);
+		int length = header.getInt(0);
+
+		if (length < 0 || channel.size() - position - FRAME_HEADER < length) {
+			return null;
+		}
+
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(channel, payload, position + FRAME_HEADER);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload.array());
+		return ((int) crc.getValue() == header.getInt(4)) ? payload.array() : null;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (lock != null) {
+				lock.release();
+			}
+		} finally {
+			if (index != null) {
+				index.close();
+			}
+
+			if (log != null) {
+				log.close();
+			}
+		}
+	}
+
+	/*
+	 * Print the configurations of every language in the store, or of the
+	 * given language, from the fastest converging to the slowest.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: java genetic_automata.RunStore <directory> [language]");
+			System.exit(1);
+		}
+
+		try (RunStore store = open(Paths.get(args[0]))) {
+			for (String language : store.getLanguages()) {
+				if (args.length == 2 && !language.equals(args[1])) {
+					continue;
+				}
+
+				System.out.println(language + ":");
+
+				for (Config config : store.getConfigs(language)) {
+					System.out.printf(Locale.ROOT, "  %s: %d runs, %.0f%% converged, %.1f mean epochs%n", config,
+							config.getRuns(), 100 * config.getConvergenceRate(), config.getMeanEpochs());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package genetic_automata;
+
+// The ways in which the genetic algorithm can select parents for the next generation.
+public enum SelectionMode {
+	// Select with probability proportional to fitness.
+	ROULETTE,
+
+	// Select the fittest of a few randomly drawn DFAs.
+	TOURNAMENT,
+
+	// Select with probability proportional to rank.
+	RANK;
+
+	// Create a new selection strategy implementing this mode.
+	public SelectionStrategy createStrategy() {
+		switch (this) {
+		case TOURNAMENT:
+			return new TournamentSelection();
+		case RANK:
+			return new RankSelection();
+		default:
+			return new RouletteSelection();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package genetic_automata;
+
+import java.util.Random;
+
+/*
+ * Strategy used by the genetic algorithm to choose parents from a population.
+ * The strategy is prepared once per generation, after which every draw costs
+ * O(1) or O(log n) regardless of the population size.
+ */
+public interface SelectionStrategy {
+	/*
+	 * Prepare to select from a population whose fitness values are given in
+	 * decreasing order, or, if the strategy does not need the population
+	 * ranked, in any order. Only the first size entries of the array are used.
+	 */
+	void prepare(double[] fitness, int size);
+
+	/*
+	 * Returns true if the strategy depends on the order of the fitness values,
+	 * so the whole population must be sorted rather than just its elites.
+	 */
+	default boolean needsRanking() {
+		return true;
+	}
+
+	// Select a member of the prepared population, returning its position in the fitness array.
+	int select(Random rand);
+}
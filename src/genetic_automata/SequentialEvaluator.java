@@ -0,0 +1,14 @@
+package genetic_automata;
+
+import java.util.List;
+
+// Calculates the fitness of each DFA one after another on the calling thread.
+public class SequentialEvaluator implements FitnessEvaluator {
+
+	@Override
+	public void evaluate(List<DFA> population, TrainingSet examples, double cutoff) {
+		for (DFA dfa : population) {
+			dfa.calculateFitness(examples, cutoff);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package genetic_automata;
+
+import java.util.Random;
+
+/*
+ * SplitMix64 random number generator (the algorithm of SplittableRandom) that
+ * can be passed wherever a Random is expected. Unlike Random, whose seed is
+ * an AtomicLong updated with a compare-and-set on every draw, its state is a
+ * plain field, so it must not be shared between threads: give each thread its
+ * own generator with split(). The streams split from a generator created with
+ * a seed are the same on every run, whatever the number of threads.
+ *
+ * Unlike SplittableRandom its state can be read and restored, so a checkpoint
+ * can capture the exact point of its sequence.
+ */
+public class SplitMixRandom extends Random {
+	private static final long serialVersionUID = 1L;
+
+	// Increment of the state for the generator created from a seed (the odd integer closest to 2^64 / phi).
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private long state;
+
+	// Odd increment of the state, which differs between split generators.
+	private final long gamma;
+
+	// Create a generator whose sequence is determined by the seed.
+	public SplitMixRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	// Create a generator with a seed that differs on every call.
+	public SplitMixRandom() {
+		this(mix64(System.nanoTime()) ^ mix64(System.identityHashCode(new Object())));
+	}
+
+	private SplitMixRandom(long seed, long gamma) {
+		super(seed);
+		this.state = seed;
+		this.gamma = gamma;
+	}
+
+	// Create a generator continuing the sequence of the generator with the given state and gamma.
+	static SplitMixRandom restore(long state, long gamma) {
+		return new SplitMixRandom(state, gamma);
+	}
+
+	long getState() {
+		return state;
+	}
+
+	long getGamma() {
+		return gamma;
+	}
+
+	/*
+	 * Return a new generator whose sequence is statistically independent of
+	 * this one's, for use by another thread. Splitting advances this generator.
+	 */
+	public SplitMixRandom split() {
+		long seed = nextLong();
+		return new SplitMixRandom(seed, mixGamma(state += gamma));
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		// Called by the Random constructor, before the fields of this class are initialized.
+		super.setSeed(seed);
+		state = seed;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public long nextLong() {
+		return mix64(state += gamma);
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// Turn a seed into an odd increment with enough bit transitions to give a good sequence.
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int transitions = Long.bitCount(z ^ (z >>> 1));
+		return (transitions < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -0,0 +1,611 @@
+package genetic_automata;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+ * Parallel search over the population size, elitism offset and mutation rate
+ * of the genetic algorithm. Every configuration of a grid, or of a random
+ * sample of ranges, is run with the same seeds, one run per task on a
+ * work-stealing ForkJoinPool. Tasks are queued seed by seed, so every
+ * configuration has finished its first runs before any has finished its last.
+ *
+ * A configuration is ranked by the mean epochs of its runs, counting runs
+ * that did not converge with all their epochs, as in RunStore. Epochs vary
+ * widely between seeds, so a configuration is only cancelled, along with its
+ * runs in progress, once it is clearly beaten: when even its fastest run so
+ * far repeated for every remaining seed would leave its mean above the cancel
+ * margin times the mean the leading configuration would have if all its
+ * remaining runs failed. With a margin of 1, a cancelled configuration could
+ * not have ranked first. Both need MIN_RUNS finished runs. Cancelled runs are
+ * discarded. Each run is reproducible from its seed, but which runs are
+ * cancelled depends on the order in which the threads finish them.
+ *
+ * Every run has its own GeneticAlgorithm, settings and DFAs, so nothing is
+ * shared between runs but the read-only training examples.
+ *
+ *   java genetic_automata.Sweep --population 50,100,200 --mutation 0.1,0.2,0.4 --seeds 8
+ */
+public class Sweep {
+	// Runs a configuration must finish before it can be cancelled.
+	public static final int MIN_RUNS = 2;
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java genetic_automata.Sweep [options]",
+			"  --population <list> population sizes to try (default 200)",
+			"  --elitism <list>    elitism offsets to try; larger than the population are skipped (default 30)",
+			"  --mutation <list>   mutation rates to try (default 0.2)",
+			"  --random <n>        run n configurations drawn between the smallest and largest value",
+			"                      of each list instead of every combination",
+			"  --seeds <n>         runs of each configuration, with the same seeds for all (default 5)",
+			"  --seed <n>          seed the run seeds and random configurations are derived from",
+			"                      (default: random)",
+			"  --cancel-margin <x> cancel configurations whose best possible mean epochs is more than",
+			"                      x times the worst possible of the leader (default 1, 0 disables)",
+			"  --threads <n>       runs in parallel (default: number of processors)",
+			"  --epochs <n>        maximum number of epochs of each run (default 1000)",
+			"  --states <n>        number of states of each DFA (default 5)",
+			"  --alphabet <n>      number of input symbols, at most 256 (default 2)",
+			"  --training <file>   training examples, one '<input> <0|1>' per line",
+			"                      (default: binary multiples of 5)",
+			"  --selection <mode>  ROULETTE, TOURNAMENT or RANK (default ROULETTE)",
+			"  --store <dir>       add every finished run to the run store in the directory",
+			"  --language <name>   language the runs are stored under (default: the training file name,",
+			"                      or '" + RunStore.DEFAULT_LANGUAGE + "')");
+
+	// A configuration of the sweep and the outcome of its finished runs.
+	public static class Config {
+		private int population;
+		private int elitism;
+		private double mutation;
+
+		private int runs;
+		private int converged;
+		private long totalEpochs;
+		private int fastestEpochs = Integer.MAX_VALUE;
+		private boolean cancelled;
+
+		// Algorithms of the runs in progress, so they can be stopped if the configuration is cancelled.
+		private List<GeneticAlgorithm> running = new ArrayList<>();
+
+		public Config(int population, int elitism, double mutation) {
+			this.population = population;
+			this.elitism = elitism;
+			this.mutation = mutation;
+		}
+
+		public int getPopulation() {
+			return population;
+		}
+
+		public int getElitism() {
+			return elitism;
+		}
+
+		public double getMutation() {
+			return mutation;
+		}
+
+		// Number of finished runs, not counting cancelled ones.
+		public int getRuns() {
+			return runs;
+		}
+
+		public int getConverged() {
+			return converged;
+		}
+
+		public double getConvergenceRate() {
+			return (runs == 0) ? 0 : (converged * 1.0) / runs;
+		}
+
+		// Mean epochs over the finished runs, or infinity if there are none.
+		public double getMeanEpochs() {
+			return (runs == 0) ? Double.POSITIVE_INFINITY : (totalEpochs * 1.0) / runs;
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "population %d, elitism %d, mutation %.3f", population, elitism, mutation);
+		}
+	}
+
+	private TrainingSet examples;
+	private List<Config> configs;
+	private long[] seeds;
+
+	private int maxEpochs = GeneticAlgorithm.DEFAULT_MAX_EPOCHS;
+	private int stateCount = DFA.DEFAULT_STATE_COUNT;
+	private SelectionMode selectionMode = SelectionMode.ROULETTE;
+	private double cancelMargin = 1;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	// Store the finished runs are added to under the language, or null.
+	private RunStore store;
+	private String language;
+
+	// Outcome of the last call to run().
+	private int finishedRuns;
+	private int cancelledRuns;
+	private int skippedRuns;
+	private long elapsedNanos;
+
+	/*
+	 * Create a sweep of the configurations on the training examples, running
+	 * each with seedCount seeds derived from the given seed.
+	 */
+	public Sweep(TrainingSet examples, List<Config> configs, int seedCount, long seed) {
+		this.examples = examples;
+		this.configs = configs;
+
+		SplitMixRandom rand = new SplitMixRandom(seed);
+		seeds = new long[seedCount];
+
+		for (int i = 0; i < seedCount; i++) {
+			seeds[i] = rand.nextLong();
+		}
+	}
+
+	// Return every combination of the values in which the elitism offset is at most the population size.
+	public static List<Config> grid(int[] populations, int[] elitisms, double[] mutations) {
+		List<Config> configs = new ArrayList<>();
+
+		for (int population : populations) {
+			for (int elitism : elitisms) {
+				for (double mutation : mutations) {
+					if (elitism <= population) {
+						configs.add(new Config(population, elitism, mutation));
+					}
+				}
+			}
+		}
+
+		return configs;
+	}
+
+	/*
+	 * Return count configurations drawn uniformly between the smallest and
+	 * largest of each of the values, with the elitism offset also at most the
+	 * population size.
+	 */
+	public static List<Config> random(int count, int[] populations, int[] elitisms, double[] mutations, Random rand) {
+		List<Config> configs = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			int population = between(rand, min(populations), max(populations));
+			int elitism = between(rand, Math.min(min(elitisms), population), Math.min(max(elitisms), population));
+			double mutation = min(mutations) + rand.nextDouble() * (max(mutations) - min(mutations));
+			configs.add(new Config(population, elitism, mutation));
+		}
+
+		return configs;
+	}
+
+	private static int between(Random rand, int low, int high) {
+		return (high <= low) ? low : low + rand.nextInt(high - low + 1);
+	}
+
+	private static int min(int[] values) {
+		int min = values[0];
+
+		for (int value : values) {
+			min = Math.min(min, value);
+		}
+
+		return min;
+	}
+
+	private static int max(int[] values) {
+		int max = values[0];
+
+		for (int value : values) {
+			max = Math.max(max, value);
+		}
+
+		return max;
+	}
+
+	private static double min(double[] values) {
+		double min = values[0];
+
+		for (double value : values) {
+			min = Math.min(min, value);
+		}
+
+		return min;
+	}
+
+	private static double max(double[] values) {
+		double max = values[0];
+
+		for (double value : values) {
+			max = Math.max(max, value);
+		}
+
+		return max;
+	}
+
+	public void setMaxEpochs(int maxEpochs) {
+		this.maxEpochs = maxEpochs;
+	}
+
+	// Number of states of the DFAs evolved by every run.
+	public void setStateCount(int stateCount) {
+		DFA.checkDimensions(stateCount, examples.getAlphabetSize());
+		this.stateCount = stateCount;
+	}
+
+	public void setSelectionMode(SelectionMode selectionMode) {
+		this.selectionMode = selectionMode;
+	}
+
+	// Set how clearly a configuration must be beaten to be cancelled, or 0 to never cancel.
+	public void setCancelMargin(double cancelMargin) {
+		this.cancelMargin = cancelMargin;
+	}
+
+	// Set the number of runs in parallel.
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	// Add every finished run to the store under the language.
+	public void setStore(RunStore store, String language) {
+		this.store = store;
+		this.language = language;
+	}
+
+	/*
+	 * Run every configuration with every seed, apart from those cancelled,
+	 * and return the configurations with the fewest mean epochs first.
+	 */
+	public List<Config> run() throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<Future<?>> results = new ArrayList<>();
+		long start = System.nanoTime();
+
+		finishedRuns = 0;
+		cancelledRuns = 0;
+		skippedRuns = 0;
+
+		try {
+			for (long seed : seeds) {
+				for (Config config : configs) {
+					results.add(pool.submit(() -> {
+						runOnce(config, seed);
+						return null;
+					}));
+				}
+			}
+
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The sweep was interrupted.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw new IllegalStateException("A run of the sweep failed.", e.getCause());
+		} finally {
+			pool.shutdownNow();
+			elapsedNanos = System.nanoTime() - start;
+		}
+
+		List<Config> ranked = new ArrayList<>(configs);
+		ranked.sort(Comparator.comparingDouble(Config::getMeanEpochs)
+				.thenComparing(Comparator.comparingDouble(Config::getConvergenceRate).reversed()));
+		return ranked;
+	}
+
+	// Run the configuration with the seed, unless it has been cancelled.
+	private void runOnce(Config config, long seed) throws IOException {
+		// Creating the population is not free, so a cancelled configuration is skipped before that.
+		if (skipIfCancelled(config)) {
+			return;
+		}
+
+		GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, stateCount, seed);
+		algorithm.setSettings(config.population, config.elitism, config.mutation, maxEpochs);
+		algorithm.setSelectionMode(selectionMode);
+
+		synchronized (this) {
+			// The configuration may have been cancelled while the algorithm was created.
+			if (skipIfCancelled(config)) {
+				return;
+			}
+
+			config.running.add(algorithm);
+		}
+
+		DFA best;
+
+		try {
+			best = algorithm.runEpochs();
+		} finally {
+			algorithm.shutdown();
+		}
+
+		synchronized (this) {
+			config.running.remove(algorithm);
+
+			if (algorithm.isCancelled()) {
+				cancelledRuns++;
+				return;
+			}
+
+			finishedRuns++;
+			config.runs++;
+			config.totalEpochs += algorithm.getCurrentEpoch();
+			config.fastestEpochs = Math.min(config.fastestEpochs, algorithm.getCurrentEpoch());
+
+			if (best.getFitness() == 1.0) {
+				config.converged++;
+			}
+
+			cancelBeaten();
+		}
+
+		if (store != null) {
+			store.append(RunRecord.of(language, algorithm, best, seed));
+		}
+	}
+
+	// Count a run of the configuration as skipped and return true if the configuration has been cancelled.
+	private synchronized boolean skipIfCancelled(Config config) {
+		if (config.cancelled) {
+			skippedRuns++;
+		}
+
+		return config.cancelled;
+	}
+
+	// Cancel the configurations that are clearly beaten by the leading one.
+	private void cancelBeaten() {
+		if (cancelMargin <= 0) {
+			return;
+		}
+
+		// The leader is the configuration with the lowest mean epochs if all its remaining runs failed.
+		Config leader = null;
+
+		for (Config config : configs) {
+			if (!config.cancelled && config.runs >= MIN_RUNS
+					&& (leader == null || worstPossible(config) < worstPossible(leader))) {
+				leader = config;
+			}
+		}
+
+		if (leader == null) {
+			return;
+		}
+
+		for (Config config : configs) {
+			int remaining = seeds.length - config.runs;
+
+			if (config.cancelled || config.runs < MIN_RUNS || remaining == 0) {
+				continue;
+			}
+
+			// The mean if every remaining run were as fast as the fastest so far.
+			double bestPossible = (config.totalEpochs + (long) remaining * config.fastestEpochs) * 1.0 / seeds.length;
+
+			if (bestPossible > cancelMargin * worstPossible(leader)) {
+				config.cancelled = true;
+
+				for (GeneticAlgorithm algorithm : config.running) {
+					algorithm.cancel();
+				}
+
+				System.err.printf(Locale.ROOT, "Cancelled %s after %d runs (%.1f mean epochs, leader %s %.1f)%n",
+						config, config.runs, config.getMeanEpochs(), leader, leader.getMeanEpochs());
+			}
+		}
+	}
+
+	// The mean epochs of the configuration if every remaining run failed, running all its epochs.
+	private double worstPossible(Config config) {
+		int remaining = seeds.length - config.runs;
+		return (config.totalEpochs + (long) remaining * maxEpochs) * 1.0 / seeds.length;
+	}
+
+	// Number of runs the last sweep finished, not counting cancelled ones.
+	public int getFinishedRuns() {
+		return finishedRuns;
+	}
+
+	// Number of runs the last sweep stopped part way because their configuration was cancelled.
+	public int getCancelledRuns() {
+		return cancelledRuns;
+	}
+
+	// Number of runs the last sweep did not start because their configuration was cancelled.
+	public int getSkippedRuns() {
+		return skippedRuns;
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedNanos / 1e9;
+	}
+
+	// Finished runs per hour of wall time per thread of the last sweep.
+	public double getRunsPerHourPerCore() {
+		return (elapsedNanos == 0) ? 0 : finishedRuns * 3600e9 / elapsedNanos / threads;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int[] populations = { GeneticAlgorithm.DEFAULT_POPULATION_SIZE };
+		int[] elitisms = { GeneticAlgorithm.DEFAULT_ELITISM_OFFSET };
+		double[] mutations = { GeneticAlgorithm.DEFAULT_MUTATION_RATE };
+		int randomCount = 0;
+		int seedCount = 5;
+		long seed = new Random().nextLong();
+		double cancelMargin = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int epochs = GeneticAlgorithm.DEFAULT_MAX_EPOCHS;
+		int stateCount = DFA.DEFAULT_STATE_COUNT;
+		int alphabetSize = DFA.DEFAULT_ALPHABET_SIZE;
+		String trainingFile = null;
+		SelectionMode selectionMode = SelectionMode.ROULETTE;
+		String storeDirectory = null;
+		String language = null;
+
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (args[i].equals("--help")) {
+					System.out.println(USAGE);
+					return;
+				}
+
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+				}
+
+				String value = args[i + 1];
+
+				switch (args[i]) {
+				case "--population":
+					populations = parseInts(value);
+					break;
+				case "--elitism":
+					elitisms = parseInts(value);
+					break;
+				case "--mutation":
+					mutations = parseDoubles(value);
+					break;
+				case "--random":
+					randomCount = Integer.parseInt(value);
+					break;
+				case "--seeds":
+					seedCount = Integer.parseInt(value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				case "--cancel-margin":
+					cancelMargin = Double.parseDouble(value);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(value);
+					break;
+				case "--epochs":
+					epochs = Integer.parseInt(value);
+					break;
+				case "--states":
+					stateCount = Integer.parseInt(value);
+					break;
+				case "--alphabet":
+					alphabetSize = Integer.parseInt(value);
+					break;
+				case "--training":
+					trainingFile = value;
+					break;
+				case "--selection":
+					selectionMode = SelectionMode.valueOf(value.toUpperCase(Locale.ROOT));
+					break;
+				case "--store":
+					storeDirectory = value;
+					break;
+				case "--language":
+					language = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+
+			if (seedCount < 1 || threads < 1 || randomCount < 0) {
+				throw new IllegalArgumentException("At least one seed and one thread are needed.");
+			}
+
+			DFA.checkDimensions(stateCount, alphabetSize);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		SplitMixRandom rand = new SplitMixRandom(seed);
+		TrainingSet examples = (trainingFile != null) ? TrainingSet.read(Paths.get(trainingFile), alphabetSize)
+				: BatchRunner.createTrainingExamples(new Random(seed), alphabetSize);
+		List<Config> configs = (randomCount > 0) ? random(randomCount, populations, elitisms, mutations, rand)
+				: grid(populations, elitisms, mutations);
+
+		if (configs.isEmpty()) {
+			System.err.println("No configuration has an elitism offset within its population size.");
+			System.exit(2);
+		}
+
+		Sweep sweep = new Sweep(examples, configs, seedCount, rand.nextLong());
+		sweep.setMaxEpochs(epochs);
+		sweep.setStateCount(stateCount);
+		sweep.setSelectionMode(selectionMode);
+		sweep.setCancelMargin(cancelMargin);
+		sweep.setThreads(threads);
+
+		RunStore store = null;
+
+		if (storeDirectory != null) {
+			if (language == null) {
+				language = (trainingFile != null) ? Paths.get(trainingFile).getFileName().toString()
+						: RunStore.DEFAULT_LANGUAGE;
+			}
+
+			store = RunStore.open(Paths.get(storeDirectory));
+			sweep.setStore(store, language);
+		}
+
+		try {
+			for (Config config : sweep.run()) {
+				System.out.printf(Locale.ROOT, "%s: %d runs, %.0f%% converged, %.1f mean epochs%s%n", config,
+						config.getRuns(), 100 * config.getConvergenceRate(), config.getMeanEpochs(),
+						config.isCancelled() ? " (cancelled)" : "");
+			}
+		} finally {
+			if (store != null) {
+				store.close();
+			}
+		}
+
+		System.out.printf(Locale.ROOT, "%d runs finished, %d cancelled and %d skipped in %.1f s on %d threads: "
+				+ "%.0f runs/hour/core%n", sweep.getFinishedRuns(), sweep.getCancelledRuns(), sweep.getSkippedRuns(),
+				sweep.getElapsedSeconds(), threads, sweep.getRunsPerHourPerCore());
+	}
+
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+
+		return values;
+	}
+
+	private static double[] parseDoubles(String list) {
+		String[] parts = list.split(",");
+		double[] values = new double[parts.length];
+
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Double.parseDouble(parts[i].trim());
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,68 @@
+package genetic_automata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Calculates the fitness of the population on a fixed pool of threads. The
+ * population is divided into one contiguous chunk per thread.
+ */
+public class ThreadPoolEvaluator implements FitnessEvaluator {
+	private int threadCount;
+	private ExecutorService executor;
+
+	// Use one thread per available processor.
+	public ThreadPoolEvaluator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ThreadPoolEvaluator(int threadCount) {
+		this.threadCount = threadCount;
+
+		// Daemon threads so an unfinished evaluator never keeps the application alive.
+		executor = Executors.newFixedThreadPool(threadCount, (runnable) -> {
+			Thread thread = new Thread(runnable, "fitness-evaluator");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void evaluate(List<DFA> population, TrainingSet examples, double cutoff) {
+		int chunkSize = (population.size() + threadCount - 1) / threadCount;
+		List<Callable<Void>> tasks = new ArrayList<>();
+
+		for (int start = 0; start < population.size(); start += chunkSize) {
+			List<DFA> chunk = population.subList(start, Math.min(start + chunkSize, population.size()));
+
+			tasks.add(() -> {
+				for (DFA dfa : chunk) {
+					dfa.calculateFitness(examples, cutoff);
+				}
+				return null;
+			});
+		}
+
+		try {
+			// Wait for every chunk, surfacing the first failure.
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Fitness evaluation was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Fitness evaluation failed.", e.getCause());
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,40 @@
+package genetic_automata;
+
+import java.util.Random;
+
+/*
+ * Tournament selection, where a handful of DFAs are drawn uniformly at random
+ * and the fittest of them is selected. Each draw costs O(tournament size).
+ */
+public class TournamentSelection implements SelectionStrategy {
+	// Number of DFAs competing in each tournament.
+	public static final int DEFAULT_TOURNAMENT_SIZE = 3;
+
+	private int tournamentSize;
+	private int size;
+
+	public TournamentSelection() {
+		this(DEFAULT_TOURNAMENT_SIZE);
+	}
+
+	public TournamentSelection(int tournamentSize) {
+		this.tournamentSize = tournamentSize;
+	}
+
+	@Override
+	public void prepare(double[] fitness, int size) {
+		this.size = size;
+	}
+
+	@Override
+	public int select(Random rand) {
+		// The fitness values are in decreasing order, so the lowest position drawn wins.
+		int winner = rand.nextInt(size);
+
+		for (int i = 1; i < tournamentSize; i++) {
+			winner = Math.min(winner, rand.nextInt(size));
+		}
+
+		return winner;
+	}
+}
@@ -0,0 +1,331 @@
+package genetic_automata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Training examples that have been encoded once into DFA symbols, so the
+ * DFAs can be run on them repeatedly without decoding characters or
+ * allocating. The symbols of every input are stored back to back in a single
+ * array; input i occupies the range [offsets[i], offsets[i + 1]).
+ */
+public class TrainingSet {
+	// Largest alphabet whose symbols are written as digits and letters.
+	public static final int DIGIT_ALPHABET_SIZE = 36;
+
+	private byte[] symbols;
+	private int[] offsets;
+	private boolean[] expected;
+
+	// Number of symbols of the alphabet the inputs are encoded in.
+	private int alphabetSize;
+
+	// Prefix trie over the inputs, or null if DFAs should run each input separately.
+	private TrainingTrie trie;
+
+	/*
+	 * Maximum number of bytes the EvaluationTraces of a whole population on
+	 * these examples may take together, or 0 if DFAs should keep no trace.
+	 */
+	private long traceBudget;
+
+	/*
+	 * Order in which DFAs that may stop evaluating early run the examples,
+	 * or null to run them in their natural order.
+	 */
+	private int[] order;
+
+	// Compiler of the DFAs evaluated on these examples, or null if DFAs should run from their transition tables.
+	private DFACompiler compiler;
+
+	public TrainingSet(byte[] symbols, int[] offsets, boolean[] expected, int alphabetSize) {
+		this.symbols = symbols;
+		this.offsets = offsets;
+		this.expected = expected;
+		this.alphabetSize = alphabetSize;
+	}
+
+	// Create a training set with the same examples and evaluation options as this one.
+	private TrainingSet copy() {
+		TrainingSet copy = new TrainingSet(symbols, offsets, expected, alphabetSize);
+		copy.trie = trie;
+		copy.traceBudget = traceBudget;
+		copy.order = order;
+		copy.compiler = compiler;
+		return copy;
+	}
+
+	/*
+	 * Return a training set with the same examples that DFAs evaluate by
+	 * walking a prefix trie, simulating each shared prefix only once.
+	 */
+	public TrainingSet withTrie() {
+		TrainingSet indexed = copy();
+
+		if (trie == null) {
+			indexed.trie = new TrainingTrie(this);
+		}
+
+		return indexed;
+	}
+
+	// Return a training set with the same examples that DFAs evaluate one input at a time.
+	public TrainingSet withoutTrie() {
+		TrainingSet plain = copy();
+		plain.trie = null;
+		return plain;
+	}
+
+	/*
+	 * Return a training set with the same examples on which the elites of a
+	 * population keep EvaluationTraces of up to traceBudget bytes in total,
+	 * so that they can be re-scored incrementally after a mutation. A budget
+	 * of 0 disables traces. Traces are not used while the training set has a
+	 * prefix trie.
+	 */
+	public TrainingSet withTraceBudget(long traceBudget) {
+		TrainingSet traced = copy();
+		traced.traceBudget = traceBudget;
+		return traced;
+	}
+
+	/*
+	 * Return a training set with the same examples on which DFAs are compiled
+	 * by the compiler and run as CompiledDFAs, or run from their transition
+	 * tables if it is null. Compiled DFAs are not used while the training set
+	 * has a prefix trie or keeps evaluation traces.
+	 */
+	public TrainingSet withCompiler(DFACompiler compiler) {
+		TrainingSet compiled = copy();
+		compiled.compiler = compiler;
+		return compiled;
+	}
+
+	/*
+	 * Return a training set with the same examples, ordered so that those the
+	 * given DFAs misclassify most often come first. When the DFAs are the best
+	 * of the population, these are the examples that best tell good DFAs from
+	 * bad ones, so evaluations that stop early stop as soon as possible.
+	 */
+	public TrainingSet orderedBy(List<DFA> judges) {
+		int[] misses = new int[size()];
+
+		for (DFA judge : judges) {
+			for (int i = 0; i < size(); i++) {
+				if (judge.run(symbols, offsets[i], offsets[i + 1]) != expected[i]) {
+					misses[i]++;
+				}
+			}
+		}
+
+		// Counting sort by decreasing number of misses, keeping the natural order within ties.
+		int[] starts = new int[judges.size() + 2];
+
+		for (int i = 0; i < size(); i++) {
+			starts[judges.size() - misses[i] + 1]++;
+		}
+
+		for (int i = 1; i < starts.length; i++) {
+			starts[i] += starts[i - 1];
+		}
+
+		int[] newOrder = new int[size()];
+
+		for (int i = 0; i < size(); i++) {
+			newOrder[starts[judges.size() - misses[i]]++] = i;
+		}
+
+		TrainingSet ordered = copy();
+		ordered.order = newOrder;
+		return ordered;
+	}
+
+	/*
+	 * Return a training set holding copies of the examples at
+	 * indices[from..to), with the same trie, trace and compiler options as this one.
+	 */
+	public TrainingSet subset(int[] indices, int from, int to) {
+		int[] subsetOffsets = new int[to - from + 1];
+		boolean[] subsetExpected = new boolean[to - from];
+
+		for (int i = from; i < to; i++) {
+			int example = indices[i];
+			subsetOffsets[i - from + 1] = subsetOffsets[i - from] + offsets[example + 1] - offsets[example];
+			subsetExpected[i - from] = expected[example];
+		}
+
+		byte[] subsetSymbols = new byte[subsetOffsets[to - from]];
+
+		for (int i = from; i < to; i++) {
+			int example = indices[i];
+			System.arraycopy(symbols, offsets[example], subsetSymbols, subsetOffsets[i - from],
+					offsets[example + 1] - offsets[example]);
+		}
+
+		TrainingSet subset = new TrainingSet(subsetSymbols, subsetOffsets, subsetExpected, alphabetSize);
+		subset.traceBudget = traceBudget;
+		subset.compiler = compiler;
+
+		if (trie != null) {
+			subset.trie = trie.subset(indices, from, to, subsetExpected);
+		}
+
+		return subset;
+	}
+
+	// Return a training set with the same examples run in the given order, or in their natural order if null.
+	TrainingSet withOrder(int[] order) {
+		TrainingSet ordered = copy();
+		ordered.order = order;
+		return ordered;
+	}
+
+	// Returns the order in which to run the examples, or null for their natural order.
+	public int[] getOrder() {
+		return order;
+	}
+
+	// Returns true if the other training set holds the very same examples, whatever its evaluation options.
+	public boolean hasSameExamples(TrainingSet other) {
+		return other != null && symbols == other.symbols && offsets == other.offsets && expected == other.expected;
+	}
+
+	// Returns the compiler of the DFAs evaluated on these examples, or null if there is none.
+	public DFACompiler getCompiler() {
+		return compiler;
+	}
+
+	public long getTraceBudget() {
+		return traceBudget;
+	}
+
+	// Encode the string inputs and their expected outputs into symbols of an alphabet of the given size.
+	public static TrainingSet encode(String[] inputs, boolean[] expected, int alphabetSize) {
+		int[] offsets = new int[inputs.length + 1];
+
+		for (int i = 0; i < inputs.length; i++) {
+			offsets[i + 1] = offsets[i] + inputs[i].length();
+		}
+
+		byte[] symbols = new byte[offsets[inputs.length]];
+
+		for (int i = 0; i < inputs.length; i++) {
+			for (int j = 0; j < inputs[i].length(); j++) {
+				symbols[offsets[i] + j] = (byte) encodeSymbol(inputs[i].charAt(j), alphabetSize);
+			}
+		}
+
+		return new TrainingSet(symbols, offsets, expected.clone(), alphabetSize);
+	}
+
+	/*
+	 * Read a training set from a text file with one example per line: the
+	 * input, whitespace, and 1/true if the input should be accepted or 0/false
+	 * if it should be rejected. Blank lines and lines starting with '#' are skipped.
+	 * The inputs are encoded into symbols of an alphabet of the given size.
+	 */
+	public static TrainingSet read(Path file, int alphabetSize) throws IOException {
+		List<String> inputs = new ArrayList<>();
+		List<Boolean> expected = new ArrayList<>();
+
+		readExamples(file, (input, accept) -> {
+			inputs.add(input);
+			expected.add(accept);
+		});
+
+		boolean[] expectedArray = new boolean[expected.size()];
+
+		for (int i = 0; i < expectedArray.length; i++) {
+			expectedArray[i] = expected.get(i);
+		}
+
+		return encode(inputs.toArray(new String[0]), expectedArray, alphabetSize);
+	}
+
+	// Receives the examples of a text training file one at a time.
+	interface ExampleHandler {
+		void example(String input, boolean expected) throws IOException;
+	}
+
+	// Pass each example of a text training file in the format of read(...) to the handler, in file order.
+	static void readExamples(Path file, ExampleHandler handler) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				String[] fields = line.split("\\s+");
+
+				// An empty input is written as just its label.
+				String input = (fields.length == 1) ? "" : fields[0];
+				String label = fields[fields.length - 1];
+
+				if (fields.length > 2 || !isLabel(label)) {
+					throw new IOException(file + ":" + lineNumber + ": expected '<input> <label>' but found '" + line + "'");
+				}
+
+				handler.example(input, label.equals("1") || label.equalsIgnoreCase("true"));
+			}
+		}
+	}
+
+	private static boolean isLabel(String label) {
+		return label.equals("0") || label.equals("1") || label.equalsIgnoreCase("true") || label.equalsIgnoreCase("false");
+	}
+
+	/*
+	 * Convert a character of an input into a symbol of an alphabet of the given
+	 * size. Alphabets of up to 36 symbols are written as digits followed by
+	 * letters ('0'-'9', then 'a'-'z' in either case). Larger alphabets are
+	 * written with the character whose code is the symbol, so 256 symbols
+	 * cover Latin-1.
+	 */
+	public static int encodeSymbol(char c, int alphabetSize) {
+		int symbol = (alphabetSize <= DIGIT_ALPHABET_SIZE) ? Character.getNumericValue(c) : c;
+
+		if (symbol < 0 || symbol >= alphabetSize) {
+			throw new IllegalArgumentException("Character '" + c + "' is not in the alphabet of the DFA.");
+		}
+
+		return symbol;
+	}
+
+	// Number of examples in the training set.
+	public int size() {
+		return expected.length;
+	}
+
+	// Number of symbols of the alphabet the inputs are encoded in.
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	// Returns the prefix trie over the inputs, or null if there is none.
+	public TrainingTrie getTrie() {
+		return trie;
+	}
+
+	public byte[] getSymbols() {
+		return symbols;
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public boolean[] getExpected() {
+		return expected;
+	}
+}
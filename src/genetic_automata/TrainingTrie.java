@@ -0,0 +1,330 @@
+package genetic_automata;
+
+import java.util.Arrays;
+
+/*
+ * Prefix trie over the inputs of a training set. Inputs that share a prefix
+ * share the trie nodes of that prefix, so a DFA evaluated over the trie
+ * simulates every shared prefix only once instead of once per input.
+ *
+ * Nodes are numbered so that the parent of a node always has a smaller
+ * number. Evaluating a DFA is then a single pass over the nodes in
+ * increasing order, computing the state of each node from the state of its
+ * parent.
+ *
+ * A trie over a subset of the examples is cut out of the trie over all of
+ * them, so resampling a mini-batch never builds a trie from scratch.
+ */
+public class TrainingTrie {
+	// Alphabets up to this size give every node a slot per symbol while building; larger ones hash the edges.
+	private static final int DENSE_ALPHABET_SIZE = 4;
+
+	// Parent node and the symbol on the edge from the parent, for every node except the root.
+	private int[] parents;
+	private byte[] symbols;
+
+	// Number of inputs ending at each node that should be accepted and rejected, respectively.
+	private int[] acceptCounts;
+	private int[] rejectCounts;
+
+	// Node each example ends at.
+	private int[] exampleNodes;
+
+	private int nodeCount;
+	private int exampleCount;
+
+	// Number of symbols of the alphabet the inputs are encoded in.
+	private int alphabetSize;
+
+	// Scratch array holding the state reached at each node, one per evaluating thread.
+	private ThreadLocal<int[]> nodeStates;
+
+	// Number plus one of each node in the trie being built by subset(...), or 0 if it is not in it; null until first used.
+	private int[] subsetNumbers;
+
+	// Build the trie over the inputs of the training set.
+	public TrainingTrie(TrainingSet examples) {
+		byte[] inputSymbols = examples.getSymbols();
+		int[] offsets = examples.getOffsets();
+		boolean[] expected = examples.getExpected();
+
+		// A trie never has more nodes than the root plus one per symbol of the training set.
+		int capacity = inputSymbols.length + 1;
+		alphabetSize = examples.getAlphabetSize();
+		Edges children = new Edges(capacity, alphabetSize);
+
+		parents = new int[capacity];
+		symbols = new byte[capacity];
+		acceptCounts = new int[capacity];
+		rejectCounts = new int[capacity];
+		exampleNodes = new int[expected.length];
+		nodeCount = 1;
+		exampleCount = expected.length;
+
+		for (int i = 0; i < expected.length; i++) {
+			int node = 0;
+
+			// Follow the input down the trie, adding nodes where the path ends.
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				int symbol = inputSymbols[j] & 0xff;
+				int child = children.get(node, symbol);
+
+				if (child < 0) {
+					child = nodeCount++;
+					children.put(node, symbol, child);
+					parents[child] = node;
+					symbols[child] = inputSymbols[j];
+				}
+
+				node = child;
+			}
+
+			exampleNodes[i] = node;
+
+			if (expected[i]) {
+				acceptCounts[node]++;
+			} else {
+				rejectCounts[node]++;
+			}
+		}
+
+		// Trim the arrays down to the nodes actually created.
+		parents = Arrays.copyOf(parents, nodeCount);
+		symbols = Arrays.copyOf(symbols, nodeCount);
+		acceptCounts = Arrays.copyOf(acceptCounts, nodeCount);
+		rejectCounts = Arrays.copyOf(rejectCounts, nodeCount);
+
+		nodeStates = ThreadLocal.withInitial(() -> new int[nodeCount]);
+	}
+
+	// Create a trie from its nodes, numbered so that every parent comes before its children.
+	private TrainingTrie(int alphabetSize, int nodeCount, int[] parents, byte[] symbols, int[] exampleNodes,
+			int[] acceptCounts, int[] rejectCounts) {
+		this.alphabetSize = alphabetSize;
+		this.nodeCount = nodeCount;
+		this.parents = parents;
+		this.symbols = symbols;
+		this.exampleNodes = exampleNodes;
+		this.acceptCounts = acceptCounts;
+		this.rejectCounts = rejectCounts;
+		exampleCount = exampleNodes.length;
+
+		nodeStates = ThreadLocal.withInitial(() -> new int[nodeCount]);
+	}
+
+	/*
+	 * Return the trie over the examples at indices[from..to), where expected
+	 * holds their expected verdicts in the same order. It is cut out of this
+	 * trie by following the path of each example only up to the first node
+	 * already taken, so resampling a mini-batch never builds a trie from the
+	 * symbols of its inputs.
+	 */
+	public synchronized TrainingTrie subset(int[] indices, int from, int to, boolean[] expected) {
+		if (subsetNumbers == null) {
+			subsetNumbers = new int[nodeCount];
+		}
+
+		// Nodes of this trie taken into the subset, and their parents and symbols in the subset.
+		int[] nodes = new int[64];
+		int[] subsetParents = new int[64];
+		byte[] subsetSymbols = new byte[64];
+		int[] subsetExampleNodes = new int[to - from];
+		int count = 1;
+		subsetNumbers[0] = 1;
+
+		for (int i = from; i < to; i++) {
+			int leaf = exampleNodes[indices[i]];
+			int length = 0;
+			int node = leaf;
+
+			// Measure the path of the example up to the first node already taken.
+			while (subsetNumbers[node] == 0) {
+				length++;
+				node = parents[node];
+			}
+
+			int parent = subsetNumbers[node] - 1;
+
+			while (count + length > nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+				subsetParents = Arrays.copyOf(subsetParents, nodes.length);
+				subsetSymbols = Arrays.copyOf(subsetSymbols, nodes.length);
+			}
+
+			// Take the path leaf first, numbering its nodes so that every node comes after its parent.
+			node = leaf;
+
+			for (int k = count + length - 1; k >= count; k--) {
+				nodes[k] = node;
+				subsetNumbers[node] = k + 1;
+				subsetParents[k] = (k == count) ? parent : k - 1;
+				subsetSymbols[k] = symbols[node];
+				node = parents[node];
+			}
+
+			count += length;
+			subsetExampleNodes[i - from] = subsetNumbers[leaf] - 1;
+		}
+
+		int[] subsetAcceptCounts = new int[count];
+		int[] subsetRejectCounts = new int[count];
+
+		for (int i = 0; i < to - from; i++) {
+			if (expected[i]) {
+				subsetAcceptCounts[subsetExampleNodes[i]]++;
+			} else {
+				subsetRejectCounts[subsetExampleNodes[i]]++;
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			subsetNumbers[nodes[i]] = 0;
+		}
+
+		return new TrainingTrie(alphabetSize, count, Arrays.copyOf(subsetParents, count),
+				Arrays.copyOf(subsetSymbols, count), subsetExampleNodes, subsetAcceptCounts, subsetRejectCounts);
+	}
+
+	/*
+	 * Count the examples a DFA classifies correctly, where the DFA's delta
+	 * function and accept states are stored at the given offsets of larger tables.
+	 */
+	public int countCorrect(int[] delta, int deltaOffset, long[] acceptMask, int acceptOffset, int startState) {
+		int[] states = nodeStates.get();
+		int correct = 0;
+
+		for (int node = 0; node < nodeCount; node++) {
+			int state = (node == 0) ? startState
+					: delta[deltaOffset + states[parents[node]] * alphabetSize + (symbols[node] & 0xff)];
+			states[node] = state;
+
+			if ((acceptMask[acceptOffset + (state >>> 6)] & (1L << state)) != 0) {
+				correct += acceptCounts[node];
+			} else {
+				correct += rejectCounts[node];
+			}
+		}
+
+		return correct;
+	}
+
+	// Count the examples a DFA with the given delta function and accept states classifies correctly.
+	public int countCorrect(TransitionTable delta, long[] acceptMask, int startState) {
+		int[] states = nodeStates.get();
+		int alphabetSize = delta.getAlphabetSize();
+		int correct = 0;
+
+		for (int node = 0; node < nodeCount; node++) {
+			int state = (node == 0) ? startState
+					: delta.get(states[parents[node]] * alphabetSize + (symbols[node] & 0xff));
+			states[node] = state;
+
+			if ((acceptMask[state >>> 6] & (1L << state)) != 0) {
+				correct += acceptCounts[node];
+			} else {
+				correct += rejectCounts[node];
+			}
+		}
+
+		return correct;
+	}
+
+	// Number of nodes in the trie, which is the number of transitions simulated per DFA plus one.
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	// Number of examples the trie was built from.
+	public int getExampleCount() {
+		return exampleCount;
+	}
+
+	/*
+	 * Child of each node along each symbol, used while building the trie.
+	 * Small alphabets get a slot per node and symbol; larger ones keep only
+	 * the edges that exist, in an open-addressing hash table, since most
+	 * nodes have few children.
+	 */
+	private static class Edges {
+		private final int alphabetSize;
+
+		// Child per node and symbol, or null if the edges are hashed.
+		private int[] dense;
+
+		// Hashed edges, keyed by node * alphabetSize + symbol; unused slots have key -1.
+		private long[] keys;
+		private int[] children;
+		private int size;
+
+		Edges(int capacity, int alphabetSize) {
+			this.alphabetSize = alphabetSize;
+
+			if (alphabetSize <= DENSE_ALPHABET_SIZE) {
+				dense = new int[capacity * alphabetSize];
+				Arrays.fill(dense, -1);
+			} else {
+				keys = new long[64];
+				children = new int[64];
+				Arrays.fill(keys, -1);
+			}
+		}
+
+		// Returns the child of the node along the symbol, or -1 if it has none.
+		int get(int node, int symbol) {
+			if (dense != null) {
+				return dense[node * alphabetSize + symbol];
+			}
+
+			long key = (long) node * alphabetSize + symbol;
+
+			for (int slot = slot(key); keys[slot] >= 0; slot = (slot + 1) & (keys.length - 1)) {
+				if (keys[slot] == key) {
+					return children[slot];
+				}
+			}
+
+			return -1;
+		}
+
+		// Add the child of the node along the symbol, which it must not have yet.
+		void put(int node, int symbol, int child) {
+			if (dense != null) {
+				dense[node * alphabetSize + symbol] = child;
+				return;
+			}
+
+			// Keep the table at most half full.
+			if (2 * (size + 1) > keys.length) {
+				long[] oldKeys = keys;
+				int[] oldChildren = children;
+				keys = new long[2 * oldKeys.length];
+				children = new int[2 * oldKeys.length];
+				Arrays.fill(keys, -1);
+
+				for (int i = 0; i < oldKeys.length; i++) {
+					if (oldKeys[i] >= 0) {
+						insert(oldKeys[i], oldChildren[i]);
+					}
+				}
+			}
+
+			insert((long) node * alphabetSize + symbol, child);
+			size++;
+		}
+
+		private void insert(long key, int child) {
+			int slot = slot(key);
+
+			while (keys[slot] >= 0) {
+				slot = (slot + 1) & (keys.length - 1);
+			}
+
+			keys[slot] = key;
+			children[slot] = child;
+		}
+
+		private int slot(long key) {
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+		}
+	}
+}
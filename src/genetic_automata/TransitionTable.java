@@ -0,0 +1,233 @@
+package genetic_automata;
+
+/*
+ * Flattened delta function of a DFA. The next state for a state and symbol is
+ * stored at index state * alphabetSize + symbol, in the narrowest element type
+ * that can hold every state: bytes for up to 256 states, shorts for up to
+ * 65536 states, and ints beyond that. The table of a 256-state DFA over 256
+ * symbols then takes 64 KiB rather than 256 KiB.
+ *
+ * Each element type has its own run loop, and alphabets whose size is a power
+ * of two index rows with a shift rather than a multiplication, so the common
+ * small DFAs run as fast as they did on a plain int array.
+ */
+public abstract class TransitionTable {
+	protected final int stateCount;
+	protected final int alphabetSize;
+
+	// Base 2 logarithm of the alphabet size if it is a power of two, or -1 otherwise.
+	protected final int alphabetShift;
+
+	protected TransitionTable(int stateCount, int alphabetSize) {
+		this.stateCount = stateCount;
+		this.alphabetSize = alphabetSize;
+		this.alphabetShift = (Integer.bitCount(alphabetSize) == 1) ? Integer.numberOfTrailingZeros(alphabetSize) : -1;
+	}
+
+	// Create a table in which every transition leads to state 0.
+	public static TransitionTable create(int stateCount, int alphabetSize) {
+		if (stateCount <= 1 << 8) {
+			return new ByteTable(stateCount, alphabetSize);
+		} else if (stateCount <= 1 << 16) {
+			return new ShortTable(stateCount, alphabetSize);
+		} else {
+			return new IntTable(stateCount, alphabetSize);
+		}
+	}
+
+	// Create a table holding the flattened delta function.
+	public static TransitionTable of(int[] delta, int stateCount, int alphabetSize) {
+		if (delta.length != stateCount * alphabetSize) {
+			throw new IllegalArgumentException("A delta function of " + stateCount + " states and " + alphabetSize
+					+ " symbols has " + (stateCount * alphabetSize) + " entries, not " + delta.length + ".");
+		}
+
+		TransitionTable table = create(stateCount, alphabetSize);
+
+		for (int i = 0; i < delta.length; i++) {
+			table.set(i, delta[i]);
+		}
+
+		return table;
+	}
+
+	// Return the state stored at the index, which is state * alphabetSize + symbol.
+	public abstract int get(int index);
+
+	public abstract void set(int index, int state);
+
+	// Return the state reached from the start state after reading the symbols in the range [from, to).
+	public abstract int run(int startState, byte[] symbols, int from, int to);
+
+	public abstract TransitionTable copy();
+
+	// Number of transitions, which is the number of states times the size of the alphabet.
+	public int length() {
+		return stateCount * alphabetSize;
+	}
+
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	public int getAlphabetSize() {
+		return alphabetSize;
+	}
+
+	private static final class ByteTable extends TransitionTable {
+		private final byte[] table;
+
+		ByteTable(int stateCount, int alphabetSize) {
+			super(stateCount, alphabetSize);
+			table = new byte[stateCount * alphabetSize];
+		}
+
+		private ByteTable(ByteTable other) {
+			super(other.stateCount, other.alphabetSize);
+			table = other.table.clone();
+		}
+
+		@Override
+		public int get(int index) {
+			return table[index] & 0xff;
+		}
+
+		@Override
+		public void set(int index, int state) {
+			table[index] = (byte) state;
+		}
+
+		@Override
+		public int run(int startState, byte[] symbols, int from, int to) {
+			byte[] table = this.table;
+			int state = startState;
+
+			if (alphabetShift == 1) {
+				for (int i = from; i < to; i++) {
+					state = table[(state << 1) | (symbols[i] & 0xff)] & 0xff;
+				}
+			} else if (alphabetShift >= 0) {
+				int shift = alphabetShift;
+
+				for (int i = from; i < to; i++) {
+					state = table[(state << shift) | (symbols[i] & 0xff)] & 0xff;
+				}
+			} else {
+				int size = alphabetSize;
+
+				for (int i = from; i < to; i++) {
+					state = table[state * size + (symbols[i] & 0xff)] & 0xff;
+				}
+			}
+
+			return state;
+		}
+
+		@Override
+		public TransitionTable copy() {
+			return new ByteTable(this);
+		}
+	}
+
+	private static final class ShortTable extends TransitionTable {
+		private final short[] table;
+
+		ShortTable(int stateCount, int alphabetSize) {
+			super(stateCount, alphabetSize);
+			table = new short[stateCount * alphabetSize];
+		}
+
+		private ShortTable(ShortTable other) {
+			super(other.stateCount, other.alphabetSize);
+			table = other.table.clone();
+		}
+
+		@Override
+		public int get(int index) {
+			return table[index] & 0xffff;
+		}
+
+		@Override
+		public void set(int index, int state) {
+			table[index] = (short) state;
+		}
+
+		@Override
+		public int run(int startState, byte[] symbols, int from, int to) {
+			short[] table = this.table;
+			int state = startState;
+
+			if (alphabetShift >= 0) {
+				int shift = alphabetShift;
+
+				for (int i = from; i < to; i++) {
+					state = table[(state << shift) | (symbols[i] & 0xff)] & 0xffff;
+				}
+			} else {
+				int size = alphabetSize;
+
+				for (int i = from; i < to; i++) {
+					state = table[state * size + (symbols[i] & 0xff)] & 0xffff;
+				}
+			}
+
+			return state;
+		}
+
+		@Override
+		public TransitionTable copy() {
+			return new ShortTable(this);
+		}
+	}
+
+	private static final class IntTable extends TransitionTable {
+		private final int[] table;
+
+		IntTable(int stateCount, int alphabetSize) {
+			super(stateCount, alphabetSize);
+			table = new int[stateCount * alphabetSize];
+		}
+
+		private IntTable(IntTable other) {
+			super(other.stateCount, other.alphabetSize);
+			table = other.table.clone();
+		}
+
+		@Override
+		public int get(int index) {
+			return table[index];
+		}
+
+		@Override
+		public void set(int index, int state) {
+			table[index] = state;
+		}
+
+		@Override
+		public int run(int startState, byte[] symbols, int from, int to) {
+			int[] table = this.table;
+			int state = startState;
+
+			if (alphabetShift >= 0) {
+				int shift = alphabetShift;
+
+				for (int i = from; i < to; i++) {
+					state = table[(state << shift) | (symbols[i] & 0xff)];
+				}
+			} else {
+				int size = alphabetSize;
+
+				for (int i = from; i < to; i++) {
+					state = table[state * size + (symbols[i] & 0xff)];
+				}
+			}
+
+			return state;
+		}
+
+		@Override
+		public TransitionTable copy() {
+			return new IntTable(this);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package genetic_automata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+
+/*
+ * Evolves one island for a Coordinator. The worker receives its settings,
+ * seed and training set from the coordinator, and every migration interval
+ * trades its elite DFAs for migrants from other workers, until the
+ * coordinator tells it to stop or it runs out of epochs.
+ *
+ *   java genetic_automata.Worker --host localhost --port 7355
+ */
+public class Worker {
+	public static void main(String[] args) throws IOException {
+		String host = "localhost";
+		int port = EvolutionProtocol.DEFAULT_PORT;
+
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "--host":
+				host = args[i + 1];
+				break;
+			case "--port":
+				port = Integer.parseInt(args[i + 1]);
+				break;
+			default:
+				System.err.println("Unknown option " + args[i]);
+				System.exit(2);
+			}
+		}
+
+		DFA best = run(host, port);
+		System.out.println("Best fitness: " + best.getFitness());
+	}
+
+	// Connect to the coordinator and evolve until told to stop. Returns the best DFA of this worker.
+	public static DFA run(String host, int port) throws IOException {
+		try (Socket socket = new Socket(host, port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			socket.setTcpNoDelay(true);
+
+			out.writeByte(EvolutionProtocol.HELLO);
+			out.flush();
+
+			if (in.readByte() != EvolutionProtocol.SETTINGS) {
+				throw new IOException("The coordinator did not send settings.");
+			}
+
+			int populationSize = in.readInt();
+			int elitismOffset = in.readInt();
+			double mutationRate = in.readDouble();
+			int epochs = in.readInt();
+			int migrationInterval = in.readInt();
+			int migrantCount = in.readInt();
+			long seed = in.readLong();
+
+			// DFAs and training symbols must have the coordinator's dimensions.
+			int stateCount = in.readInt();
+			int alphabetSize = in.readInt();
+
+			try {
+				DFA.checkDimensions(stateCount, alphabetSize);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(e.getMessage());
+			}
+
+			TrainingSet examples = EvolutionProtocol.readTrainingSet(in, alphabetSize);
+
+			GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, stateCount, seed);
+			algorithm.setSettings(populationSize, elitismOffset, mutationRate, epochs);
+
+			int reportedEpoch = 0;
+
+			try {
+				while (algorithm.getCurrentEpoch() < algorithm.getMaxEpochs()) {
+					if (algorithm.runEpoch()) {
+						break;
+					}
+
+					if (algorithm.getCurrentEpoch() % migrationInterval == 0) {
+						out.writeByte(EvolutionProtocol.MIGRANTS);
+						out.writeInt(algorithm.getCurrentEpoch() - reportedEpoch);
+						EvolutionProtocol.writeDFAs(out, algorithm.getElites(migrantCount));
+						out.flush();
+						reportedEpoch = algorithm.getCurrentEpoch();
+
+						if (in.readByte() == EvolutionProtocol.STOP) {
+							break;
+						}
+
+						List<DFA> immigrants = EvolutionProtocol.readDFAs(in, stateCount, alphabetSize);
+						algorithm.immigrate(immigrants);
+					}
+				}
+
+				out.writeByte(EvolutionProtocol.FINISHED);
+				out.writeInt(algorithm.getCurrentEpoch() - reportedEpoch);
+				EvolutionProtocol.writeDFA(out, algorithm.getBest());
+				out.flush();
+			} catch (EOFException | SocketException e) {
+				// The coordinator went away, so there is no one left to report to.
+			}
+
+			return algorithm.getBest();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * A bounded evaluation must give the exact fitness of every DFA that can
+ * still reach the cutoff, and a lower bound below the cutoff for the rest.
+ */
+class BoundedEvaluationTest {
+	@Test
+	void boundedFitnessIsALowerBoundAndExactForSurvivors() {
+		Random rand = new Random(6);
+		TrainingSet examples = randomExamples(rand, 2, 400);
+		List<DFA> judges = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++) {
+			judges.add(new DFA(5, 2, rand));
+		}
+
+		// Natural order, misclassified examples first, and compiled DFAs, which stop early the same way.
+		TrainingSet[] orders = { examples, examples.orderedBy(judges), examples.withCompiler(new DFACompiler(16)) };
+		int survivors = 0;
+		int stopped = 0;
+
+		for (TrainingSet scored : orders) {
+			for (int i = 0; i < 200; i++) {
+				DFA dfa = new DFA(5, 2, rand);
+				double fitness = new DFA(dfa).calculateFitness(examples);
+				double cutoff = 0.4 + rand.nextDouble() * 0.2;
+
+				dfa.keepCompiled(true);
+				double bound = dfa.calculateFitness(scored, cutoff);
+				String name = "DFA " + i + " with fitness " + fitness + ", cutoff " + cutoff;
+
+				assertTrue(bound <= fitness, name);
+
+				if (dfa.isFitnessExact()) {
+					assertEquals(fitness, bound, name);
+					assertFalse(dfa.isDirty(), name);
+					survivors++;
+				} else {
+					assertTrue(bound < cutoff && fitness < cutoff, name);
+					assertTrue(dfa.isDirty(), name);
+					stopped++;
+				}
+			}
+		}
+
+		assertTrue(survivors > 0 && stopped > 0, survivors + " DFAs survived and " + stopped + " were stopped.");
+	}
+
+	// Random inputs of up to 30 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(31);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
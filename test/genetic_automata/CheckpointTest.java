@@ -0,0 +1,109 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A run resumed from a checkpoint must continue exactly as the run that wrote it would have.
+class CheckpointTest {
+	private static final int CHECKPOINT_EPOCH = 20;
+	private static final int MORE_EPOCHS = 10;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void resumedRunContinuesLikeAnUninterruptedRun() throws IOException {
+		TrainingSet examples = randomExamples(new Random(3), 200);
+		Path file = directory.resolve("run.ckpt");
+
+		// Random verdicts cannot be learned in a few epochs, so the run reaches its checkpoint.
+		GeneticAlgorithm checkpointed = new GeneticAlgorithm(examples, 6, 11);
+		checkpointed.setSettings(60, 10, 0.2, CHECKPOINT_EPOCH);
+		checkpointed.setCheckpointing(file, CHECKPOINT_EPOCH);
+		checkpointed.runEpochs();
+		checkpointed.shutdown();
+
+		GeneticAlgorithm resumed = GeneticAlgorithm.resume(file, examples);
+		assertEquals(CHECKPOINT_EPOCH, resumed.getCurrentEpoch());
+
+		// The same run, never checkpointed, taken to the same epoch and beyond.
+		GeneticAlgorithm uninterrupted = new GeneticAlgorithm(examples, 6, 11);
+		uninterrupted.setSettings(60, 10, 0.2, CHECKPOINT_EPOCH);
+
+		for (int i = 0; i < CHECKPOINT_EPOCH + MORE_EPOCHS; i++) {
+			uninterrupted.runEpoch();
+		}
+
+		for (int i = 0; i < MORE_EPOCHS; i++) {
+			resumed.runEpoch();
+		}
+
+		uninterrupted.shutdown();
+		resumed.shutdown();
+
+		assertEquals(uninterrupted.getPopulationSize(), resumed.getPopulationSize());
+		assertEquals(uninterrupted.getElitismOffset(), resumed.getElitismOffset());
+		assertEquals(uninterrupted.getMutationRate(), resumed.getMutationRate());
+		assertEquals(uninterrupted.getSelectionMode(), resumed.getSelectionMode());
+		assertEquals(uninterrupted.getBestFitnessOverEpochs(), resumed.getBestFitnessOverEpochs());
+		assertEquals(uninterrupted.getAvgFitnessOverEpochs(), resumed.getAvgFitnessOverEpochs());
+		assertEquals(uninterrupted.getPopulation().size(), resumed.getPopulation().size());
+
+		for (int i = 0; i < uninterrupted.getPopulation().size(); i++) {
+			assertSameDFA(uninterrupted.getPopulation().get(i), resumed.getPopulation().get(i), "DFA " + i);
+		}
+	}
+
+	@Test
+	void rejectsADifferentTrainingSet() throws IOException {
+		Path file = directory.resolve("run.ckpt");
+
+		GeneticAlgorithm original = new GeneticAlgorithm(randomExamples(new Random(3), 200), 6, 11);
+		original.setSettings(20, 4, 0.2, 2);
+		original.setCheckpointing(file, 1);
+		original.runEpochs();
+		original.shutdown();
+
+		assertThrows(IOException.class, () -> GeneticAlgorithm.resume(file, randomExamples(new Random(3), 100)));
+	}
+
+	private static void assertSameDFA(DFA expected, DFA actual, String name) {
+		assertEquals(expected.getStartState(), actual.getStartState(), name);
+		assertArrayEquals(expected.getAcceptMask(), actual.getAcceptMask(), name);
+		assertEquals(expected.getDelta().length(), actual.getDelta().length(), name);
+
+		for (int j = 0; j < expected.getDelta().length(); j++) {
+			assertEquals(expected.getDelta().get(j), actual.getDelta().get(j), name);
+		}
+
+		assertEquals(expected.getFitness(), actual.getFitness(), name);
+	}
+
+	// Random binary inputs of up to 20 symbols with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int count) {
+		String[] inputs = new String[count];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			StringBuilder input = new StringBuilder();
+			int length = rand.nextInt(21);
+
+			for (int j = 0; j < length; j++) {
+				input.append(rand.nextBoolean() ? '1' : '0');
+			}
+
+			inputs[i] = input.toString();
+			expected[i] = rand.nextBoolean();
+		}
+
+		return TrainingSet.encode(inputs, expected, 2);
+	}
+}
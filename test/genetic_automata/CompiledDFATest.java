@@ -0,0 +1,68 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+// Compiled DFAs must classify every input exactly as the DFAs they were compiled from.
+class CompiledDFATest {
+	// Alphabet sizes and state counts covering strides of 1, 2, 5, 6 and 8 symbols.
+	private static final int[][] DIMENSIONS = {
+			{ 1, 3 }, { 2, 5 }, { 2, 1024 }, { 3, 7 }, { 16, 12 }, { 26, 9 }, { 129, 4 }, { 200, 33 }, { 256, 2 } };
+
+	@Test
+	void countsTheSameExamplesAsTheInterpretedDFA() {
+		Random rand = new Random(1);
+		Set<Integer> strides = new TreeSet<>();
+
+		for (int[] dimensions : DIMENSIONS) {
+			int alphabetSize = dimensions[0];
+			int stateCount = dimensions[1];
+			TrainingSet examples = randomExamples(rand, alphabetSize, 300);
+
+			for (int i = 0; i < 20; i++) {
+				DFA dfa = new DFA(stateCount, alphabetSize, rand);
+				CompiledDFA compiled = DFACompiler.compileUncached(dfa);
+				strides.add(compiled.getStride());
+
+				String dfaName = alphabetSize + " symbols, " + stateCount + " states, stride " + compiled.getStride();
+				assertEquals(dfa.calculateFitness(examples), (compiled.countCorrect(examples) * 1.0) / examples.size(),
+						dfaName);
+
+				byte[] symbols = examples.getSymbols();
+				int[] offsets = examples.getOffsets();
+
+				for (int e = 0; e < examples.size(); e++) {
+					assertEquals(dfa.run(symbols, offsets[e], offsets[e + 1]),
+							compiled.run(symbols, offsets[e], offsets[e + 1]), dfaName + ", example " + e);
+				}
+			}
+		}
+
+		assertTrue(strides.size() >= 4, "Only strides " + strides + " were exercised.");
+	}
+
+	// Random inputs of up to 40 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(41);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
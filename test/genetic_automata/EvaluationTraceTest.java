@@ -0,0 +1,60 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Re-scoring a mutated DFA from its evaluation trace must give the fitness a full evaluation gives.
+class EvaluationTraceTest {
+	@Test
+	void incrementalRescoringMatchesFullRescoring() {
+		Random rand = new Random(8);
+		int incremental = 0;
+
+		// Accept masks of one and several words, and transitions of one and two bytes.
+		for (int stateCount : new int[] { 6, 40, 300 }) {
+			TrainingSet examples = randomExamples(rand, 2, 300);
+
+			for (int i = 0; i < 30; i++) {
+				DFA dfa = new DFA(stateCount, 2, rand);
+				dfa.keepTrace(true);
+				dfa.calculateFitness(examples);
+
+				for (int generation = 0; generation < 10; generation++) {
+					dfa.mutate(rand);
+					assertEquals(new DFA(dfa).calculateFitness(examples), dfa.calculateFitness(examples),
+							stateCount + " states, DFA " + i + ", generation " + generation);
+
+					// A DFA whose mutations reached most examples was scored in full and dropped its trace.
+					if (dfa.hasTraceFor(examples)) {
+						incremental++;
+					}
+				}
+			}
+		}
+
+		assertTrue(incremental > 100, "Only " + incremental + " mutated DFAs were re-scored from their traces.");
+	}
+
+	// Random inputs of up to 10 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(11);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
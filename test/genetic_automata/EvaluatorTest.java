@@ -0,0 +1,92 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+// Every evaluator must score a population exactly as the DFAs score themselves one at a time.
+class EvaluatorTest {
+	// Populations that do not fill the last batch or split evenly across the workers.
+	private static final int POPULATION_SIZE = 150;
+
+	@Test
+	void parallelAndBatchEvaluatorsMatchSequentialScoring() {
+		Random rand = new Random(5);
+		ForkJoinPool pool = new ForkJoinPool(3);
+
+		try {
+			FitnessEvaluator[] evaluators = { new ForkJoinEvaluator(), new ForkJoinEvaluator(pool),
+					new ThreadPoolEvaluator(), new ThreadPoolEvaluator(2), new BatchEvaluator(), new BatchEvaluator(7) };
+
+			// A binary alphabet, and enough states that transitions no longer fit in a byte.
+			for (int[] dimensions : new int[][] { { 5, 2 }, { 300, 3 } }) {
+				int stateCount = dimensions[0];
+				int alphabetSize = dimensions[1];
+				TrainingSet examples = randomExamples(rand, alphabetSize, 400);
+				List<DFA> population = new ArrayList<>();
+
+				for (int i = 0; i < POPULATION_SIZE; i++) {
+					population.add(new DFA(stateCount, alphabetSize, rand));
+				}
+
+				double[] expected = new double[POPULATION_SIZE];
+
+				for (int i = 0; i < POPULATION_SIZE; i++) {
+					expected[i] = new DFA(population.get(i)).calculateFitness(examples);
+				}
+
+				for (FitnessEvaluator evaluator : evaluators) {
+					List<DFA> copies = copy(population);
+					evaluator.evaluate(copies, examples);
+
+					for (int i = 0; i < POPULATION_SIZE; i++) {
+						String name = evaluator.getClass().getSimpleName() + ", " + stateCount + " states, DFA " + i;
+						assertEquals(expected[i], copies.get(i).getFitness(), name);
+						assertFalse(copies.get(i).isDirty(), name);
+					}
+				}
+			}
+
+			for (FitnessEvaluator evaluator : evaluators) {
+				evaluator.shutdown();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static List<DFA> copy(List<DFA> population) {
+		List<DFA> copies = new ArrayList<>();
+
+		for (DFA dfa : population) {
+			copies.add(new DFA(dfa));
+		}
+
+		return copies;
+	}
+
+	// Random inputs of up to 30 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(31);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
@@ -0,0 +1,139 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Messages must arrive as they were sent, and invalid ones must be refused.
+class EvolutionProtocolTest {
+	@Test
+	void migrantsRoundTrip() throws IOException {
+		Random rand = new Random(14);
+		TrainingSet examples = randomExamples(rand, 3, 50);
+
+		// Transitions of one and two bytes, and accept masks of one and several words.
+		for (int stateCount : new int[] { 5, 300 }) {
+			List<DFA> migrants = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++) {
+				migrants.add(new DFA(stateCount, 3, rand));
+			}
+
+			// Scored, scored and changed since, and cut off by bounded evaluation.
+			migrants.get(1).calculateFitness(examples);
+			migrants.get(2).calculateFitness(examples);
+			migrants.get(2).markDirty();
+			migrants.get(3).calculateFitness(examples, 0.99);
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			EvolutionProtocol.writeDFAs(new DataOutputStream(bytes), migrants);
+			List<DFA> received = EvolutionProtocol.readDFAs(input(bytes), stateCount, 3);
+
+			assertEquals(migrants.size(), received.size());
+
+			for (int i = 0; i < migrants.size(); i++) {
+				DFA sent = migrants.get(i);
+				DFA dfa = received.get(i);
+				String name = stateCount + " states, DFA " + i;
+
+				assertEquals(sent.getStartState(), dfa.getStartState(), name);
+				assertArrayEquals(transitions(sent), transitions(dfa), name);
+				assertArrayEquals(sent.getAcceptMask(), dfa.getAcceptMask(), name);
+				assertEquals(sent.getFitness(), dfa.getFitness(), name);
+				assertEquals(sent.isDirty(), dfa.isDirty(), name);
+				assertEquals(sent.isFitnessExact(), dfa.isFitnessExact(), name);
+			}
+		}
+	}
+
+	@Test
+	void trainingSetRoundTrips() throws IOException {
+		TrainingSet examples = randomExamples(new Random(15), 7, 80);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		EvolutionProtocol.writeTrainingSet(new DataOutputStream(bytes), examples);
+		TrainingSet received = EvolutionProtocol.readTrainingSet(input(bytes), 7);
+
+		assertArrayEquals(examples.getSymbols(), received.getSymbols());
+		assertArrayEquals(examples.getOffsets(), received.getOffsets());
+		assertArrayEquals(examples.getExpected(), received.getExpected());
+		assertEquals(7, received.getAlphabetSize());
+	}
+
+	@Test
+	void invalidMessagesAreRefused() throws IOException {
+		// A transition to a state the DFA does not have.
+		DFA dfa = new DFA(5, 2, new Random(16));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		EvolutionProtocol.writeDFA(new DataOutputStream(bytes), dfa);
+		byte[] message = bytes.toByteArray();
+		message[7] = 5;
+		assertThrows(IOException.class, () -> EvolutionProtocol.readDFA(input(message), 5, 2));
+
+		// Symbols outside the alphabet, and examples ending before the previous one or after the symbols.
+		assertThrows(IOException.class, () -> EvolutionProtocol.readTrainingSet(input(trainingSet(2, 3)), 2));
+		assertThrows(IOException.class, () -> EvolutionProtocol.readTrainingSet(input(trainingSet(2, 1)), 3));
+		assertThrows(IOException.class, () -> EvolutionProtocol.readTrainingSet(input(trainingSet(4, 3)), 3));
+	}
+
+	// Two examples over the symbols {0, 1, 2}, the first ending at the given offset and the second at 3.
+	private static byte[] trainingSet(int firstEnd, int secondEnd) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(2);
+		out.writeInt(3);
+		out.write(new byte[] { 0, 1, 2 });
+		out.writeInt(firstEnd);
+		out.writeBoolean(true);
+		out.writeInt(secondEnd);
+		out.writeBoolean(false);
+		return bytes.toByteArray();
+	}
+
+	private static DataInputStream input(ByteArrayOutputStream bytes) {
+		return input(bytes.toByteArray());
+	}
+
+	private static DataInputStream input(byte[] bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+	private static int[] transitions(DFA dfa) {
+		int[] transitions = new int[dfa.getDelta().length()];
+
+		for (int i = 0; i < transitions.length; i++) {
+			transitions[i] = dfa.getDelta().get(i);
+		}
+
+		return transitions;
+	}
+
+	// Random inputs of up to 30 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(31);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
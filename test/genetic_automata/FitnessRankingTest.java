@@ -0,0 +1,84 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Quickselect must put the fittest DFAs first, in order, exactly as a full sort would.
+class FitnessRankingTest {
+	@Test
+	void rankTopOrdersTheFittestFirst() {
+		Random rand = new Random(13);
+
+		for (int size : new int[] { 1, 2, 3, 10, 200, 1000 }) {
+			for (int trial = 0; trial < 20; trial++) {
+				// Few distinct values give many ties, as populations of similar DFAs do.
+				double[] fitness = new double[size];
+				int distinct = 1 + rand.nextInt(size);
+
+				for (int i = 0; i < size; i++) {
+					fitness[i] = rand.nextInt(distinct) / (double) distinct;
+				}
+
+				int count = 1 + rand.nextInt(size);
+				int[] order = identity(size);
+				FitnessRanking.rankTop(fitness, order, size, count);
+
+				String name = size + " DFAs, top " + count;
+				double[] sorted = descending(fitness);
+				assertPermutation(order, name);
+
+				for (int i = 0; i < count; i++) {
+					assertEquals(sorted[i], fitness[order[i]], name + ", position " + i);
+				}
+
+				for (int i = count; i < size; i++) {
+					assertTrue(fitness[order[i]] <= fitness[order[count - 1]], name + ", position " + i);
+				}
+
+				// A full sort is the special case of ranking every DFA.
+				order = identity(size);
+				FitnessRanking.sort(fitness, order, 0, size - 1);
+				assertPermutation(order, name);
+
+				for (int i = 0; i < size; i++) {
+					assertEquals(sorted[i], fitness[order[i]], name + ", sorted position " + i);
+				}
+			}
+		}
+	}
+
+	private static int[] identity(int size) {
+		int[] order = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		return order;
+	}
+
+	private static double[] descending(double[] fitness) {
+		double[] sorted = fitness.clone();
+		Arrays.sort(sorted);
+
+		for (int i = 0; i < sorted.length / 2; i++) {
+			double swap = sorted[i];
+			sorted[i] = sorted[sorted.length - 1 - i];
+			sorted[sorted.length - 1 - i] = swap;
+		}
+
+		return sorted;
+	}
+
+	private static void assertPermutation(int[] order, String name) {
+		int[] indices = order.clone();
+		Arrays.sort(indices);
+		assertArrayEquals(identity(order.length), indices, name);
+	}
+}
@@ -0,0 +1,138 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// DFAs must share a GenomeKey exactly when they accept the same language.
+class GenomeKeyTest {
+	/*
+	 * DFA of the binary multiples of 3, where the state is the value read so
+	 * far modulo 3. States 3 and 4 cannot be reached from the start state.
+	 */
+	private static final DFA MULTIPLES_OF_3 = new DFA(new int[][] { { 0, 1 }, { 2, 0 }, { 1, 2 }, { 4, 3 }, { 0, 3 } },
+			new boolean[] { true, false, false, true, false }, 0);
+
+	@Test
+	void ignoresTheNumberingOfStates() {
+		// The same DFA with states 0, 1, 2, 3 and 4 renamed to 2, 0, 1, 4 and 3.
+		DFA renamed = new DFA(new int[][] { { 1, 2 }, { 0, 1 }, { 2, 0 }, { 2, 4 }, { 3, 4 } },
+				new boolean[] { false, false, true, false, true }, 2);
+
+		assertEquals(GenomeKey.of(MULTIPLES_OF_3), GenomeKey.of(renamed));
+	}
+
+	@Test
+	void ignoresUnreachableStates() {
+		DFA otherUnreachable = new DFA(new int[][] { { 0, 1 }, { 2, 0 }, { 1, 2 }, { 3, 3 }, { 4, 4 } },
+				new boolean[] { true, false, false, false, true }, 0);
+
+		assertEquals(GenomeKey.of(MULTIPLES_OF_3), GenomeKey.of(otherUnreachable));
+	}
+
+	@Test
+	void mergesEquivalentStates() {
+		// States 3 and 4 are copies of states 0 and 1, and share the transitions into them.
+		DFA split = new DFA(new int[][] { { 3, 4 }, { 2, 0 }, { 1, 2 }, { 0, 1 }, { 2, 3 } },
+				new boolean[] { true, false, false, true, false }, 0);
+
+		assertEquals(GenomeKey.of(MULTIPLES_OF_3), GenomeKey.of(split));
+	}
+
+	@Test
+	void separatesDifferentLanguages() {
+		DFA flipped = new DFA(new int[][] { { 0, 1 }, { 2, 0 }, { 1, 2 }, { 4, 3 }, { 0, 3 } },
+				new boolean[] { true, true, false, true, false }, 0);
+
+		assertNotEquals(GenomeKey.of(MULTIPLES_OF_3), GenomeKey.of(flipped));
+	}
+
+	/*
+	 * Two DFAs of 5 states each accept the same language exactly when they
+	 * agree on every input of up to 8 symbols, so the keys of random pairs
+	 * can be checked against all such inputs. Half of the pairs are a DFA and
+	 * a renamed copy of it, so that both outcomes are exercised.
+	 */
+	@Test
+	void agreesWithTheLanguagesOfRandomDFAs() {
+		Random rand = new Random(7);
+		int equivalentPairs = 0;
+
+		for (int i = 0; i < 4000; i++) {
+			DFA first = randomDFA(rand);
+			DFA second = (i % 2 == 0) ? randomDFA(rand) : renamed(first, rand);
+			boolean equivalent = acceptSameInputs(first, second, 8);
+
+			assertEquals(equivalent, GenomeKey.of(first).equals(GenomeKey.of(second)), "pair " + i);
+
+			if (equivalent) {
+				assertEquals(GenomeKey.of(first).hashCode(), GenomeKey.of(second).hashCode(), "pair " + i);
+				equivalentPairs++;
+			}
+		}
+
+		assertNotEquals(0, equivalentPairs);
+	}
+
+	// Random binary DFA of 5 states whose transitions mostly stay among the first few, so languages repeat.
+	private static DFA randomDFA(Random rand) {
+		int[][] delta = new int[5][2];
+		boolean[] accept = new boolean[5];
+		int used = 1 + rand.nextInt(5);
+
+		for (int state = 0; state < 5; state++) {
+			delta[state][0] = rand.nextInt(used);
+			delta[state][1] = rand.nextInt(used);
+			accept[state] = rand.nextBoolean();
+		}
+
+		return new DFA(delta, accept, 0);
+	}
+
+	// Copy of the DFA with its states randomly renamed.
+	private static DFA renamed(DFA dfa, Random rand) {
+		int[] name = { 0, 1, 2, 3, 4 };
+
+		for (int i = name.length - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			int swap = name[i];
+			name[i] = name[j];
+			name[j] = swap;
+		}
+
+		int[][] delta = new int[5][2];
+		boolean[] accept = new boolean[5];
+
+		for (int state = 0; state < 5; state++) {
+			for (int symbol = 0; symbol < 2; symbol++) {
+				delta[name[state]][symbol] = name[dfa.getTransition(state, symbol)];
+			}
+
+			accept[name[state]] = dfa.isAcceptState(state);
+		}
+
+		return new DFA(delta, accept, name[dfa.getStartState()]);
+	}
+
+	// Returns true if the DFAs agree on every binary input of up to maxLength symbols.
+	private static boolean acceptSameInputs(DFA first, DFA second, int maxLength) {
+		for (int length = 0; length <= maxLength; length++) {
+			byte[] input = new byte[length];
+
+			for (int bits = 0; bits < (1 << length); bits++) {
+				for (int j = 0; j < length; j++) {
+					input[j] = (byte) ((bits >>> j) & 1);
+				}
+
+				if (first.run(input) != second.run(input)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+}
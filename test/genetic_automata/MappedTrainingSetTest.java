@@ -0,0 +1,110 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A training set file must score every DFA exactly as the in-memory training set it was made from.
+class MappedTrainingSetTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void writtenFileScoresLikeTheTrainingSet() throws IOException {
+		Random rand = new Random(9);
+
+		// Symbols of 1, 2, 4 and 8 bits.
+		for (int alphabetSize : new int[] { 2, 3, 16, 200 }) {
+			TrainingSet examples = randomExamples(rand, alphabetSize, 333);
+			Path file = directory.resolve(alphabetSize + ".dfat");
+			MappedTrainingSet.write(examples, file);
+
+			try (MappedTrainingSet mapped = new MappedTrainingSet(file)) {
+				assertEquals(examples.size(), mapped.size());
+				assertEquals(alphabetSize, mapped.getAlphabetSize());
+				assertScoresLike(rand, examples, mapped);
+			}
+		}
+	}
+
+	@Test
+	void convertedFileMatchesTheWrittenTrainingSet() throws IOException {
+		Path text = directory.resolve("examples.txt");
+		Files.write(text, List.of("# comment", "101 1", "", "  0  false", "1", "z9 true", "00 0", "0"),
+				StandardCharsets.UTF_8);
+
+		TrainingSet examples = TrainingSet.read(text, 36);
+		Path converted = directory.resolve("converted.dfat");
+		Path written = directory.resolve("written.dfat");
+		MappedTrainingSet.convert(text, converted, 36);
+		MappedTrainingSet.write(examples, written);
+
+		assertArrayEquals(Files.readAllBytes(written), Files.readAllBytes(converted));
+
+		try (MappedTrainingSet mapped = new MappedTrainingSet(converted)) {
+			assertEquals(6, mapped.size());
+			assertScoresLike(new Random(10), examples, mapped);
+		}
+	}
+
+	@Test
+	void convertRejectsWhatReadRejects() throws IOException {
+		Path text = directory.resolve("invalid.txt");
+		Path file = directory.resolve("invalid.dfat");
+
+		for (String line : new String[] { "101 maybe", "101 1 0" }) {
+			Files.write(text, List.of("11 1", line), StandardCharsets.UTF_8);
+			assertThrows(IOException.class, () -> TrainingSet.read(text, 2), line);
+			assertThrows(IOException.class, () -> MappedTrainingSet.convert(text, file, 2), line);
+		}
+	}
+
+	private static void assertScoresLike(Random rand, TrainingSet examples, MappedTrainingSet mapped)
+			throws IOException {
+		List<DFA> population = new ArrayList<>();
+
+		for (int i = 0; i < 40; i++) {
+			population.add(new DFA(1 + rand.nextInt(9), examples.getAlphabetSize(), rand));
+		}
+
+		// Score the same file more than once, as every epoch does.
+		for (int epoch = 0; epoch < 2; epoch++) {
+			mapped.evaluate(population);
+
+			for (int i = 0; i < population.size(); i++) {
+				assertEquals(new DFA(population.get(i)).calculateFitness(examples), population.get(i).getFitness(),
+						examples.getAlphabetSize() + " symbols, DFA " + i);
+			}
+		}
+	}
+
+	// Random inputs of up to 30 symbols, including empty ones, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(31);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}
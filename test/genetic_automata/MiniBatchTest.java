@@ -0,0 +1,55 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Runs scored on mini-batches must report DFAs by their fitness on all training examples.
+class MiniBatchTest {
+	@Test
+	void bestDFAIsValidatedOnAllExamples() {
+		TrainingSet examples = BatchRunner.createTrainingExamples(new Random(1), DFA.DEFAULT_ALPHABET_SIZE);
+
+		for (int validationInterval : new int[] { 1, 7 }) {
+			GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, 5, 21);
+			algorithm.setSettings(80, 10, 0.2, 40);
+			algorithm.setMiniBatch(25, 3, validationInterval);
+
+			DFA best = algorithm.runEpochs();
+			algorithm.shutdown();
+
+			assertEquals(new DFA(best).calculateFitness(examples), best.getFitness(),
+					"validation every " + validationInterval + " epochs");
+			assertSame(best, algorithm.getBest());
+
+			// The run stops early only on a DFA that is correct on every example.
+			assertTrue(algorithm.getCurrentEpoch() == 40 || best.getFitness() == 1.0);
+		}
+	}
+
+	@Test
+	void immigrantsAreScoredOnTheirNewMiniBatch() {
+		TrainingSet examples = BatchRunner.createTrainingExamples(new Random(1), DFA.DEFAULT_ALPHABET_SIZE);
+		DFA immigrant = new DFA(5, DFA.DEFAULT_ALPHABET_SIZE, new Random(2));
+		immigrant.calculateFitness(examples);
+
+		GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, 5, 3);
+		algorithm.immigrate(List.of(new DFA(immigrant)));
+		assertFalse(last(algorithm.getPopulation()).isDirty());
+
+		algorithm.setMiniBatch(25, 1, 10);
+		algorithm.immigrate(List.of(new DFA(immigrant)));
+		assertTrue(last(algorithm.getPopulation()).isDirty());
+		algorithm.shutdown();
+	}
+
+	private static DFA last(List<DFA> population) {
+		return population.get(population.size() - 1);
+	}
+}
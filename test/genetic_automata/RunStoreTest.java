@@ -0,0 +1,126 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The store must give back every run it acknowledged, even after a crash while a run was being added.
+class RunStoreTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	void reopenedStoreHoldsTheAppendedRuns() throws IOException {
+		List<RunRecord> records = runs(4);
+
+		try (RunStore store = RunStore.open(directory)) {
+			for (RunRecord record : records) {
+				store.append(record);
+			}
+		}
+
+		try (RunStore store = RunStore.open(directory)) {
+			assertMatches(records, store);
+		}
+	}
+
+	@Test
+	void reopeningRepairsTornFramesAndReindexesTheLog() throws IOException {
+		List<RunRecord> records = runs(3);
+
+		try (RunStore store = RunStore.open(directory)) {
+			for (RunRecord record : records) {
+				store.append(record);
+			}
+		}
+
+		Path log = directory.resolve("runs.log");
+		Path index = directory.resolve("runs.idx");
+		long logSize = Files.size(log);
+		byte[] indexBytes = Files.readAllBytes(index);
+
+		// A crash while appending: a frame header and half a record at the end of the log,
+		// and the last record missing from the index.
+		byte[] logBytes = Files.readAllBytes(log);
+		int firstLength = ByteBuffer.wrap(logBytes).getInt(0);
+		Files.write(log, Arrays.copyOf(logBytes, 8 + firstLength / 2), StandardOpenOption.APPEND);
+		truncate(index, indexBytes.length - 1);
+
+		try (RunStore store = RunStore.open(directory)) {
+			assertMatches(records, store);
+			assertEquals(logSize, Files.size(log));
+			assertArrayEquals(indexBytes, Files.readAllBytes(index));
+
+			// The repaired store takes new runs after the last intact one.
+			records.addAll(runs(1));
+			store.append(records.get(records.size() - 1));
+		}
+
+		// A torn index entry, with the log intact.
+		Files.write(index, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (RunStore store = RunStore.open(directory)) {
+			assertMatches(records, store);
+		}
+	}
+
+	// Check that the store's entries are the records in order, and that each index entry matches its record in the log.
+	private static void assertMatches(List<RunRecord> records, RunStore store) throws IOException {
+		List<RunStore.Entry> entries = store.getEntries();
+		assertEquals(records.size(), entries.size());
+
+		for (int i = 0; i < records.size(); i++) {
+			RunRecord expected = records.get(i);
+			RunRecord full = store.read(entries.get(i));
+
+			for (RunRecord actual : new RunRecord[] { entries.get(i).getSummary(), full }) {
+				assertEquals(expected.getTimestamp(), actual.getTimestamp(), "run " + i);
+				assertEquals(expected.getLanguage(), actual.getLanguage(), "run " + i);
+				assertEquals(expected.getPopulation(), actual.getPopulation(), "run " + i);
+				assertEquals(expected.getMutation(), actual.getMutation(), "run " + i);
+				assertEquals(expected.getSeed(), actual.getSeed(), "run " + i);
+				assertEquals(expected.getEpochsRun(), actual.getEpochsRun(), "run " + i);
+				assertEquals(expected.getBestFitness(), actual.getBestFitness(), "run " + i);
+			}
+
+			assertArrayEquals(expected.getBestCurve(), full.getBestCurve(), "run " + i);
+			assertArrayEquals(expected.getAvgCurve(), full.getAvgCurve(), "run " + i);
+			assertArrayEquals(expected.getBest().getAcceptMask(), full.getBest().getAcceptMask(), "run " + i);
+		}
+	}
+
+	private static void truncate(Path file, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(size);
+		}
+	}
+
+	// Short runs with different seeds and population sizes on the default training examples.
+	private static List<RunRecord> runs(int count) {
+		TrainingSet examples = BatchRunner.createTrainingExamples(new Random(1), DFA.DEFAULT_ALPHABET_SIZE);
+		List<RunRecord> records = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, 5, i);
+			algorithm.setSettings(20 + 10 * i, 4, 0.2, 8);
+			DFA best = algorithm.runEpochs();
+			algorithm.shutdown();
+			records.add(RunRecord.of(RunStore.DEFAULT_LANGUAGE, algorithm, best, (long) i));
+		}
+
+		return records;
+	}
+}
@@ -0,0 +1,91 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Each selection strategy must draw positions with the probabilities it promises.
+class SelectionTest {
+	private static final int DRAWS = 200_000;
+
+	// Fitness in decreasing order, with ties and DFAs that classify nothing correctly.
+	private static final double[] FITNESS = { 0.9, 0.8, 0.8, 0.5, 0.3, 0.3, 0.2, 0.1, 0, 0 };
+
+	@Test
+	void rouletteSelectionIsProportionalToFitness() {
+		double sum = 0;
+
+		for (double fitness : FITNESS) {
+			sum += fitness;
+		}
+
+		double[] expected = new double[FITNESS.length];
+
+		for (int i = 0; i < FITNESS.length; i++) {
+			expected[i] = FITNESS[i] / sum;
+		}
+
+		// Prepare a larger population first, so the reused table must be rebuilt correctly.
+		RouletteSelection selection = new RouletteSelection();
+		selection.prepare(new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 }, 12);
+		assertDrawn(selection, FITNESS, expected);
+
+		// Without any fitness to weigh by, every DFA is equally likely.
+		double[] uniform = new double[4];
+		Arrays.fill(uniform, 0.25);
+		assertDrawn(selection, new double[4], uniform);
+	}
+
+	@Test
+	void tournamentSelectionPicksTheBestOfItsDraws() {
+		int n = FITNESS.length;
+
+		for (int tournamentSize : new int[] { 1, 2, 3, 5 }) {
+			double[] expected = new double[n];
+
+			// The best of k uniform draws is at position i if all are at i or after, but not all after i.
+			for (int i = 0; i < n; i++) {
+				expected[i] = (Math.pow(n - i, tournamentSize) - Math.pow(n - i - 1, tournamentSize))
+						/ Math.pow(n, tournamentSize);
+			}
+
+			assertDrawn(new TournamentSelection(tournamentSize), FITNESS, expected);
+		}
+	}
+
+	@Test
+	void rankSelectionWeighsByRank() {
+		for (int n : new int[] { 1, 2, FITNESS.length }) {
+			double[] expected = new double[n];
+
+			for (int i = 0; i < n; i++) {
+				expected[i] = (n - i) / (n * (n + 1) / 2.0);
+			}
+
+			assertDrawn(new RankSelection(), FITNESS, expected);
+		}
+	}
+
+	// Prepare the strategy and check that every position is drawn as often as expected, within 5 standard deviations.
+	private static void assertDrawn(SelectionStrategy selection, double[] fitness, double[] expected) {
+		Random rand = new Random(12);
+		int[] counts = new int[expected.length];
+
+		selection.prepare(fitness, expected.length);
+
+		for (int i = 0; i < DRAWS; i++) {
+			counts[selection.select(rand)]++;
+		}
+
+		for (int i = 0; i < expected.length; i++) {
+			double mean = DRAWS * expected[i];
+			double deviation = Math.sqrt(DRAWS * expected[i] * (1 - expected[i]));
+
+			assertTrue(Math.abs(counts[i] - mean) <= 5 * deviation + 1, selection.getClass().getSimpleName()
+					+ " drew position " + i + " " + counts[i] + " times, expected about " + Math.round(mean));
+		}
+	}
+}
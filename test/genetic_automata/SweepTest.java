@@ -0,0 +1,105 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// A sweep must rank configurations by the mean epochs of their runs, and cancel only those clearly beaten.
+class SweepTest {
+	private static final int SEED_COUNT = 4;
+	private static final int MAX_EPOCHS = 40;
+
+	@Test
+	void configurationsAreRankedByTheMeanEpochsOfTheirRuns() throws IOException {
+		TrainingSet examples = endsWithOne(new Random(17));
+		List<Sweep.Config> configs = Sweep.grid(new int[] { 4, 30 }, new int[] { 2 }, new double[] { 0.1, 0.5 });
+
+		Sweep sweep = new Sweep(examples, configs, SEED_COUNT, 5);
+		sweep.setMaxEpochs(MAX_EPOCHS);
+		sweep.setStateCount(2);
+		sweep.setCancelMargin(0);
+		sweep.setThreads(3);
+		List<Sweep.Config> ranked = sweep.run();
+
+		assertEquals(configs.size() * SEED_COUNT, sweep.getFinishedRuns());
+
+		for (int i = 0; i < ranked.size(); i++) {
+			Sweep.Config config = ranked.get(i);
+			assertEquals(SEED_COUNT, config.getRuns(), config.toString());
+			assertEquals(meanEpochs(examples, config, 5), config.getMeanEpochs(), config.toString());
+
+			if (i > 0) {
+				assertTrue(ranked.get(i - 1).getMeanEpochs() <= config.getMeanEpochs(), config.toString());
+			}
+		}
+	}
+
+	@Test
+	void clearlyBeatenConfigurationsAreCancelled() throws IOException {
+		TrainingSet examples = endsWithOne(new Random(17));
+
+		// A population that can never change against one that learns the language in a few epochs.
+		Sweep.Config stuck = new Sweep.Config(1, 1, 0);
+		Sweep.Config learning = new Sweep.Config(60, 5, 0.3);
+		int seedCount = 8;
+
+		Sweep sweep = new Sweep(examples, List.of(stuck, learning), seedCount, 5);
+		sweep.setMaxEpochs(MAX_EPOCHS);
+		sweep.setStateCount(2);
+		sweep.setThreads(1);
+		List<Sweep.Config> ranked = sweep.run();
+
+		assertSame(learning, ranked.get(0));
+		assertFalse(learning.isCancelled());
+		assertEquals(seedCount, learning.getRuns());
+		assertTrue(stuck.isCancelled());
+		assertTrue(stuck.getRuns() < seedCount);
+		assertEquals(2 * seedCount, sweep.getFinishedRuns() + sweep.getCancelledRuns() + sweep.getSkippedRuns());
+	}
+
+	// The mean epochs of the configuration run on its own with the seeds a sweep derives from the given seed.
+	private static double meanEpochs(TrainingSet examples, Sweep.Config config, long seed) {
+		SplitMixRandom rand = new SplitMixRandom(seed);
+		long totalEpochs = 0;
+
+		for (int i = 0; i < SEED_COUNT; i++) {
+			GeneticAlgorithm algorithm = new GeneticAlgorithm(examples, 2, rand.nextLong());
+			algorithm.setSettings(config.getPopulation(), config.getElitism(), config.getMutation(), MAX_EPOCHS);
+			algorithm.runEpochs();
+			algorithm.shutdown();
+			totalEpochs += algorithm.getCurrentEpoch();
+		}
+
+		return (totalEpochs * 1.0) / SEED_COUNT;
+	}
+
+	// Random binary inputs of up to 10 symbols, accepted if they end with a 1, which two states can decide.
+	private static TrainingSet endsWithOne(Random rand) {
+		int count = 100;
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + 1 + rand.nextInt(10);
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(2);
+		}
+
+		for (int i = 0; i < count; i++) {
+			expected[i] = symbols[offsets[i + 1] - 1] == 1;
+		}
+
+		return new TrainingSet(symbols, offsets, expected, 2);
+	}
+}
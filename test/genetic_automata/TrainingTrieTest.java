@@ -0,0 +1,84 @@
+package genetic_automata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Walking the prefix trie must count the same correct examples as running every input on its own.
+class TrainingTrieTest {
+	@Test
+	void trieScoringMatchesPerExampleScoring() {
+		Random rand = new Random(2);
+
+		// Small alphabets share many prefixes; large ones keep their trie edges in hash tables.
+		for (int alphabetSize : new int[] { 1, 2, 5, 200 }) {
+			TrainingSet examples = randomExamples(rand, alphabetSize, 500);
+			TrainingSet indexed = examples.withTrie();
+			assertEquals(examples.size(), indexed.getTrie().getExampleCount());
+
+			for (int i = 0; i < 30; i++) {
+				DFA dfa = new DFA(1 + rand.nextInt(12), alphabetSize, rand);
+				assertEquals(new DFA(dfa).calculateFitness(examples), dfa.calculateFitness(indexed),
+						alphabetSize + " symbols, DFA " + i);
+			}
+		}
+	}
+
+	@Test
+	void miniBatchTriesMatchPerExampleScoringOfTheirExamples() {
+		Random rand = new Random(4);
+		TrainingSet examples = randomExamples(rand, 3, 400);
+		TrainingSet indexed = examples.withTrie();
+		int[] indices = shuffledIndices(rand, examples.size());
+
+		for (int from = 0; from + 50 <= indices.length; from += 70) {
+			TrainingSet batch = examples.subset(indices, from, from + 50);
+			TrainingSet indexedBatch = indexed.subset(indices, from, from + 50);
+			assertEquals(50, indexedBatch.getTrie().getExampleCount());
+
+			for (int i = 0; i < 20; i++) {
+				DFA dfa = new DFA(6, 3, rand);
+				assertEquals(new DFA(dfa).calculateFitness(batch), dfa.calculateFitness(indexedBatch),
+						"batch from " + from + ", DFA " + i);
+			}
+		}
+	}
+
+	private static int[] shuffledIndices(Random rand, int count) {
+		int[] indices = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			indices[i] = i;
+		}
+
+		for (int i = count - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			int swap = indices[i];
+			indices[i] = indices[j];
+			indices[j] = swap;
+		}
+
+		return indices;
+	}
+
+	// Random inputs of up to 12 symbols, so that inputs share prefixes and some repeat, with random verdicts.
+	private static TrainingSet randomExamples(Random rand, int alphabetSize, int count) {
+		int[] offsets = new int[count + 1];
+		boolean[] expected = new boolean[count];
+
+		for (int i = 0; i < count; i++) {
+			offsets[i + 1] = offsets[i] + rand.nextInt(13);
+			expected[i] = rand.nextBoolean();
+		}
+
+		byte[] symbols = new byte[offsets[count]];
+
+		for (int j = 0; j < symbols.length; j++) {
+			symbols[j] = (byte) rand.nextInt(alphabetSize);
+		}
+
+		return new TrainingSet(symbols, offsets, expected, alphabetSize);
+	}
+}